@@ -0,0 +1,161 @@
+import utils.ColumnMasker;
+import utils.DictionaryMasker;
+import utils.FieldMasker;
+import utils.MemoCache;
+
+import java.time.LocalDate;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bridge between the JMH benchmarks and the masking operations
+ *
+ * JMH refuses to generate harness code for benchmark classes in the default package, and classes in a named
+ * package cannot import from the default package. The masking operations live in the default package, so this
+ * class hands them out as plain functional interfaces. The benchmarks resolve a factory once per trial
+ * (see benchmarks.Targets) and then only pay for a monomorphic interface call on the hot path.
+ */
+public final class BenchmarkTargets {
+
+    private BenchmarkTargets() {
+    }
+
+    public static UnaryOperator<String> redact() {
+        final Redact redact = new Redact();
+        return redact::redact;
+    }
+
+    /**
+     * Redact into a buffer owned by the returned function, so the caller must keep it confined to one thread
+     */
+    public static ToIntFunction<CharSequence> redactInto(final Integer capacity) {
+        final Redact redact = new Redact();
+        final char[] buffer = new char[capacity];
+        return value -> redact.redact(value, 0, value.length(), buffer, 0);
+    }
+
+    /**
+     * Redact Latin-1 bytes into a buffer owned by the returned function, so the caller must keep it confined to one thread
+     */
+    public static ToIntFunction<byte[]> redactBytesInto(final Integer capacity) {
+        final Redact redact = new Redact();
+        final byte[] buffer = new byte[capacity];
+        return value -> redact.redact(value, 0, value.length, buffer, 0);
+    }
+
+    public static ColumnMasker redactColumn() {
+        return new Redact();
+    }
+
+    public static ColumnMasker redactColumnPartial(final Integer offset, final String direction) {
+        return new Redact().column(offset, Redact.DIRECTION.valueOf(direction));
+    }
+
+    public static UnaryOperator<String> redactPartial(final Integer offset, final String direction) {
+        final Redact redact = new Redact();
+        final Redact.DIRECTION redactDirection = Redact.DIRECTION.valueOf(direction);
+        return value -> redact.redact(value, Math.min(offset, value.length()), redactDirection);
+    }
+
+    public static UnaryOperator<LocalDate> perturb(final String temporalComponent) {
+        final Perturb perturb = new Perturb();
+        if ("random".equals(temporalComponent)) {
+            return perturb::perturb;
+        }
+        final Perturb.TEMPORAL_COMPONENT component = Perturb.TEMPORAL_COMPONENT.valueOf(temporalComponent);
+        return date -> perturb.perturb(date, component);
+    }
+
+    /**
+     * Perturb a column of epoch days; the random component perturbs row by row through the single value API
+     */
+    public static UnaryOperator<int[]> perturbEpochDays(final String temporalComponent) {
+        final Perturb perturb = new Perturb();
+        if ("random".equals(temporalComponent)) {
+            return epochDays -> {
+                final int[] perturbed = new int[epochDays.length];
+                for (int i = 0; i < epochDays.length; i++) {
+                    perturbed[i] = (int) perturb.perturb(LocalDate.ofEpochDay(epochDays[i])).toEpochDay();
+                }
+                return perturbed;
+            };
+        }
+        final Perturb.TEMPORAL_COMPONENT component = Perturb.TEMPORAL_COMPONENT.valueOf(temporalComponent);
+        return epochDays -> perturb.perturb(epochDays, component);
+    }
+
+    /**
+     * Perturb ISO-8601 strings into a builder owned by the returned function, so the caller must keep it confined to
+     * one thread
+     */
+    public static ToIntFunction<CharSequence> perturbIso(final String temporalComponent) {
+        final Perturb perturb = new Perturb();
+        final StringBuilder perturbed = new StringBuilder(10);
+        if ("random".equals(temporalComponent)) {
+            return isoDate -> {
+                perturbed.setLength(0);
+                perturb.perturb(isoDate, perturbed);
+                return perturbed.length();
+            };
+        }
+        final Perturb.TEMPORAL_COMPONENT component = Perturb.TEMPORAL_COMPONENT.valueOf(temporalComponent);
+        return isoDate -> {
+            perturbed.setLength(0);
+            perturb.perturb(isoDate, component, perturbed);
+            return perturbed.length();
+        };
+    }
+
+    public static UnaryOperator<String> encrypt() {
+        final Hash hash = new Hash();
+        return hash::encrypt;
+    }
+
+    public static ColumnMasker encryptColumn() {
+        return new Hash();
+    }
+
+    public static UnaryOperator<String[]> encryptBatch() {
+        final Hash hash = new Hash();
+        return hash::encrypt;
+    }
+
+    public static ColumnMasker encryptColumnDictionary() {
+        return new DictionaryMasker(new Hash());
+    }
+
+    public static FieldMasker encryptMemoized(final Integer size, final String eviction) {
+        return new MemoCache(size, MemoCache.EVICTION.valueOf(eviction)).memoize(FieldMaskers.encrypt());
+    }
+
+    public static UnaryOperator<String> tokenize() {
+        final Tokenize tokenize = new Tokenize();
+        return tokenize::tokenize;
+    }
+
+    public static UnaryOperator<String> tokenizePreservingFormat() {
+        final Tokenize tokenize = new Tokenize();
+        return tokenize::tokenizePreservingFormat;
+    }
+
+    public static UnaryOperator<String[]> substituteFirstNames() {
+        final Substitution substitution = new Substitution();
+        return substitution::substituteFirstNames;
+    }
+
+    public static UnaryOperator<String[]> substituteFirstNamesByRank(final Integer year) {
+        final Substitution substitution = new Substitution();
+        return column -> substitution.substituteFirstNames(column, year);
+    }
+
+    public static UnaryOperator<String[]> substituteLastNames() {
+        final Substitution substitution = new Substitution();
+        return substitution::substituteLastNames;
+    }
+
+    public static UnaryOperator<String[]> substituteLastNames(final String sampling) {
+        final Substitution substitution = new Substitution();
+        final Substitution.SURNAME_SAMPLING surnameSampling = Substitution.SURNAME_SAMPLING.valueOf(sampling);
+        return column -> substitution.substituteLastNames(column, surnameSampling);
+    }
+}
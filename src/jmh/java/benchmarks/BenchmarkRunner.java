@@ -0,0 +1,60 @@
+package benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+
+/**
+ * Entry point of target/benchmarks.jar
+ *
+ * Accepts the regular JMH command line (e.g. "RedactBenchmark -p valueSize=32") and adds two things on top:
+ * the GC profiler is always attached so allocation rates (gc.alloc.rate.norm, bytes per operation) are reported
+ * next to the timings, and unless -t is given every selected benchmark is repeated for each thread count in the
+ * "benchmark.threads" system property (default 1, 4 and the number of available processors).
+ */
+public final class BenchmarkRunner {
+
+    private static final String THREADS_PROPERTY = "benchmark.threads";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+                || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+
+        if (commandLine.getThreads().hasValue()) {
+            new Runner(options(commandLine).build()).run();
+            return;
+        }
+
+        for (int threads : threadCounts()) {
+            new Runner(options(commandLine).threads(threads).build()).run();
+        }
+    }
+
+    private static ChainedOptionsBuilder options(final CommandLineOptions commandLine) {
+        return new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+    }
+
+    private static int[] threadCounts() {
+        String defaults = "1,4," + Runtime.getRuntime().availableProcessors();
+        return Arrays.stream(System.getProperty(THREADS_PROPERTY, defaults).split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .distinct()
+                .toArray();
+    }
+}
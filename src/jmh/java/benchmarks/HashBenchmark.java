@@ -0,0 +1,111 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.ColumnMasker;
+import utils.FieldMasker;
+import utils.MaskedColumn;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cost of Hash.encrypt per value, per batch of Values.POOL_SIZE values, per value of a column encrypted into a
+ * reused buffer, and per value through a MemoCache big enough for the whole pool, where every call after the first
+ * pass is a hit. The lowCardinality benchmarks encrypt a column of Values.POOL_SIZE rows holding only DISTINCT values,
+ * row by row and through its dictionary.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HashBenchmark {
+
+    private static final int DISTINCT = 16;
+
+    @Param({"8", "32", "256"})
+    private int valueSize;
+
+    @Param({"alpha", "numeric", "mixed", "unicode"})
+    private String mix;
+
+    private String[] values;
+    private String[] lowCardinality;
+    private int cursor;
+
+    private UnaryOperator<String> encrypt;
+    private UnaryOperator<String[]> encryptBatch;
+    private ColumnMasker encryptColumn;
+    private ColumnMasker encryptColumnDictionary;
+    private final MaskedColumn masked = new MaskedColumn();
+    private FieldMasker encryptMemoized;
+    private final StringBuilder memoized = new StringBuilder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        values = Values.strings(valueSize, mix);
+        lowCardinality = new String[Values.POOL_SIZE];
+        for (int i = 0; i < lowCardinality.length; i++) {
+            lowCardinality[i] = values[i % DISTINCT];
+        }
+        encrypt = Targets.lookup("encrypt");
+        encryptBatch = Targets.lookup("encryptBatch");
+        encryptColumn = Targets.lookup("encryptColumn");
+        encryptColumnDictionary = Targets.lookup("encryptColumnDictionary");
+        encryptMemoized = Targets.lookup("encryptMemoized", 2 * Values.POOL_SIZE, "tinyLfu");
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return encrypt.apply(values[cursor++ & Values.POOL_MASK]);
+    }
+
+    @Benchmark
+    public String[] encryptBatch() {
+        return encryptBatch.apply(values);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Values.POOL_SIZE)
+    public int encryptColumn() {
+        masked.clear();
+        encryptColumn.mask(values, masked);
+        return masked.position();
+    }
+
+    @Benchmark
+    public int encryptMemoized() {
+        memoized.setLength(0);
+        encryptMemoized.mask(values[cursor++ & Values.POOL_MASK], memoized);
+        return memoized.length();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Values.POOL_SIZE)
+    public int lowCardinalityColumn() {
+        masked.clear();
+        encryptColumn.mask(lowCardinality, masked);
+        return masked.position();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Values.POOL_SIZE)
+    public int lowCardinalityDictionary() {
+        masked.clear();
+        encryptColumnDictionary.mask(lowCardinality, masked);
+        return masked.position();
+    }
+}
@@ -0,0 +1,83 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Per-value cost of Perturb for each temporal component, and for the random component overload, plus the cost of
+ * perturbing a column of Values.POOL_SIZE epoch days and of a single ISO-8601 string
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PerturbBenchmark {
+
+    // dates between 1920-01-01 and 2020-12-31, the same span as the first name data
+    private static final long FIRST_EPOCH_DAY = LocalDate.of(1920, 1, 1).toEpochDay();
+    private static final long LAST_EPOCH_DAY = LocalDate.of(2020, 12, 31).toEpochDay();
+
+    @Param({"year", "month", "week", "day", "random"})
+    private String temporalComponent;
+
+    private LocalDate[] dates;
+    private int cursor;
+
+    private int[] epochDays;
+    private String[] isoDates;
+
+    private UnaryOperator<LocalDate> perturb;
+    private UnaryOperator<int[]> perturbEpochDays;
+    private ToIntFunction<CharSequence> perturbIso;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(Values.POOL_SIZE);
+        dates = new LocalDate[Values.POOL_SIZE];
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = LocalDate.ofEpochDay(random.nextLong(FIRST_EPOCH_DAY, LAST_EPOCH_DAY + 1));
+        }
+        epochDays = new int[dates.length];
+        isoDates = new String[dates.length];
+        for (int i = 0; i < dates.length; i++) {
+            epochDays[i] = (int) dates[i].toEpochDay();
+            isoDates[i] = dates[i].toString();
+        }
+        perturb = Targets.lookup("perturb", temporalComponent);
+        perturbEpochDays = Targets.lookup("perturbEpochDays", temporalComponent);
+        perturbIso = Targets.lookup("perturbIso", temporalComponent);
+    }
+
+    @Benchmark
+    public LocalDate perturb() {
+        return perturb.apply(dates[cursor++ & Values.POOL_MASK]);
+    }
+
+    @Benchmark
+    public int[] perturbEpochDays() {
+        return perturbEpochDays.apply(epochDays);
+    }
+
+    @Benchmark
+    public int perturbIso() {
+        return perturbIso.applyAsInt(isoDates[cursor++ & Values.POOL_MASK]);
+    }
+}
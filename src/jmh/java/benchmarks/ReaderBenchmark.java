@@ -0,0 +1,94 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.DelimitedReader;
+import utils.FieldReader;
+import utils.MappedDelimitedReader;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to walk every field of a delimited file through a Reader (DelimitedReader) and through a memory-mapped
+ * window (MappedDelimitedReader), touching every character as a masking operation would
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReaderBenchmark {
+
+    private static final int COLUMNS = 6;
+
+    @Param({"100000"})
+    private int records;
+
+    @Param({"alpha", "unicode"})
+    private String mix;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final String[] values = Values.strings(12, mix);
+        file = Files.createTempFile("reader-benchmark", ".csv");
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int record = 0; record < records; record++) {
+                for (int column = 0; column < COLUMNS; column++) {
+                    if (column > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(values[(record * COLUMNS + column) & Values.POOL_MASK]);
+                }
+                writer.write('\n');
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long stream() throws IOException {
+        return scan(new DelimitedReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8), ','));
+    }
+
+    @Benchmark
+    public long mapped() throws IOException {
+        return scan(new MappedDelimitedReader(file, ','));
+    }
+
+    private static long scan(final FieldReader reader) throws IOException {
+        long checksum = 0;
+        try (reader) {
+            while (reader.next()) {
+                final CharSequence field = reader.field();
+                for (int i = 0; i < field.length(); i++) {
+                    checksum += field.charAt(i);
+                }
+            }
+        }
+        return checksum;
+    }
+}
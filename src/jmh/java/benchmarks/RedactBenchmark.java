@@ -0,0 +1,116 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.ColumnMasker;
+import utils.MaskedColumn;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Per-value cost of Redact for full and partial (front/back offset) redaction, for redaction into a reused buffer (of
+ * chars, and of Latin-1 bytes where ASCII is redacted a word at a time), and for column redaction of Values.POOL_SIZE
+ * values per call (reported per value). The unicode mix has characters outside Latin-1, which encode as '?'.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RedactBenchmark {
+
+    @Param({"8", "32", "256"})
+    private int valueSize;
+
+    @Param({"alpha", "numeric", "mixed", "unicode"})
+    private String mix;
+
+    private String[] values;
+    private byte[][] latin1;
+    private int cursor;
+
+    private UnaryOperator<String> redact;
+    private UnaryOperator<String> redactFront;
+    private UnaryOperator<String> redactBack;
+    private ToIntFunction<CharSequence> redactInto;
+    private ToIntFunction<byte[]> redactBytesInto;
+    private ColumnMasker redactColumn;
+    private ColumnMasker redactColumnBack;
+    private final MaskedColumn masked = new MaskedColumn();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        values = Values.strings(valueSize, mix);
+        latin1 = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            latin1[i] = values[i].getBytes(StandardCharsets.ISO_8859_1);
+        }
+        redact = Targets.lookup("redact");
+        redactFront = Targets.lookup("redactPartial", valueSize / 2, "front");
+        redactBack = Targets.lookup("redactPartial", valueSize / 2, "back");
+        redactInto = Targets.lookup("redactInto", valueSize);
+        redactBytesInto = Targets.lookup("redactBytesInto", valueSize);
+        redactColumn = Targets.lookup("redactColumn");
+        redactColumnBack = Targets.lookup("redactColumnPartial", valueSize / 2, "back");
+    }
+
+    private String next() {
+        return values[cursor++ & Values.POOL_MASK];
+    }
+
+    @Benchmark
+    public String full() {
+        return redact.apply(next());
+    }
+
+    @Benchmark
+    public int intoBuffer() {
+        return redactInto.applyAsInt(next());
+    }
+
+    @Benchmark
+    public int latin1IntoBuffer() {
+        return redactBytesInto.applyAsInt(latin1[cursor++ & Values.POOL_MASK]);
+    }
+
+    @Benchmark
+    public String partialFront() {
+        return redactFront.apply(next());
+    }
+
+    @Benchmark
+    public String partialBack() {
+        return redactBack.apply(next());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Values.POOL_SIZE)
+    public int column() {
+        masked.clear();
+        redactColumn.mask(values, masked);
+        return masked.position();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Values.POOL_SIZE)
+    public int columnPartialBack() {
+        masked.clear();
+        redactColumnBack.mask(values, masked);
+        return masked.position();
+    }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cost of substituting whole name columns. Columns of 10k rows are split across the common fork-join pool. Last names
+ * are drawn weighted by default, and uniformly or by similar rank in lastNamesBySampling.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SubstitutionBenchmark {
+
+    private static final String[] FIRST_NAMES = {"Mary", "James", "Jordan", "Linda", "David", "Zyxomma", "Dorothy", "Robert"};
+    private static final String[] LAST_NAMES = {"Smith", "Callaghan", "Hernandez", "Alderson", "Nguyen", "Key", "Cooke", "Ng"};
+
+    @Param({"1024", "10000"})
+    private int rows;
+
+    @Param({"uniform", "weighted", "similarRank"})
+    private String sampling;
+
+    private String[] firstNames;
+    private String[] lastNames;
+
+    private UnaryOperator<String[]> substituteFirstNames;
+    private UnaryOperator<String[]> substituteFirstNamesByRank;
+    private UnaryOperator<String[]> substituteLastNames;
+    private UnaryOperator<String[]> substituteLastNamesBySampling;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        firstNames = new String[rows];
+        lastNames = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            firstNames[i] = FIRST_NAMES[i % FIRST_NAMES.length];
+            lastNames[i] = LAST_NAMES[i % LAST_NAMES.length];
+        }
+        substituteFirstNames = Targets.lookup("substituteFirstNames");
+        substituteFirstNamesByRank = Targets.lookup("substituteFirstNamesByRank", 1976);
+        substituteLastNames = Targets.lookup("substituteLastNames");
+        substituteLastNamesBySampling = Targets.lookup("substituteLastNames", sampling);
+    }
+
+    @Benchmark
+    public String[] firstNames() {
+        return substituteFirstNames.apply(firstNames);
+    }
+
+    @Benchmark
+    public String[] firstNamesByRank() {
+        return substituteFirstNamesByRank.apply(firstNames);
+    }
+
+    @Benchmark
+    public String[] lastNames() {
+        return substituteLastNames.apply(lastNames);
+    }
+
+    @Benchmark
+    public String[] lastNamesBySampling() {
+        return substituteLastNamesBySampling.apply(lastNames);
+    }
+}
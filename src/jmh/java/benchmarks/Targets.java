@@ -0,0 +1,41 @@
+package benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Resolve masking operations exposed by the default-package BenchmarkTargets bridge
+ *
+ * Lookups are reflective and must only happen in @Setup methods, never inside a @Benchmark method.
+ */
+final class Targets {
+
+    private static final String BRIDGE_CLASS = "BenchmarkTargets";
+
+    private Targets() {
+    }
+
+    /**
+     * @param factory name of a public static factory method on BenchmarkTargets
+     * @param args arguments passed to the factory
+     * @return whatever the factory returns, cast to the caller's expected functional interface
+     * @throws IllegalStateException if the bridge or the factory cannot be found or invoked
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T lookup(final String factory, final Object... args) {
+        try {
+            Class<?> bridge = Class.forName(BRIDGE_CLASS);
+            for (Method method : bridge.getMethods()) {
+                if (method.getName().equals(factory) && method.getParameterCount() == args.length) {
+                    return (T) method.invoke(null, args);
+                }
+            }
+            String message = String.format("No factory [%s] taking %d argument(s) on %s", factory, args.length, BRIDGE_CLASS);
+            throw new IllegalStateException(message);
+        } catch (ClassNotFoundException | IllegalAccessException | InvocationTargetException e) {
+            String message = String.format("Unable to resolve factory [%s] with arguments %s", factory, Arrays.toString(args));
+            throw new IllegalStateException(message, e);
+        }
+    }
+}
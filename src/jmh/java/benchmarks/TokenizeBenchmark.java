@@ -0,0 +1,62 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Per-value cost of HMAC and format preserving tokenization
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TokenizeBenchmark {
+
+    @Param({"8", "32", "256"})
+    private int valueSize;
+
+    @Param({"alpha", "numeric", "mixed", "unicode"})
+    private String mix;
+
+    private String[] values;
+    private int cursor;
+
+    private UnaryOperator<String> tokenize;
+    private UnaryOperator<String> tokenizePreservingFormat;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        values = Values.strings(valueSize, mix);
+        tokenize = Targets.lookup("tokenize");
+        tokenizePreservingFormat = Targets.lookup("tokenizePreservingFormat");
+    }
+
+    private String next() {
+        return values[cursor++ & Values.POOL_MASK];
+    }
+
+    @Benchmark
+    public String hmac() {
+        return tokenize.apply(next());
+    }
+
+    @Benchmark
+    public String formatPreserving() {
+        return tokenizePreservingFormat.apply(next());
+    }
+}
@@ -0,0 +1,57 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic test data for the masking benchmarks
+ *
+ * Every benchmark cycles through a fixed-size pool of values so the JIT cannot constant-fold a single input and
+ * the working set stays in cache for small values and spills out of it for large ones, like a real column does.
+ */
+final class Values {
+
+    /** Number of distinct values per pool; a power of two so the cursor can be masked instead of compared */
+    static final int POOL_SIZE = 1024;
+    static final int POOL_MASK = POOL_SIZE - 1;
+
+    private static final long SEED = 0x5AFEDA7AL;
+
+    private static final String ALPHA = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final String NUMERIC = "0123456789";
+    private static final String MIXED = ALPHA + NUMERIC + " -.,()@/#";
+    private static final String UNICODE = MIXED + "\u00e9\u00f1\u00fc\u00df\u00c5\u0416\u0436\u03a9\u4e2d\u6587\u0661\u0662";
+
+    /**
+     * Character mixes used as a JMH @Param. The names are part of the benchmark output, so keep them stable.
+     */
+    enum Mix {
+        alpha(ALPHA),
+        numeric(NUMERIC),
+        mixed(MIXED),
+        unicode(UNICODE);
+
+        private final String alphabet;
+
+        Mix(final String alphabet) {
+            this.alphabet = alphabet;
+        }
+    }
+
+    private Values() {
+    }
+
+    static String[] strings(final int length, final String mix) {
+        final String alphabet = Mix.valueOf(mix).alphabet;
+        final SplittableRandom random = new SplittableRandom(SEED);
+        final String[] values = new String[POOL_SIZE];
+        final char[] buffer = new char[length];
+
+        for (int i = 0; i < POOL_SIZE; i++) {
+            for (int j = 0; j < length; j++) {
+                buffer[j] = alphabet.charAt(random.nextInt(alphabet.length()));
+            }
+            values[i] = new String(buffer);
+        }
+        return values;
+    }
+}
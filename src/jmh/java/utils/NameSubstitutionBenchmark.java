@@ -0,0 +1,59 @@
+package utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of drawing a substitute first name from a WeightedRandomBag filled with one SSA year file
+ *
+ * The bag is shared by every benchmark thread, the same way a substitution job would share one name corpus.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NameSubstitutionBenchmark {
+
+    private static final String NAME_DIRECTORY = "src/main/resources";
+
+    // yob1940 is the smallest file (~9k names) and yob2010 the largest (~34k names)
+    @Param({"yob1940.txt", "yob2010.txt"})
+    private String fileName;
+
+    private WeightedRandomBag<String> names;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        names = new WeightedRandomBag<>();
+        try (BufferedReader br = Files.newBufferedReader(Paths.get(NAME_DIRECTORY, fileName))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] columns = line.split(",");
+                names.addEntry(columns[0], Integer.parseInt(columns[2]));
+            }
+        }
+    }
+
+    @Benchmark
+    public String draw() {
+        return names.getRandom();
+    }
+}
@@ -0,0 +1,42 @@
+package utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Start-up cost of loading the SSA first name files through ProcessFirstNames
+ *
+ * Lives in the utils package because RequestParameters is package-private. Run from the project root so the
+ * relative name directory in application.yaml resolves.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(3)
+@State(Scope.Benchmark)
+public class ProcessFirstNamesBenchmark {
+
+    // 10 reads every decade file from 1920 to 2020, 50 reads 1920, 1970 and 2020
+    @Param({"10", "50"})
+    private int increment;
+
+    @Benchmark
+    public ProcessFirstNames load() {
+        return new ProcessFirstNames(ProcessFirstNames.RequestParameters.builder()
+                .startYear(1920)
+                .endYear(2020)
+                .increment(increment)
+                .build());
+    }
+}
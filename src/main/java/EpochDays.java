@@ -0,0 +1,196 @@
+import java.time.LocalDate;
+
+/**
+ * Calendar arithmetic on days since 1970-01-01 (the LocalDate.toEpochDay scale) without creating LocalDate objects
+ *
+ * A date is split into its year, month and day in one call that returns them packed into a single int (see civil),
+ * so a column of dates can be decomposed, moved and rebuilt with nothing but int arithmetic. The conversions follow
+ * the proleptic Gregorian calendar, as LocalDate does. Month lengths and the first day of every year from 1800 to 2199
+ * are tabulated; other years are computed.
+ */
+final class EpochDays {
+
+    private static final int MIN_CACHED_YEAR = 1800;
+    private static final int MAX_CACHED_YEAR = 2199;
+
+    // [leap year ? 1 : 0][month]; index 0 is unused
+    private static final int[][] MONTH_LENGTH = {
+            {0, 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31},
+            {0, 31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31}
+    };
+    private static final int[] YEAR_START = new int[MAX_CACHED_YEAR - MIN_CACHED_YEAR + 1];
+
+    static {
+        for (int year = MIN_CACHED_YEAR; year <= MAX_CACHED_YEAR; year++) {
+            YEAR_START[year - MIN_CACHED_YEAR] = compute(year, 1, 1);
+        }
+    }
+
+    // LocalDate.now() is refreshed at most once a minute
+    private static final long TODAY_REFRESH_MILLIS = 60_000;
+    private static volatile int today;
+    private static volatile long todayValidUntil;
+
+    private EpochDays() {
+    }
+
+    /**
+     * @return the epoch day of the date
+     */
+    static int of(final int year, final int month, final int day) {
+        if (day == 1 && month == 1 && year >= MIN_CACHED_YEAR && year <= MAX_CACHED_YEAR) {
+            return YEAR_START[year - MIN_CACHED_YEAR];
+        }
+        return compute(year, month, day);
+    }
+
+    /**
+     * Split an epoch day into year, month and day
+     *
+     * @return the fields packed as year << 9 | month << 5 | day; read them with year(), month() and day()
+     */
+    static int civil(final int epochDay) {
+        // days since 0000-03-01, so the leap day is the last day of a year that starts in March
+        final long z = epochDay + 719468L;
+        final long era = Math.floorDiv(z, 146097L);
+        final int dayOfEra = (int) (z - era * 146097L);
+        final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        final int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        final int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        final int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+        return year << 9 | month << 5 | day;
+    }
+
+    static int year(final int civil) {
+        return civil >> 9;
+    }
+
+    static int month(final int civil) {
+        return (civil >>> 5) & 0xf;
+    }
+
+    static int day(final int civil) {
+        return civil & 0x1f;
+    }
+
+    static boolean isLeapYear(final int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    static int lengthOfMonth(final int year, final int month) {
+        return MONTH_LENGTH[isLeapYear(year) ? 1 : 0][month];
+    }
+
+    /**
+     * @return week of the year as WeekFields.of(Locale.US) counts it: weeks start on Sunday and week 1 holds January 1
+     */
+    static int weekOfYear(final int epochDay, final int year) {
+        final int yearStart = of(year, 1, 1);
+        final int firstDayOfWeek = Math.floorMod(yearStart + 4, 7); // 1970-01-01 was a Thursday; Sunday is 0
+        return (epochDay - yearStart + firstDayOfWeek) / 7 + 1;
+    }
+
+    /**
+     * LocalDate.plusMonths: the day is clamped to the length of the new month
+     */
+    static int plusMonths(final int civil, final int months) {
+        final long total = year(civil) * 12L + month(civil) - 1 + months;
+        final int year = (int) Math.floorDiv(total, 12L);
+        final int month = (int) Math.floorMod(total, 12L) + 1;
+        return of(year, month, Math.min(day(civil), lengthOfMonth(year, month)));
+    }
+
+    /**
+     * LocalDate.plusYears: February 29 becomes February 28 outside leap years
+     */
+    static int plusYears(final int civil, final int years) {
+        final int year = year(civil) + years;
+        final int month = month(civil);
+        return of(year, month, Math.min(day(civil), lengthOfMonth(year, month)));
+    }
+
+    /**
+     * @return today's epoch day in the default time zone, possibly up to a minute late around midnight
+     */
+    static int today() {
+        final long now = System.currentTimeMillis();
+        if (now >= todayValidUntil) {
+            today = (int) LocalDate.now().toEpochDay();
+            todayValidUntil = now + TODAY_REFRESH_MILLIS;
+        }
+        return today;
+    }
+
+    /**
+     * Parse an ISO-8601 date of the form yyyy-MM-dd
+     *
+     * @throws IllegalArgumentException if the value is not such a date
+     */
+    static int parse(final CharSequence value) throws IllegalArgumentException {
+        if (value.length() != 10 || value.charAt(4) != '-' || value.charAt(7) != '-') {
+            throw notADate(value);
+        }
+        final int year = digits(value, 0, 4);
+        final int month = digits(value, 5, 7);
+        final int day = digits(value, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            throw notADate(value);
+        }
+        return of(year, month, day);
+    }
+
+    /**
+     * Append the date as yyyy-MM-dd, or as LocalDate.toString() would for years outside 0000 to 9999
+     */
+    static void format(final int epochDay, final StringBuilder out) {
+        final int civil = civil(epochDay);
+        final int year = year(civil);
+        if (year < 0 || year > 9999) {
+            out.append(LocalDate.ofEpochDay(epochDay));
+            return;
+        }
+        out.append((char) ('0' + year / 1000))
+                .append((char) ('0' + year / 100 % 10))
+                .append((char) ('0' + year / 10 % 10))
+                .append((char) ('0' + year % 10))
+                .append('-');
+        twoDigits(month(civil), out);
+        out.append('-');
+        twoDigits(day(civil), out);
+    }
+
+    private static int compute(final int year, final int month, final int day) {
+        final long y = month <= 2 ? year - 1L : year;
+        final long era = Math.floorDiv(y, 400L);
+        final int yearOfEra = (int) (y - era * 400);
+        final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return (int) (era * 146097L + dayOfEra - 719468L);
+    }
+
+    /**
+     * @return the number in value[from, to), or -1 if a character is not a digit
+     */
+    private static int digits(final CharSequence value, final int from, final int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static void twoDigits(final int value, final StringBuilder out) {
+        out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    private static IllegalArgumentException notADate(final CharSequence value) {
+        String message = String.format("[%s] is not an ISO-8601 date (yyyy-MM-dd)", value);
+        return new IllegalArgumentException(message);
+    }
+}
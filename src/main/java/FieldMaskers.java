@@ -0,0 +1,123 @@
+import org.apache.commons.lang3.StringUtils;
+import utils.FieldMasker;
+
+/**
+ * Adapters that plug the masking operations into a utils.MaskingPipeline column plan
+ *
+ * Each call returns a new masker with its own operation instance.
+ */
+final class FieldMaskers {
+
+    private FieldMaskers() {
+    }
+
+    static FieldMasker redact() {
+        final Redact redact = new Redact();
+        return redact::redact;
+    }
+
+    static FieldMasker redact(final int offset, final Redact.DIRECTION direction) {
+        final Redact redact = new Redact();
+        return FieldMasker.of(value -> redact.redact(value, offset, direction));
+    }
+
+    /**
+     * Perturb ISO-8601 (yyyy-MM-dd) dates by a random temporal component. Blank fields are left empty.
+     */
+    static FieldMasker perturb() {
+        return perturb(new Perturb(), null);
+    }
+
+    /**
+     * Perturb ISO-8601 (yyyy-MM-dd) dates by the given temporal component. Blank fields are left empty.
+     */
+    static FieldMasker perturb(final Perturb.TEMPORAL_COMPONENT temporalComponent) {
+        return perturb(new Perturb(), temporalComponent);
+    }
+
+    /**
+     * Perturb ISO-8601 (yyyy-MM-dd) dates with the given instance, e.g. a seeded one
+     *
+     * @param temporalComponent component to move, or null for a random one per date
+     */
+    static FieldMasker perturb(final Perturb perturb, final Perturb.TEMPORAL_COMPONENT temporalComponent) {
+        if (temporalComponent == null) {
+            return (value, masked) -> {
+                if (StringUtils.isNotBlank(value)) {
+                    perturb.perturb(value, masked);
+                }
+            };
+        }
+        return (value, masked) -> {
+            if (StringUtils.isNotBlank(value)) {
+                perturb.perturb(value, temporalComponent, masked);
+            }
+        };
+    }
+
+    static FieldMasker encrypt() {
+        final Hash hash = new Hash();
+        return FieldMasker.of(hash::encrypt);
+    }
+
+    static FieldMasker tokenize() {
+        final Tokenize tokenize = new Tokenize();
+        return FieldMasker.of(tokenize::tokenize);
+    }
+
+    static FieldMasker tokenizePreservingFormat() {
+        final Tokenize tokenize = new Tokenize();
+        return FieldMasker.of(tokenize::tokenizePreservingFormat);
+    }
+
+    /**
+     * @param tweak separates the tokens of this column from those of columns tokenized with another tweak
+     */
+    static FieldMasker tokenize(final String tweak) {
+        final Tokenize tokenize = new Tokenize(new EncryptionConfig(), tweak);
+        return FieldMasker.of(tokenize::tokenize);
+    }
+
+    static FieldMasker tokenizePreservingFormat(final String tweak) {
+        final Tokenize tokenize = new Tokenize(new EncryptionConfig(), tweak);
+        return FieldMasker.of(tokenize::tokenizePreservingFormat);
+    }
+
+    /**
+     * Substitution loads the name dictionary, so one instance is shared by every column that substitutes names
+     */
+    static FieldMasker substituteFirstName(final Substitution substitution) {
+        return FieldMasker.of(substitution::substituteFirstName);
+    }
+
+    static FieldMasker substituteFirstName(final Substitution substitution, final int year) {
+        return FieldMasker.of(name -> substitution.substituteFirstName(name, year));
+    }
+
+    static FieldMasker substituteLastName(final Substitution substitution) {
+        return FieldMasker.of(substitution::substituteLastName);
+    }
+
+    /**
+     * @param sampling how to draw the replacement; null draws in proportion to the counts
+     */
+    static FieldMasker substituteLastName(final Substitution substitution, final Substitution.SURNAME_SAMPLING sampling) {
+        return FieldMasker.of(name -> substitution.substituteLastName(name, sampling));
+    }
+
+    /**
+     * Generalize or swap zip codes with the given instance. Blank fields are left empty.
+     *
+     * @throws IllegalArgumentException if there is no generalization
+     */
+    static FieldMasker generalizeZip(final Geography geography, final Geography.GENERALIZATION generalization) throws IllegalArgumentException {
+        if (generalization == null) {
+            throw new IllegalArgumentException("A generalization is required: prefix, county, state or swap");
+        }
+        return (value, masked) -> {
+            if (StringUtils.isNotBlank(value)) {
+                masked.append(geography.generalize(value.toString(), generalization));
+            }
+        };
+    }
+}
@@ -0,0 +1,138 @@
+import org.apache.commons.lang3.StringUtils;
+import utils.ColumnMasker;
+import utils.ZipCodeIndex;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generalize or swap zip codes using the zip codes, counties and states of zipcode.csv
+ *
+ * A zip can be truncated to its three digit prefix (the first digits name a sectional center, as in HIPAA safe harbor),
+ * replaced by its county or state, or swapped for a random zip of the same county so the value stays a valid zip that
+ * still aggregates to the right region (the only zip of a county is swapped within its state instead). Five digit zips
+ * and ZIP+4 (68002-1234) are accepted; a prefix only needs the digits, but the other levels need the zip to be in the
+ * file.
+ *
+ * Missing values pass through at every entry point, single value, array or column: null stays null and a blank value
+ * (empty or only whitespace) becomes empty, as in Perturb's columns, while any other value that is not a zip is
+ * rejected.
+ */
+class Geography {
+
+    enum GENERALIZATION {prefix, county, state, swap}
+
+    static final int PREFIX_LENGTH = 3;
+
+    /**
+     * zipcode.csv from the classpath, indexed the first time a Geography is created with the default constructor
+     */
+    private static final class DefaultIndex {
+        private static final ZipCodeIndex INSTANCE = ZipCodeIndex.load();
+    }
+
+    private final ZipCodeIndex index;
+
+    Geography() throws IllegalArgumentException {
+        this(DefaultIndex.INSTANCE);
+    }
+
+    Geography(final ZipCodeIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * @return the generalized zip, null if the zip is null, or empty if it is blank
+     * @throws IllegalArgumentException if the zip is not one of the file, or not five digits for a prefix
+     */
+    String generalize(final String zip, final GENERALIZATION generalization) throws IllegalArgumentException {
+        if (zip == null) {
+            return null;
+        }
+        return generalize(zip, generalization, ThreadLocalRandom.current()).toString();
+    }
+
+    /**
+     * Generalize a column; null entries stay null and blank ones become empty
+     *
+     * @throws IllegalArgumentException if a zip cannot be generalized
+     */
+    String[] generalize(final String[] zips, final GENERALIZATION generalization) throws IllegalArgumentException {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final String[] generalized = new String[zips.length];
+        for (int i = 0; i < zips.length; i++) {
+            generalized[i] = zips[i] == null ? null : generalize(zips[i], generalization, random).toString();
+        }
+        return generalized;
+    }
+
+    /**
+     * Generalize columns of zip codes as by generalize(String, GENERALIZATION); null values give null rows and blank
+     * values empty rows
+     *
+     * @throws IllegalArgumentException if there is no generalization
+     */
+    ColumnMasker column(final GENERALIZATION generalization) throws IllegalArgumentException {
+        if (generalization == null) {
+            throw new IllegalArgumentException("A generalization is required: prefix, county, state or swap");
+        }
+        return (values, from, to, masked) -> {
+            Objects.checkFromToIndex(from, to, values.length);
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = from; i < to; i++) {
+                final CharSequence value = values[i];
+                masked.append(value == null ? null : generalize(value, generalization, random));
+            }
+        };
+    }
+
+    private CharSequence generalize(final CharSequence zip, final GENERALIZATION generalization, final ThreadLocalRandom random) throws IllegalArgumentException {
+        if (StringUtils.isBlank(zip)) {
+            return "";
+        }
+        if (generalization == GENERALIZATION.prefix) {
+            if (!ZipCodeIndex.isZip(zip)) {
+                throw notAZip(zip, "five digit zip code");
+            }
+            return zip.subSequence(0, PREFIX_LENGTH);
+        }
+
+        final int row = index.find(zip);
+        if (row < 0) {
+            throw notAZip(zip, "zip code of zipcode.csv");
+        }
+        switch (generalization) {
+            case county:
+                return index.countyName(index.county(row));
+            case state:
+                return index.stateName(index.state(row));
+            case swap:
+                final int county = index.county(row);
+                if (index.countyEnd(county) - index.countyStart(county) > 1) {
+                    return index.zip(other(row, index.countyStart(county), index.countyEnd(county), random));
+                }
+                // the only zip of its county would be swapped for itself, so take one from the rest of the state
+                final int state = index.state(row);
+                return index.zip(other(row, index.stateStart(state), index.stateEnd(state), random));
+            default:
+                String message = String.format("Unknown generalization %s", generalization);
+                throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * @return a row of [start, end) other than the given one, each equally likely; the row itself if it is the only one
+     */
+    private static int other(final int row, final int start, final int end, final ThreadLocalRandom random) {
+        if (end - start == 1) {
+            return row;
+        }
+        final int drawn = start + random.nextInt(end - start - 1);
+        return drawn >= row ? drawn + 1 : drawn;
+    }
+
+    private static IllegalArgumentException notAZip(final CharSequence zip, final String expected) {
+        String message = String.format("[%s] is not a %s", zip, expected);
+        return new IllegalArgumentException(message);
+    }
+}
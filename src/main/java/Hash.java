@@ -1,45 +1,206 @@
-import org.apache.commons.crypto.stream.CryptoOutputStream;
+import org.apache.commons.crypto.cipher.CryptoCipher;
+import org.apache.commons.crypto.cipher.CryptoCipherFactory;
+import utils.ColumnMasker;
+import utils.MaskedColumn;
 
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.Objects;
 import java.util.Properties;
 
-public class Hash {
+public class Hash implements ColumnMasker {
+
+    /**
+     * Key material from application.yaml, read the first time a Hash is created with the default constructor
+     */
+    private static final class DefaultConfig {
+        private static final EncryptionConfig INSTANCE = new EncryptionConfig();
+    }
+
+    private final SecretKeySpec key;
+    private final IvParameterSpec iv;
+    private final String transform;
+
+    /*
+    Initializing a CryptoCipher expands the key schedule, so every thread keeps one initialized cipher per direction
+    and reuses it: doFinal leaves the cipher ready for the next message with the same key and IV. The buffers are
+    direct so the OpenSSL implementation can work on them without copying, and only grow.
+     */
+    private final ThreadLocal<CipherContext> contexts = ThreadLocal.withInitial(this::newContext);
+
+    private static final class CipherContext {
+        private final CryptoCipher encryptor;
+        private final CryptoCipher decryptor;
+        private ByteBuffer input = ByteBuffer.allocateDirect(256);
+        private ByteBuffer output = ByteBuffer.allocateDirect(256);
+
+        private CipherContext(final CryptoCipher encryptor, final CryptoCipher decryptor) {
+            this.encryptor = encryptor;
+            this.decryptor = decryptor;
+        }
+
+        private ByteBuffer input(final byte[] bytes) {
+            if (input.capacity() < bytes.length) {
+                input = ByteBuffer.allocateDirect(Integer.highestOneBit(bytes.length) << 1);
+            }
+            input.clear();
+            input.put(bytes).flip();
+            return input;
+        }
+
+        private ByteBuffer output(final int length) {
+            if (output.capacity() < length) {
+                output = ByteBuffer.allocateDirect(Integer.highestOneBit(length) << 1);
+            }
+            output.clear();
+            return output;
+        }
+    }
+
+    /**
+     * Encrypt with the key, IV and transform configured in application.yaml
+     */
+    public Hash() throws IllegalArgumentException {
+        this(DefaultConfig.INSTANCE);
+    }
+
+    /**
+     * @param encryptionConfig key material; the key and IV are read as UTF-8 text
+     * @throws IllegalArgumentException if any of the key, key algorithm, IV or transform is missing
+     */
+    public Hash(final EncryptionConfig encryptionConfig) throws IllegalArgumentException {
+        if (encryptionConfig.getSecretKey() == null || encryptionConfig.getSecretKeySpec() == null
+                || encryptionConfig.getIvParameter() == null || encryptionConfig.getTransform() == null) {
+            throw new IllegalArgumentException("The encryption configuration must provide a secretKey, secretKeySpec, IvParameter and transform");
+        }
+        this.key = new SecretKeySpec(getUTF8Bytes(encryptionConfig.getSecretKey()), encryptionConfig.getSecretKeySpec());
+        this.iv = new IvParameterSpec(getUTF8Bytes(encryptionConfig.getIvParameter()));
+        this.transform = encryptionConfig.getTransform();
+    }
+
     /**
      *
-     * https://commons.apache.org/proper/commons-crypto/xref-test/org/apache/commons/crypto/examples/StreamExample.html
-     * @param value
-     * @return
+     * https://commons.apache.org/proper/commons-crypto/xref-test/org/apache/commons/crypto/examples/CipherByteBufferExample.html
+     * @param value text to encrypt
+     * @return the Base64 encoded cipher text, or null if the value is null
      */
     public String encrypt(final String value) {
-        final SecretKeySpec key = new SecretKeySpec(getUTF8Bytes("1234567890123456"),"AES");
-        final IvParameterSpec iv = new IvParameterSpec(getUTF8Bytes("1234567890123456"));
-        final Properties properties = new Properties();
-        final String transform = "AES/CBC/PKCS5Padding";
-        final String input = value;
+        if (value == null) {
+            return null;
+        }
+        return encrypt(value, contexts.get());
+    }
 
-        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        //EncryptionConfig encryptionConfig = new EncryptionConfig();
-        //try (CryptoOutputStream cos = new CryptoOutputStream(encryptionConfig.getTransform(), properties, outputStream, encryptionConfig.getSecretKey(), encryptionConfig.getIvParameter())) {
-        try (CryptoOutputStream cos = new CryptoOutputStream(transform, properties, outputStream, key, iv)) {
-            cos.write(getUTF8Bytes(input));
-            cos.flush();
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Encrypt a column of values, fetching this thread's cipher once for the whole batch
+     *
+     * @param values text to encrypt; null entries stay null
+     * @return Base64 encoded cipher texts in the same order as the values
+     */
+    public String[] encrypt(final String[] values) {
+        final CipherContext context = contexts.get();
+        final String[] encrypted = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            encrypted[i] = values[i] == null ? null : encrypt(values[i], context);
+        }
+        return encrypted;
+    }
+
+    /**
+     * Encrypt a column into the masked buffer, fetching this thread's cipher once for the whole batch
+     *
+     * @see #encrypt(String)
+     */
+    @Override
+    public void mask(final CharSequence[] values, final int from, final int to, final MaskedColumn masked) {
+        Objects.checkFromToIndex(from, to, values.length);
+        final CipherContext context = contexts.get();
+        for (int i = from; i < to; i++) {
+            masked.append(values[i] == null ? null : encrypt(values[i].toString(), context));
+        }
+    }
+
+    /**
+     * @param value Base64 encoded cipher text produced by encrypt
+     * @return the original text, or null if the value is null
+     * @throws IllegalArgumentException if the value is not Base64 or was not encrypted with the same key material
+     */
+    public String decrypt(final String value) throws IllegalArgumentException {
+        if (value == null) {
+            return null;
+        }
+        return decrypt(value, contexts.get());
+    }
+
+    /**
+     * Decrypt a column of values, fetching this thread's cipher once for the whole batch
+     *
+     * @see #decrypt(String)
+     */
+    public String[] decrypt(final String[] values) throws IllegalArgumentException {
+        final CipherContext context = contexts.get();
+        final String[] decrypted = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            decrypted[i] = values[i] == null ? null : decrypt(values[i], context);
+        }
+        return decrypted;
+    }
+
+    private String encrypt(final String value, final CipherContext context) {
+        final byte[] plainText = getUTF8Bytes(value);
+        final ByteBuffer input = context.input(plainText);
+        final ByteBuffer output = context.output(plainText.length + context.encryptor.getBlockSize());
+
+        try {
+            context.encryptor.doFinal(input, output);
+        } catch (ShortBufferException | IllegalBlockSizeException | BadPaddingException e) {
+            contexts.remove();
+            throw new IllegalStateException("Unable to encrypt value", e);
         }
 
-        System.out.println("encrypted: " + Arrays.toString(outputStream.toByteArray()));
+        output.flip();
+        final byte[] cipherText = new byte[output.remaining()];
+        output.get(cipherText);
+        return Base64.getEncoder().encodeToString(cipherText);
+    }
+
+    private String decrypt(final String value, final CipherContext context) throws IllegalArgumentException {
+        final byte[] cipherText = Base64.getDecoder().decode(value);
+        final ByteBuffer input = context.input(cipherText);
+        final ByteBuffer output = context.output(cipherText.length + context.decryptor.getBlockSize());
 
-        //decrypt with CryptoInputStream
-        final InputStream inputStream = new ByteArrayInputStream(outputStream.toByteArray());
+        try {
+            context.decryptor.doFinal(input, output);
+        } catch (ShortBufferException | IllegalBlockSizeException | BadPaddingException e) {
+            contexts.remove();
+            throw new IllegalArgumentException("Unable to decrypt value; it was not encrypted with this key", e);
+        }
 
-        return null;
+        output.flip();
+        final byte[] plainText = new byte[output.remaining()];
+        output.get(plainText);
+        return new String(plainText, StandardCharsets.UTF_8);
+    }
+
+    private CipherContext newContext() {
+        try {
+            CryptoCipher encryptor = CryptoCipherFactory.getCryptoCipher(transform, new Properties());
+            encryptor.init(Cipher.ENCRYPT_MODE, key, iv);
+            CryptoCipher decryptor = CryptoCipherFactory.getCryptoCipher(transform, new Properties());
+            decryptor.init(Cipher.DECRYPT_MODE, key, iv);
+            return new CipherContext(encryptor, decryptor);
+        } catch (GeneralSecurityException e) {
+            String message = String.format("Unable to initialize the [%s] cipher", transform);
+            throw new IllegalStateException(message, e);
+        }
     }
 
     private static byte[] getUTF8Bytes(final String input) {
@@ -0,0 +1,330 @@
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Value;
+import org.apache.commons.configuration2.ImmutableHierarchicalConfiguration;
+import utils.ApplicationConfiguration;
+import utils.FieldMasker;
+import utils.MaskingMetrics;
+import utils.MaskingPipeline;
+import utils.MemoCache;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Which operation masks which field, read from YAML once and validated before anything is masked
+ *
+ * A policy lives under a masking section, in application.yaml or in a file of its own. Every entry under fields maps
+ * a field to an operation and its parameters; fields are header names, or zero-based column numbers in quotes ("2")
+ * when the input has no header. Unknown operations, unknown parameters and values that do not parse are all rejected when the
+ * policy is loaded.
+ *
+ * <pre>
+ * masking:
+ *   fieldSeparator: ","
+ *   header: true
+ *   fields:
+ *     ssn:
+ *       operation: redact
+ *     account:
+ *       operation: redact
+ *       offset: 4
+ *       direction: back
+ *     birth_date:
+ *       operation: perturb
+ *       component: month
+ *     first_name:
+ *       operation: substituteFirstName
+ *       year: 1980
+ *     last_name:
+ *       operation: substituteLastName
+ *       sampling: similarRank
+ *     zip:
+ *       operation: generalizeZip
+ *       generalization: prefix
+ *     employer:
+ *       operation: tokenize
+ *       cache: 100000
+ *       eviction: tinyLfu
+ * </pre>
+ *
+ * generalizeZip must be given a generalization (prefix, county, state or swap); every other parameter is optional.
+ *
+ * The deterministic operations (redact, encrypt, tokenize, tokenizePreservingFormat and generalizeZip other than swap)
+ * take a cache size, which memoizes up to that many masked values in a utils.MemoCache so repeated values are masked
+ * once; eviction is lru or tinyLfu (the default).
+ *
+ * compile() binds every rule to a FieldMasker once, so masking a record looks nothing up: the pipeline resolves the
+ * fields to an array indexed by column and calls the pre-built maskers.
+ */
+final class MaskingPolicy {
+
+    enum OPERATION {redact, perturb, encrypt, tokenize, tokenizePreservingFormat, substituteFirstName, substituteLastName, generalizeZip}
+
+    static final String SECTION = "masking";
+
+    private static final Map<OPERATION, Set<String>> PARAMETERS = new EnumMap<>(OPERATION.class);
+
+    static {
+        PARAMETERS.put(OPERATION.redact, Set.of("offset", "direction", "cache", "eviction"));
+        PARAMETERS.put(OPERATION.perturb, Set.of("component", "seed"));
+        PARAMETERS.put(OPERATION.encrypt, Set.of("cache", "eviction"));
+        PARAMETERS.put(OPERATION.tokenize, Set.of("tweak", "cache", "eviction"));
+        PARAMETERS.put(OPERATION.tokenizePreservingFormat, Set.of("tweak", "cache", "eviction"));
+        PARAMETERS.put(OPERATION.substituteFirstName, Set.of("year"));
+        PARAMETERS.put(OPERATION.substituteLastName, Set.of("sampling"));
+        PARAMETERS.put(OPERATION.generalizeZip, Set.of("generalization", "cache", "eviction"));
+    }
+
+    /**
+     * One field and its operation, with the parameters already parsed; parameters that were not given are null
+     */
+    @Value
+    @Builder
+    static class Rule {
+        String field;
+        Integer column;
+        OPERATION operation;
+        Integer offset;
+        Redact.DIRECTION direction;
+        Perturb.TEMPORAL_COMPONENT component;
+        Long seed;
+        String tweak;
+        Integer year;
+        Substitution.SURNAME_SAMPLING sampling;
+        Geography.GENERALIZATION generalization;
+        Integer cache;
+        MemoCache.EVICTION eviction;
+    }
+
+    @Getter
+    private final String fieldSeparator;
+
+    @Getter
+    private final boolean header;
+
+    @Getter
+    private final List<Rule> rules;
+
+    private MaskingPolicy(final String fieldSeparator, final boolean header, final List<Rule> rules) {
+        this.fieldSeparator = fieldSeparator;
+        this.header = header;
+        this.rules = Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * The policy in application.yaml; empty (every field copied unchanged) if it has no masking section
+     *
+     * @throws IllegalArgumentException if the policy is invalid
+     */
+    static MaskingPolicy load() throws IllegalArgumentException {
+        return of(ApplicationConfiguration.get());
+    }
+
+    /**
+     * @param file YAML file with a masking section
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not YAML or the policy is invalid
+     */
+    static MaskingPolicy load(final Path file) throws IOException, IllegalArgumentException {
+        return of(ApplicationConfiguration.read(file));
+    }
+
+    /**
+     * @param configuration parsed YAML holding a masking section
+     * @throws IllegalArgumentException if the policy is invalid
+     */
+    static MaskingPolicy of(final ImmutableHierarchicalConfiguration configuration) throws IllegalArgumentException {
+        final String fieldSeparator = configuration.getString(SECTION + ".fieldSeparator", ",");
+        final boolean header = configuration.getBoolean(SECTION + ".header", true);
+
+        final List<Rule> rules = new ArrayList<>();
+        for (ImmutableHierarchicalConfiguration field : configuration.immutableChildConfigurationsAt(SECTION + ".fields")) {
+            rules.add(rule(field.getRootElementName(), field, header));
+        }
+        return new MaskingPolicy(fieldSeparator, header, rules);
+    }
+
+    /**
+     * Bind every rule to its masker. Operations that load data (name substitution, zip codes) are created once and shared.
+     *
+     * @throws IllegalArgumentException if an operation cannot be created, e.g. its key material is missing
+     */
+    MaskingPipeline compile() throws IllegalArgumentException {
+        return compile(null);
+    }
+
+    /**
+     * Compile with every masker instrumented: calls, characters and latencies are recorded under the name
+     * field:operation (for example ssn:redact), so the rule that slows a job down stands out. The memo caches of the
+     * rules that have one are registered under the same names, for their hit rates.
+     *
+     * @param metrics where to record; null compiles without instrumentation
+     * @throws IllegalArgumentException if an operation cannot be created, e.g. its key material is missing
+     */
+    MaskingPipeline compile(final MaskingMetrics metrics) throws IllegalArgumentException {
+        final MaskingPipeline.MaskingPipelineBuilder pipeline = MaskingPipeline.builder()
+                .fieldSeparator(fieldSeparator)
+                .header(header);
+
+        final Substitution[] substitution = new Substitution[1];
+        final Supplier<Substitution> sharedSubstitution = () -> {
+            if (substitution[0] == null) {
+                substitution[0] = new Substitution();
+            }
+            return substitution[0];
+        };
+
+        final Geography[] geography = new Geography[1];
+        final Supplier<Geography> sharedGeography = () -> {
+            if (geography[0] == null) {
+                geography[0] = new Geography();
+            }
+            return geography[0];
+        };
+
+        for (Rule rule : rules) {
+            final String name = rule.getField() + ":" + rule.getOperation();
+            FieldMasker bound = bind(rule, sharedSubstitution, sharedGeography);
+            if (rule.getCache() != null) {
+                final MemoCache cache = new MemoCache(rule.getCache(), rule.getEviction());
+                bound = cache.memoize(bound);
+                if (metrics != null) {
+                    metrics.cache(name, cache);
+                }
+            }
+            final FieldMasker masker = metrics == null ? bound : metrics.instrument(name, bound);
+            if (header) {
+                pipeline.column(rule.getField(), masker);
+            } else {
+                pipeline.column(rule.getColumn(), masker);
+            }
+        }
+        return pipeline.build();
+    }
+
+    private static FieldMasker bind(final Rule rule, final Supplier<Substitution> substitution, final Supplier<Geography> geography) {
+        switch (rule.getOperation()) {
+            case redact:
+                return rule.getOffset() == null ? FieldMaskers.redact() : FieldMaskers.redact(rule.getOffset(), rule.getDirection());
+            case perturb:
+                final Perturb perturb = rule.getSeed() == null ? new Perturb() : new Perturb(rule.getSeed());
+                return FieldMaskers.perturb(perturb, rule.getComponent());
+            case encrypt:
+                return FieldMaskers.encrypt();
+            case tokenize:
+                return rule.getTweak() == null ? FieldMaskers.tokenize() : FieldMaskers.tokenize(rule.getTweak());
+            case tokenizePreservingFormat:
+                return rule.getTweak() == null ? FieldMaskers.tokenizePreservingFormat() : FieldMaskers.tokenizePreservingFormat(rule.getTweak());
+            case substituteFirstName:
+                return rule.getYear() == null
+                        ? FieldMaskers.substituteFirstName(substitution.get())
+                        : FieldMaskers.substituteFirstName(substitution.get(), rule.getYear());
+            case substituteLastName:
+                return FieldMaskers.substituteLastName(substitution.get(), rule.getSampling());
+            case generalizeZip:
+                return FieldMaskers.generalizeZip(geography.get(), rule.getGeneralization());
+            default:
+                String message = String.format("Unknown operation %s", rule.getOperation());
+                throw new IllegalArgumentException(message);
+        }
+    }
+
+    private static Rule rule(final String field, final ImmutableHierarchicalConfiguration parameters, final boolean header) throws IllegalArgumentException {
+        final OPERATION operation = value(field, "operation", parameters.getString("operation"), OPERATION.class);
+
+        for (Iterator<String> keys = parameters.getKeys(); keys.hasNext(); ) {
+            final String key = keys.next();
+            if (!key.equals("operation") && !PARAMETERS.get(operation).contains(key)) {
+                String message = String.format("Field [%s]: %s does not take the parameter [%s]; it takes %s", field, operation, key, PARAMETERS.get(operation));
+                throw new IllegalArgumentException(message);
+            }
+        }
+
+        final Rule.RuleBuilder rule = Rule.builder().field(field).operation(operation);
+        if (!header) {
+            rule.column(number(field, "column", field, Integer::valueOf, 0));
+        }
+
+        final String offset = parameters.getString("offset");
+        final String direction = parameters.getString("direction");
+        if ((offset == null) != (direction == null)) {
+            String message = String.format("Field [%s]: offset and direction must be given together", field);
+            throw new IllegalArgumentException(message);
+        }
+        if (offset != null) {
+            rule.offset(number(field, "offset", offset, Integer::valueOf, 0))
+                    .direction(value(field, "direction", direction, Redact.DIRECTION.class));
+        }
+
+        final String component = parameters.getString("component");
+        if (component != null) {
+            rule.component(value(field, "component", component, Perturb.TEMPORAL_COMPONENT.class));
+        }
+        final String seed = parameters.getString("seed");
+        if (seed != null) {
+            rule.seed(number(field, "seed", seed, Long::valueOf, Long.MIN_VALUE));
+        }
+        final String year = parameters.getString("year");
+        if (year != null) {
+            rule.year(number(field, "year", year, Integer::valueOf, 0));
+        }
+        final String sampling = parameters.getString("sampling");
+        if (sampling != null) {
+            rule.sampling(value(field, "sampling", sampling, Substitution.SURNAME_SAMPLING.class));
+        }
+        if (operation == OPERATION.generalizeZip) {
+            rule.generalization(value(field, "generalization", parameters.getString("generalization"), Geography.GENERALIZATION.class));
+        }
+        final String cache = parameters.getString("cache");
+        final String eviction = parameters.getString("eviction");
+        if (cache != null) {
+            if (operation == OPERATION.generalizeZip && parameters.getString("generalization").equals(Geography.GENERALIZATION.swap.name())) {
+                String message = String.format("Field [%s]: swap draws a random zip, so it cannot be cached", field);
+                throw new IllegalArgumentException(message);
+            }
+            rule.cache(number(field, "cache", cache, Integer::valueOf, 1))
+                    .eviction(eviction == null ? MemoCache.EVICTION.tinyLfu : value(field, "eviction", eviction, MemoCache.EVICTION.class));
+        } else if (eviction != null) {
+            String message = String.format("Field [%s]: eviction needs a cache size", field);
+            throw new IllegalArgumentException(message);
+        }
+        rule.tweak(parameters.getString("tweak"));
+        return rule.build();
+    }
+
+    private static <E extends Enum<E>> E value(final String field, final String parameter, final String value, final Class<E> type) throws IllegalArgumentException {
+        if (value != null) {
+            for (E constant : type.getEnumConstants()) {
+                if (constant.name().equals(value)) {
+                    return constant;
+                }
+            }
+        }
+        String message = String.format("Field [%s]: %s [%s] must be one of %s", field, parameter, value, List.of(type.getEnumConstants()));
+        throw new IllegalArgumentException(message);
+    }
+
+    private static <N extends Number> N number(final String field, final String parameter, final String value,
+                                               final Function<String, N> parse, final long minimum) throws IllegalArgumentException {
+        try {
+            final N number = parse.apply(value.trim());
+            if (number.longValue() >= minimum) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        String message = String.format("Field [%s]: %s [%s] must be a whole number of at least %d", field, parameter, value, minimum);
+        throw new IllegalArgumentException(message);
+    }
+}
@@ -1,70 +1,358 @@
+import org.apache.commons.lang3.StringUtils;
+import utils.ColumnMasker;
+import utils.MaskedColumn;
+
 import java.time.LocalDate;
 import java.time.temporal.WeekFields;
 import java.util.Locale;
-import java.util.Random;
+import java.util.Objects;
+import java.util.SplittableRandom;
 
-class Perturb {
+/**
+ * Move dates by a random amount of one temporal component
+ *
+ * The random modes replace one component with a different valid value: another day of the same month, another week or
+ * month of the same year, or up to ten years further from today. Each thread draws from its own SplittableRandom;
+ * an instance created with a seed hands every thread a generator split from that seed, so a single-threaded run is
+ * reproducible.
+ *
+ * The keyed modes move every date that shares a key (a patient id, a claim number) by the same amount, so intervals
+ * between the dates of one record survive, and the same key moves the same way in every table and every run with the
+ * same seed. A keyed mode needs a key for every date: a null key is rejected rather than falling back to a random
+ * move, which would silently break the intervals of its record.
+ *
+ * Every mode also works on epoch days (LocalDate.toEpochDay) and ISO-8601 strings through EpochDays, without creating a
+ * LocalDate. Given the same generator state, the epoch day and LocalDate forms return the same dates.
+ */
+class Perturb implements ColumnMasker {
     enum TEMPORAL_COMPONENT {year, month,  week, day}
 
+    private static final TEMPORAL_COMPONENT[] COMPONENTS = TEMPORAL_COMPONENT.values();
+    private static final WeekFields WEEKS = WeekFields.of(Locale.US);
+
+    private static final int MAX_YEARS = 10;
+    private static final int MONTHS = 12;
+    private static final int WEEKS_PER_YEAR = 52;
+    private static final int MAX_DAYS = 28;
+
+    private final long seed;
+    private final SplittableRandom seeder;
+    private final ThreadLocal<SplittableRandom> randoms;
+
+    Perturb() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * @param seed seeds the per-thread generators and keys the keyed modes
+     */
+    Perturb(final long seed) {
+        this.seed = seed;
+        this.seeder = new SplittableRandom(seed);
+        this.randoms = ThreadLocal.withInitial(this::split);
+    }
+
     LocalDate perturb(final LocalDate date) {
-        return perturb(date, TEMPORAL_COMPONENT.values()[new Random().nextInt(4)]);
+        final SplittableRandom random = randoms.get();
+        return perturb(date, COMPONENTS[random.nextInt(COMPONENTS.length)], random, LocalDate.now());
     }
 
     LocalDate perturb(final LocalDate date, TEMPORAL_COMPONENT temporalComponent) {
+        return perturb(date, temporalComponent, randoms.get(), LocalDate.now());
+    }
+
+    /**
+     * Perturb a column by the given component; null entries stay null
+     */
+    LocalDate[] perturb(final LocalDate[] dates, final TEMPORAL_COMPONENT temporalComponent) {
+        final SplittableRandom random = randoms.get();
+        final LocalDate today = LocalDate.now();
+        final LocalDate[] perturbed = new LocalDate[dates.length];
+        for (int i = 0; i < dates.length; i++) {
+            perturbed[i] = dates[i] == null ? null : perturb(dates[i], temporalComponent, random, today);
+        }
+        return perturbed;
+    }
+
+    /**
+     * Perturb a column of days since 1970-01-01 (LocalDate.toEpochDay) by the given component
+     */
+    int[] perturb(final int[] epochDays, final TEMPORAL_COMPONENT temporalComponent) {
+        final SplittableRandom random = randoms.get();
+        final int today = EpochDays.today();
+        final int[] perturbed = new int[epochDays.length];
+        for (int i = 0; i < epochDays.length; i++) {
+            perturbed[i] = perturb(epochDays[i], temporalComponent, random, today);
+        }
+        return perturbed;
+    }
+
+    /**
+     * Perturb a day since 1970-01-01 by a random temporal component
+     */
+    int perturbEpochDay(final int epochDay) {
+        final SplittableRandom random = randoms.get();
+        return perturb(epochDay, COMPONENTS[random.nextInt(COMPONENTS.length)], random, EpochDays.today());
+    }
+
+    int perturbEpochDay(final int epochDay, final TEMPORAL_COMPONENT temporalComponent) {
+        return perturb(epochDay, temporalComponent, randoms.get(), EpochDays.today());
+    }
+
+    /**
+     * Keyed perturbation of an epoch day, as by perturb(LocalDate, TEMPORAL_COMPONENT, CharSequence)
+     *
+     * @throws IllegalArgumentException if the key is null
+     */
+    int perturbEpochDay(final int epochDay, final TEMPORAL_COMPONENT temporalComponent, final CharSequence key) throws IllegalArgumentException {
+        return shift(epochDay, temporalComponent, offset(temporalComponent, key));
+    }
+
+    /**
+     * Perturb an ISO-8601 (yyyy-MM-dd) date by a random temporal component, appending the result as yyyy-MM-dd
+     *
+     * @throws IllegalArgumentException if the value is not an ISO-8601 date
+     */
+    void perturb(final CharSequence isoDate, final StringBuilder perturbed) throws IllegalArgumentException {
+        EpochDays.format(perturbEpochDay(EpochDays.parse(isoDate)), perturbed);
+    }
+
+    /**
+     * Perturb an ISO-8601 (yyyy-MM-dd) date by the given component, appending the result as yyyy-MM-dd
+     *
+     * @throws IllegalArgumentException if the value is not an ISO-8601 date
+     */
+    void perturb(final CharSequence isoDate, final TEMPORAL_COMPONENT temporalComponent, final StringBuilder perturbed) throws IllegalArgumentException {
+        EpochDays.format(perturbEpochDay(EpochDays.parse(isoDate), temporalComponent), perturbed);
+    }
+
+    /**
+     * Perturb a column of ISO-8601 (yyyy-MM-dd) dates, each by a random temporal component. Null values give null rows
+     * and blank values give empty rows.
+     *
+     * @throws IllegalArgumentException if a value is not an ISO-8601 date
+     */
+    @Override
+    public void mask(final CharSequence[] values, final int from, final int to, final MaskedColumn masked) throws IllegalArgumentException {
+        perturb(values, from, to, null, masked);
+    }
+
+    /**
+     * Perturb columns of ISO-8601 dates by the given component
+     *
+     * @param temporalComponent component to move, or null for a random one per date
+     */
+    ColumnMasker column(final TEMPORAL_COMPONENT temporalComponent) {
+        if (temporalComponent == null) {
+            return this;
+        }
+        return (values, from, to, masked) -> perturb(values, from, to, temporalComponent, masked);
+    }
+
+    /**
+     * Move the date by a non-zero number of the component's units that depends only on the key and the seed: up to 10
+     * years, 11 months, 52 weeks or 28 days either way. Dates sharing a key keep their distance in those units.
+     *
+     * @throws IllegalArgumentException if the key is null
+     */
+    LocalDate perturb(final LocalDate date, final TEMPORAL_COMPONENT temporalComponent, final CharSequence key) throws IllegalArgumentException {
+        return shift(date, temporalComponent, offset(temporalComponent, key));
+    }
+
+    /**
+     * Keyed perturbation of a column, row i keyed by keys[i]; null dates stay null
+     *
+     * @throws IllegalArgumentException if the columns differ in length or a non-null date has a null key
+     */
+    LocalDate[] perturb(final LocalDate[] dates, final TEMPORAL_COMPONENT temporalComponent, final CharSequence[] keys) throws IllegalArgumentException {
+        checkLengths(dates.length, keys.length);
+        final LocalDate[] perturbed = new LocalDate[dates.length];
+        for (int i = 0; i < dates.length; i++) {
+            perturbed[i] = dates[i] == null ? null : perturb(dates[i], temporalComponent, keys[i]);
+        }
+        return perturbed;
+    }
+
+    /**
+     * Keyed perturbation of a column of epoch days, row i keyed by keys[i]
+     *
+     * @throws IllegalArgumentException if the columns differ in length or a key is null
+     */
+    int[] perturb(final int[] epochDays, final TEMPORAL_COMPONENT temporalComponent, final CharSequence[] keys) throws IllegalArgumentException {
+        checkLengths(epochDays.length, keys.length);
+        final int[] perturbed = new int[epochDays.length];
+        for (int i = 0; i < epochDays.length; i++) {
+            perturbed[i] = perturbEpochDay(epochDays[i], temporalComponent, keys[i]);
+        }
+        return perturbed;
+    }
+
+    /**
+     * The generator and today's date are fetched once for the batch; each row is then parsed, moved and formatted
+     * without creating a LocalDate
+     */
+    private void perturb(final CharSequence[] values, final int from, final int to, final TEMPORAL_COMPONENT temporalComponent,
+                         final MaskedColumn masked) throws IllegalArgumentException {
+        Objects.checkFromToIndex(from, to, values.length);
+        final SplittableRandom random = randoms.get();
+        final int today = EpochDays.today();
+        final StringBuilder date = new StringBuilder(10);
+
+        for (int i = from; i < to; i++) {
+            final CharSequence value = values[i];
+            if (value == null) {
+                masked.appendNull();
+            } else if (StringUtils.isBlank(value)) {
+                masked.endRow(masked.position());
+            } else {
+                final int epochDay = EpochDays.parse(value);
+                final TEMPORAL_COMPONENT component = temporalComponent == null ? COMPONENTS[random.nextInt(COMPONENTS.length)] : temporalComponent;
+                date.setLength(0);
+                EpochDays.format(perturb(epochDay, component, random, today), date);
+                masked.append(date);
+            }
+        }
+    }
+
+    private LocalDate perturb(final LocalDate date, final TEMPORAL_COMPONENT temporalComponent, final SplittableRandom random, final LocalDate today) {
         switch (temporalComponent) {
             case year:
-                int diff = new Random().nextInt(10);
-                if (date.isBefore(LocalDate.now())) {
-                    date.minusYears(diff);
-                } else {
-                    date.plusYears(diff);
-                }
+                int diff = 1 + random.nextInt(MAX_YEARS);
+                return date.isBefore(today) ? date.minusYears(diff) : date.plusYears(diff);
             case month:
-                 return date.plusMonths(perturbDate(date.getMonthValue(), 12));
+                return date.plusMonths(perturbDate(date.getMonthValue(), MONTHS, random));
             case week:
-                return date.plusWeeks(perturbDate(date.get(WeekFields.of(Locale.US).weekOfYear()), 52));
+                return date.plusWeeks(perturbDate(date.get(WEEKS.weekOfYear()), WEEKS_PER_YEAR, random));
             case day:
-                return date.plusDays(perturbDate(date.getDayOfMonth(), date.lengthOfMonth()));
+                return date.plusDays(perturbDate(date.getDayOfMonth(), date.lengthOfMonth(), random));
+            default:
+                String message = String.format("Unknown temporal component %s", temporalComponent);
+                throw new IllegalArgumentException(message);
         }
-        //TODO
-        return null;
     }
 
-    private LocalDate perturbYear(final LocalDate date) {
-        return null;
+    /**
+     * The epoch day form of perturb(LocalDate, TEMPORAL_COMPONENT, SplittableRandom, LocalDate); it makes the same draws
+     */
+    private int perturb(final int epochDay, final TEMPORAL_COMPONENT temporalComponent, final SplittableRandom random, final int today) {
+        final int civil = EpochDays.civil(epochDay);
+        switch (temporalComponent) {
+            case year:
+                int diff = 1 + random.nextInt(MAX_YEARS);
+                return EpochDays.plusYears(civil, epochDay < today ? -diff : diff);
+            case month:
+                return EpochDays.plusMonths(civil, perturbDate(EpochDays.month(civil), MONTHS, random));
+            case week:
+                return epochDay + 7 * perturbDate(EpochDays.weekOfYear(epochDay, EpochDays.year(civil)), WEEKS_PER_YEAR, random);
+            case day:
+                final int lengthOfMonth = EpochDays.lengthOfMonth(EpochDays.year(civil), EpochDays.month(civil));
+                return epochDay + perturbDate(EpochDays.day(civil), lengthOfMonth, random);
+            default:
+                String message = String.format("Unknown temporal component %s", temporalComponent);
+                throw new IllegalArgumentException(message);
+        }
     }
 
-
-    private int perturbDate(final int dateVal, final int upperBound) {
-        int lowerBound = upperBound - 1;
-        int random = new Random().nextInt(upperBound + lowerBound) - lowerBound;
-
-        if (random == 0 || dateVal + random > upperBound || dateVal + random < 1) {
-            return perturbDate(dateVal, upperBound);
-        } else {
-            return random;
+    /**
+     * Pick another value in [1, upperBound] uniformly, which is what rejection sampling of an offset would converge
+     * to, in a single draw
+     *
+     * @return the offset from dateVal to the new value
+     */
+    private int perturbDate(final int dateVal, final int upperBound, final SplittableRandom random) {
+        if (dateVal < 1 || dateVal > upperBound) {
+            return 1 + random.nextInt(upperBound) - dateVal;
         }
+        int other = 1 + random.nextInt(upperBound - 1);
+        if (other >= dateVal) {
+            other++;
+        }
+        return other - dateVal;
     }
 
-    private int perturbWeek(int week) {
-        int random = new Random().nextInt(50 + 50) - 50;
+    private static LocalDate shift(final LocalDate date, final TEMPORAL_COMPONENT temporalComponent, final int offset) {
+        switch (temporalComponent) {
+            case year:
+                return date.plusYears(offset);
+            case month:
+                return date.plusMonths(offset);
+            case week:
+                return date.plusWeeks(offset);
+            case day:
+                return date.plusDays(offset);
+            default:
+                String message = String.format("Unknown temporal component %s", temporalComponent);
+                throw new IllegalArgumentException(message);
+        }
+    }
 
-        if (random == 0 || week + random > 52 || week + random < 1) {
-            return perturbWeek(week);
-        } else {
-            return random;
+    private static int shift(final int epochDay, final TEMPORAL_COMPONENT temporalComponent, final int offset) {
+        switch (temporalComponent) {
+            case year:
+                return EpochDays.plusYears(EpochDays.civil(epochDay), offset);
+            case month:
+                return EpochDays.plusMonths(EpochDays.civil(epochDay), offset);
+            case week:
+                return epochDay + 7 * offset;
+            case day:
+                return epochDay + offset;
+            default:
+                String message = String.format("Unknown temporal component %s", temporalComponent);
+                throw new IllegalArgumentException(message);
         }
     }
 
-    private int perturbDay(int day) {
-        int random = new Random().nextInt(26 + 26) - 26;
+    /**
+     * A non-zero offset in [-limit, limit] from a 64-bit hash of the key mixed with the seed. The hash is not
+     * cryptographic; tokenize the key first if the seed must not be recoverable from pairs of dates.
+     *
+     * @throws IllegalArgumentException if the key is null
+     */
+    private int offset(final TEMPORAL_COMPONENT temporalComponent, final CharSequence key) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("A keyed perturbation needs a key for every date");
+        }
+        final int limit;
+        switch (temporalComponent) {
+            case year:
+                limit = MAX_YEARS;
+                break;
+            case month:
+                limit = MONTHS - 1;
+                break;
+            case week:
+                limit = WEEKS_PER_YEAR;
+                break;
+            default:
+                limit = MAX_DAYS;
+                break;
+        }
 
-        if (random == 0 || day + random > 28 || day + random < 1) {
-            return perturbDay(day);
-        } else {
-            return random;
+        // FNV-1a over the characters, then the SplittableRandom finalizer over the hash and the seed
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
         }
+        h = mix(h ^ mix(seed + temporalComponent.ordinal()));
+
+        final int magnitude = 1 + (int) ((h >>> 1) % limit);
+        return (h & 1) == 0 ? magnitude : -magnitude;
     }
 
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
 
+    private synchronized SplittableRandom split() {
+        return seeder.split();
+    }
+
+    private static void checkLengths(final int dates, final int keys) throws IllegalArgumentException {
+        if (dates != keys) {
+            String message = String.format("There are %d dates but %d keys", dates, keys);
+            throw new IllegalArgumentException(message);
+        }
+    }
 }
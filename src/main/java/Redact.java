@@ -1,53 +1,307 @@
+import utils.ColumnMasker;
+import utils.MaskedColumn;
 
-class Redact {
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+class Redact implements ColumnMasker {
 
     public enum DIRECTION{ front, back}
 
+    static final char LETTER_MASK = 'X';
+    static final char DIGIT_MASK = '9';
+
+    // Replacement for every ASCII character: letters become X, digits become 9, everything else maps to itself
+    private static final char[] ASCII_MASKS = new char[128];
+
+    // Eight bytes of a byte[] read or written as one long, for the word-at-a-time ASCII path
+    private static final VarHandle WORDS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x80 * ONES;
+
+    // Per-thread scratch space for the String API. Buffers larger than this are not retained after use.
+    private static final int MAX_RETAINED_BUFFER = 8192;
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[64]);
+
+    static {
+        for (char c = 0; c < ASCII_MASKS.length; c++) {
+            ASCII_MASKS[c] = classify(c);
+        }
+    }
+
     String redact(final String value, int offset, DIRECTION direction) {
         if (value.length() < offset)  throw new IllegalArgumentException("Offset cannot be larger than value");
         if (offset <= 0)  throw new IllegalArgumentException("Offset must be greater than zero");
 
-        if (value == null || value.trim().isEmpty()) {
+        if (value == null || isBlank(value)) {
             return "";
         }
 
-        StringBuffer sb = new StringBuffer();
+        final int length = value.length();
+        final char[] buffer = buffer(length);
+        value.getChars(0, length, buffer, 0);
+
         switch (direction) {
             case front:
-                sb.append(redact(value.substring(0, offset)));
-                sb.append(value.substring(offset));
+                redact(buffer, 0, offset, buffer, 0);
                 break;
             case back:
-                sb.append(value.substring(0, offset));
-                sb.append(redact(value.substring(offset, value.length())));
+                redact(buffer, offset, length, buffer, offset);
                 break;
             default:
-                sb.append(redact(value));
+                redact(buffer, 0, length, buffer, 0);
                 break;
         }
-        return sb.toString();
+        return new String(buffer, 0, length);
     }
 
     String redact(final String value) {
-        if (value == null || value.trim().isEmpty()) {
+        if (value == null || isBlank(value)) {
             return "";
         }
 
-        StringBuilder sb = new StringBuilder();
-        value.chars().forEach(c -> {
-            if (Character.isLetter(c)) {
-                sb.append("X");
-            } else if (Character.isDigit(c)) {
-                sb.append("9");
+        final int length = value.length();
+        final char[] buffer = buffer(length);
+        redact(value, 0, length, buffer, 0);
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * Append the redacted value to a builder, following the same rules as redact(String)
+     */
+    void redact(final CharSequence value, final StringBuilder masked) {
+        if (value == null || isBlank(value)) {
+            return;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            masked.append(mask(value.charAt(i)));
+        }
+    }
+
+    /**
+     * Redact a range of characters into a caller-supplied buffer without allocating
+     *
+     * Letters are replaced with X, digits with 9 and every other character is copied as is, so the output has
+     * the same length and punctuation as the input.
+     *
+     * @param value characters to redact
+     * @param start index of the first character to redact (inclusive)
+     * @param end index of the last character to redact (exclusive)
+     * @param destination buffer that receives end - start redacted characters
+     * @param destinationOffset index in the destination where the first redacted character is written
+     * @return the destination index following the last character written
+     * @throws IndexOutOfBoundsException if the range is outside the value or the destination is too small
+     */
+    int redact(final CharSequence value, final int start, final int end, final char[] destination, final int destinationOffset) {
+        Objects.checkFromToIndex(start, end, value.length());
+        Objects.checkFromIndexSize(destinationOffset, end - start, destination.length);
+
+        int d = destinationOffset;
+        for (int i = start; i < end; i++) {
+            destination[d++] = mask(value.charAt(i));
+        }
+        return d;
+    }
+
+    /**
+     * Redact a range of a char array into a caller-supplied buffer without allocating
+     *
+     * The source and destination may be the same array, in which case the range is redacted in place.
+     *
+     * @see #redact(CharSequence, int, int, char[], int)
+     */
+    int redact(final char[] value, final int start, final int end, final char[] destination, final int destinationOffset) {
+        Objects.checkFromToIndex(start, end, value.length);
+        Objects.checkFromIndexSize(destinationOffset, end - start, destination.length);
+
+        int d = destinationOffset;
+        for (int i = start; i < end; i++) {
+            destination[d++] = mask(value[i]);
+        }
+        return d;
+    }
+
+    /**
+     * Redact a range of Latin-1 (ISO-8859-1) bytes into a caller-supplied buffer without allocating
+     *
+     * Same rules as the char versions. ASCII is classified and replaced eight bytes at a time as one long: a range that
+     * is all ASCII runs through a loop without branches, while in a range holding other characters each eight bytes
+     * with one of them go through the per-character path. The source and destination may be the same array, in which
+     * case the range is redacted in place.
+     *
+     * @see #redact(CharSequence, int, int, char[], int)
+     */
+    int redact(final byte[] value, final int start, final int end, final byte[] destination, final int destinationOffset) {
+        Objects.checkFromToIndex(start, end, value.length);
+        Objects.checkFromIndexSize(destinationOffset, end - start, destination.length);
+
+        final int wordsEnd = start + ((end - start) & -Long.BYTES);
+        int i = start;
+        int d = destinationOffset;
+        if (isAscii(value, start, wordsEnd)) {
+            for (; i < wordsEnd; i += Long.BYTES, d += Long.BYTES) {
+                WORDS.set(destination, d, maskAscii((long) WORDS.get(value, i)));
+            }
+        } else {
+            for (; i < wordsEnd; i += Long.BYTES, d += Long.BYTES) {
+                final long word = (long) WORDS.get(value, i);
+                if ((word & HIGH_BITS) == 0) {
+                    WORDS.set(destination, d, maskAscii(word));
+                } else {
+                    for (int b = 0; b < Long.BYTES; b++) {
+                        destination[d + b] = mask(value[i + b]);
+                    }
+                }
+            }
+        }
+        for (; i < end; i++) {
+            destination[d++] = mask(value[i]);
+        }
+        return d;
+    }
+
+    /**
+     * Fully redact a column into the masked buffer, following the same rules as redact(String): null values give null
+     * rows and blank values give empty rows
+     */
+    @Override
+    public void mask(final CharSequence[] values, final int from, final int to, final MaskedColumn masked) {
+        mask(values, from, to, 0, null, masked);
+    }
+
+    /**
+     * Partial redaction of a column, following the same rules as redact(String, int, DIRECTION). The offset and
+     * direction are checked here, once, rather than for every value.
+     *
+     * @throws IllegalArgumentException if the offset is not positive or there is no direction
+     */
+    ColumnMasker column(final int offset, final DIRECTION direction) throws IllegalArgumentException {
+        if (offset <= 0)  throw new IllegalArgumentException("Offset must be greater than zero");
+        if (direction == null)  throw new IllegalArgumentException("Direction must be front or back");
+        return (values, from, to, masked) -> mask(values, from, to, offset, direction, masked);
+    }
+
+    /**
+     * Copy each value into the masked buffer and redact the selected range of it in place; a null direction redacts
+     * the whole value
+     */
+    private static void mask(final CharSequence[] values, final int from, final int to, final int offset,
+                             final DIRECTION direction, final MaskedColumn masked) throws IllegalArgumentException {
+        Objects.checkFromToIndex(from, to, values.length);
+
+        for (int i = from; i < to; i++) {
+            final CharSequence value = values[i];
+            if (value == null) {
+                masked.appendNull();
+                continue;
+            }
+            final int length = value.length();
+            if (length < offset) {
+                String message = String.format("Offset cannot be larger than value (row %d)", i);
+                throw new IllegalArgumentException(message);
+            }
+            final int start = masked.position();
+            if (isBlank(value)) {
+                masked.endRow(start);
+                continue;
+            }
+
+            final char[] destination = masked.reserve(length);
+            if (value instanceof String) {
+                ((String) value).getChars(0, length, destination, start);
             } else {
-                sb.append(Character.toString(c));
+                for (int c = 0; c < length; c++) {
+                    destination[start + c] = value.charAt(c);
+                }
+            }
+            final int redactFrom = direction == DIRECTION.back ? start + offset : start;
+            final int redactTo = direction == DIRECTION.front ? start + offset : start + length;
+            for (int c = redactFrom; c < redactTo; c++) {
+                destination[c] = mask(destination[c]);
             }
-        });
+            masked.endRow(start + length);
+        }
+    }
 
-        return sb.toString();
+    static char mask(final char c) {
+        return c < ASCII_MASKS.length ? ASCII_MASKS[c] : classify(c);
     }
 
+    private static byte mask(final byte b) {
+        return (byte) mask((char) (b & 0xFF));
+    }
 
+    /**
+     * @param end must leave a whole number of longs after start
+     */
+    private static boolean isAscii(final byte[] value, final int start, final int end) {
+        long bits = 0;
+        for (int i = start; i < end; i += Long.BYTES) {
+            bits |= (long) WORDS.get(value, i);
+        }
+        return (bits & HIGH_BITS) == 0;
+    }
 
+    /**
+     * Redact eight ASCII characters packed one per byte: letters become X, digits 9, everything else is kept
+     */
+    private static long maskAscii(final long word) {
+        final long letters = expand(inRange(word | 0x20 * ONES, 'a', 'z'));
+        final long digits = expand(inRange(word, '0', '9'));
+        return (word & ~(letters | digits)) | (letters & LETTER_MASK * ONES) | (digits & DIGIT_MASK * ONES);
+    }
+
+    /**
+     * @return 0x80 in every byte of the word that is between low and high (inclusive), 0 in the others. Every byte
+     * must be below 0x80, so adding at most 0x80 to a byte cannot carry into the next one.
+     */
+    private static long inRange(final long word, final char low, final char high) {
+        final long atLeastLow = word + (0x80 - low) * ONES;
+        final long aboveHigh = word + (0x7F - high) * ONES;
+        return atLeastLow & ~aboveHigh & HIGH_BITS;
+    }
+
+    /**
+     * Turn 0x80 bytes into 0xFF bytes
+     */
+    private static long expand(final long highBits) {
+        return (highBits >>> 7) * 0xFF;
+    }
+
+    private static char classify(final char c) {
+        if (Character.isLetter(c)) {
+            return LETTER_MASK;
+        } else if (Character.isDigit(c)) {
+            return DIGIT_MASK;
+        } else {
+            return c;
+        }
+    }
+
+    /**
+     * Same test as value.trim().isEmpty() (every character is at or below a space) without creating a substring
+     */
+    private static boolean isBlank(final CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char[] buffer(final int length) {
+        char[] buffer = BUFFER.get();
+        if (buffer.length < length) {
+            buffer = new char[Math.max(length, buffer.length * 2)];
+            if (buffer.length <= MAX_RETAINED_BUFFER) {
+                BUFFER.set(buffer);
+            }
+        }
+        return buffer;
+    }
 
 }
@@ -1,4 +1,17 @@
-class Substitution {
+import utils.ColumnMasker;
+import utils.MaskedColumn;
+import utils.NameDictionary;
+import utils.NameFrequencyTable;
+import utils.ProcessFirstNames;
+import utils.SurnameTable;
+import utils.WeightedRandomBag;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+class Substitution implements ColumnMasker {
     //substitution
     // for non-reversible, just pick a random name by gender
     // for reversible, take the first three letters of each first name and compile a map. Then map each entry to a random name from the list, using a certain Lew threshold
@@ -48,4 +61,357 @@ class Substitution {
      * https://planetcalc.com/1721/
      *
      */
+
+    /**
+     * How a replacement surname is drawn: every surname equally likely, in proportion to how many people have it, or
+     * from the surnames ranked near the original (see SurnameTable)
+     */
+    enum SURNAME_SAMPLING {uniform, weighted, similarRank}
+
+    // similarRank draws from this many ranks either side of the original
+    static final int RANK_BAND = 25;
+
+    // columns at least this long are substituted on the common fork-join pool
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    /**
+     * One compiled year. Its index holds the female names and then the male names, each in descending count order, so
+     * an entry number is the rank of the name within its gender (offset by femaleCount for male names).
+     */
+    private static final class YearRanks {
+        private final int year;
+        private final NameFrequencyTable index;
+        private final int femaleCount;
+
+        private YearRanks(final NameDictionary dictionary, final int yearIndex) {
+            final int start = dictionary.yearRowStart(yearIndex);
+            final int end = dictionary.yearRowStart(yearIndex + 1);
+            final NameFrequencyTable.Builder builder = NameFrequencyTable.builder();
+            int females = 0;
+            for (int row = start; row < end; row++) {
+                if (dictionary.isFemale(row)) {
+                    builder.add(dictionary.string(dictionary.firstName(row)), true, dictionary.firstNameCount(row), 1);
+                    females++;
+                }
+            }
+            for (int row = start; row < end; row++) {
+                if (!dictionary.isFemale(row)) {
+                    builder.add(dictionary.string(dictionary.firstName(row)), false, dictionary.firstNameCount(row), 1);
+                }
+            }
+            this.year = dictionary.year(yearIndex);
+            this.index = builder.build();
+            this.femaleCount = females;
+        }
+    }
+
+    private final NameFrequencyTable names;
+    private final WeightedRandomBag<String> femaleNames = new WeightedRandomBag<>();
+    private final WeightedRandomBag<String> maleNames = new WeightedRandomBag<>();
+    private final WeightedRandomBag<Boolean> genders = new WeightedRandomBag<>();
+    private final SurnameTable surnames;
+    // the surnames as written in mixed case data (SMITH becomes Smith), by row, so a draw does not build the String
+    private final String[] capitalizedSurnames;
+    private final YearRanks[] years;
+
+    Substitution() throws IllegalArgumentException {
+        this(new ProcessFirstNames());
+    }
+
+    /**
+     * @param processFirstNames the loaded first names; their totals weight the random draws
+     * @throws IllegalArgumentException if the first names were not loaded from the compiled name dictionary, which
+     * holds the yearly ranks and the surnames
+     */
+    Substitution(final ProcessFirstNames processFirstNames) throws IllegalArgumentException {
+        this(processFirstNames.getNames(), processFirstNames.getNameDictionary());
+    }
+
+    /**
+     * @param names first name totals that weight the random draws
+     * @param dictionary compiled name dictionary with the yearly ranks and the surnames. It may have no years, in
+     *                   which case every first name is substituted at random.
+     * @throws IllegalArgumentException if there is no dictionary
+     */
+    Substitution(final NameFrequencyTable names, final NameDictionary dictionary) throws IllegalArgumentException {
+        if (dictionary == null) {
+            throw new IllegalArgumentException("Name substitution needs the compiled name dictionary, which could not be loaded");
+        }
+
+        this.names = names;
+        for (int entry = 0; entry < names.size(); entry++) {
+            (names.isFemale(entry) ? femaleNames : maleNames).addEntry(names.name(entry), names.count(entry));
+        }
+        genders.addEntry(Boolean.TRUE, names.getFemaleWeight());
+        genders.addEntry(Boolean.FALSE, names.getMaleWeight());
+
+        this.surnames = dictionary.surnameRows() == 0 ? null : SurnameTable.of(dictionary);
+        this.capitalizedSurnames = new String[dictionary.surnameRows()];
+        for (int row = 0; row < capitalizedSurnames.length; row++) {
+            final String surname = surnames.name(row);
+            capitalizedSurnames[row] = surname.charAt(0) + surname.substring(1).toLowerCase(Locale.ROOT);
+        }
+
+        this.years = new YearRanks[dictionary.yearCount()];
+        for (int i = 0; i < years.length; i++) {
+            years[i] = new YearRanks(dictionary, i);
+        }
+    }
+
+    /**
+     * Replace a first name with a random name of the same gender, drawn in proportion to how many babies were given
+     * each name. The gender of a name used for both is the one it was given to most; a name that is not in the SSA
+     * files gets a gender drawn in proportion to the number of babies of each gender. Names are looked up in any case,
+     * and the replacement is upper case like MARY if the original has no lower case letters, and as in the SSA files
+     * like Mary otherwise.
+     *
+     * @return the replacement, or null if the name is null
+     */
+    String substituteFirstName(final String name) {
+        if (name == null) {
+            return null;
+        }
+        return firstName(name);
+    }
+
+    /**
+     * Replace a first name with the name of the same gender one place away in popularity, in the compiled year closest
+     * to the given year. The 1st and 2nd most popular names swap, the 3rd and 4th swap and so on, so the 7th most
+     * popular female name of 1976 (ranked in 1980) is replaced by the 8th, and substituting twice gives back the
+     * original. The least popular name of an odd-sized list is replaced by the one before it. A name that is not ranked
+     * in that year, or any name if the dictionary has no years, is replaced as by substituteFirstName(String), and the
+     * replacement is in the case of the original as there.
+     *
+     * @return the replacement, or null if the name is null
+     */
+    String substituteFirstName(final String name, final int year) {
+        if (name == null) {
+            return null;
+        }
+        return firstName(name, closest(year));
+    }
+
+    /**
+     * Substitute a column of first names into the masked buffer as by substituteFirstName(String); null values give
+     * null rows
+     */
+    @Override
+    public void mask(final CharSequence[] values, final int from, final int to, final MaskedColumn masked) {
+        Objects.checkFromToIndex(from, to, values.length);
+        for (int i = from; i < to; i++) {
+            masked.append(values[i] == null ? null : firstName(values[i]));
+        }
+    }
+
+    /**
+     * Substitute columns of first names as by substituteFirstName(String, int). The closest compiled year is found
+     * here, once, instead of for every name.
+     */
+    ColumnMasker firstNameColumn(final int year) {
+        final YearRanks ranks = closest(year);
+        return (values, from, to, masked) -> {
+            Objects.checkFromToIndex(from, to, values.length);
+            for (int i = from; i < to; i++) {
+                masked.append(values[i] == null ? null : firstName(values[i], ranks));
+            }
+        };
+    }
+
+    /**
+     * Substitute columns of last names as by substituteLastName(String)
+     */
+    ColumnMasker lastNameColumn() {
+        return lastNameColumn(SURNAME_SAMPLING.weighted);
+    }
+
+    /**
+     * Substitute columns of last names as by substituteLastName(String, SURNAME_SAMPLING)
+     *
+     * @throws IllegalArgumentException if the name dictionary has no surnames
+     */
+    ColumnMasker lastNameColumn(final SURNAME_SAMPLING sampling) throws IllegalArgumentException {
+        final SurnameTable table = surnames();
+        return (values, from, to, masked) -> {
+            Objects.checkFromToIndex(from, to, values.length);
+            for (int i = from; i < to; i++) {
+                masked.append(values[i] == null ? null : lastName(values[i], table, sampling));
+            }
+        };
+    }
+
+    private String lastName(final CharSequence original, final SurnameTable table, final SURNAME_SAMPLING sampling) {
+        final int row;
+        if (sampling == SURNAME_SAMPLING.uniform) {
+            row = table.uniform();
+        } else if (sampling == SURNAME_SAMPLING.similarRank) {
+            row = table.similarRank(table.find(original), RANK_BAND);
+        } else {
+            row = table.weighted();
+        }
+        return hasLowerCase(original) ? capitalizedSurnames[row] : table.name(row);
+    }
+
+    private SurnameTable surnames() throws IllegalArgumentException {
+        if (surnames == null) {
+            throw new IllegalArgumentException("The name dictionary has no surnames; compile it with most-common-name_surnames.csv");
+        }
+        return surnames;
+    }
+
+    private String firstName(final CharSequence name) {
+        return inCaseOf(name, isFemale(name) ? femaleNames.getRandom() : maleNames.getRandom());
+    }
+
+    private String firstName(final CharSequence name, final YearRanks ranks) {
+        if (ranks == null) {
+            return firstName(name);
+        }
+        final NameFrequencyTable index = ranks.index;
+        final int female = index.find(name, true);
+        final int male = index.find(name, false);
+        if (female < 0 && male < 0) {
+            return firstName(name);
+        }
+
+        final boolean isFemale = male < 0 || (female >= 0 && index.count(female) >= index.count(male));
+        final int offset = isFemale ? 0 : ranks.femaleCount;
+        final int size = isFemale ? ranks.femaleCount : index.size() - ranks.femaleCount;
+        final int rank = (isFemale ? female : male) - offset;
+        int partner = rank ^ 1;
+        if (partner >= size) {
+            partner = Math.max(rank - 1, 0);
+        }
+        return inCaseOf(name, index.name(offset + partner));
+    }
+
+    /**
+     * @return the first name in upper case if the original has no lower case letters, as in the SSA files otherwise
+     */
+    private static String inCaseOf(final CharSequence original, final String name) {
+        return hasLowerCase(original) ? name : name.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Replace a last name with a random one of the most common US surnames, drawn in proportion to how many people
+     * have each. The replacement is upper case like SMITH if the original has no lower case letters, and capitalized
+     * like Smith otherwise.
+     *
+     * @return the replacement, or null if the last name is null
+     */
+    String substituteLastName(final String lastName) {
+        return substituteLastName(lastName, SURNAME_SAMPLING.weighted);
+    }
+
+    /**
+     * Replace a last name with one of the most common US surnames drawn as the sampling says, in the case of the
+     * original as by substituteLastName(String). With similarRank, a surname that is not in the list is treated as
+     * rarer than all of them and replaced by one of the least common.
+     *
+     * @param sampling how to draw the replacement; null draws in proportion to the counts
+     * @return the replacement, or null if the last name is null
+     * @throws IllegalArgumentException if the name dictionary has no surnames
+     */
+    String substituteLastName(final String lastName, final SURNAME_SAMPLING sampling) throws IllegalArgumentException {
+        final SurnameTable table = surnames();
+        if (lastName == null) {
+            return null;
+        }
+        return lastName(lastName, table, sampling);
+    }
+
+    /**
+     * Substitute a column of first names as by substituteFirstName(String). Null entries stay null.
+     */
+    String[] substituteFirstNames(final String[] column) {
+        return substitute(column, i -> substituteFirstName(column[i]));
+    }
+
+    /**
+     * Substitute a column of first names as by substituteFirstName(String, int), all ranked in the same year. The
+     * closest compiled year is found once for the column.
+     */
+    String[] substituteFirstNames(final String[] column, final int year) {
+        final YearRanks ranks = closest(year);
+        return substitute(column, i -> column[i] == null ? null : firstName(column[i], ranks));
+    }
+
+    /**
+     * Substitute a column of first names as by substituteFirstName(String, int), each ranked in the year of the same row
+     *
+     * @throws IllegalArgumentException if the columns differ in length
+     */
+    String[] substituteFirstNames(final String[] column, final int[] years) throws IllegalArgumentException {
+        if (column.length != years.length) {
+            String message = String.format("There are %d names but %d years", column.length, years.length);
+            throw new IllegalArgumentException(message);
+        }
+        return substitute(column, i -> substituteFirstName(column[i], years[i]));
+    }
+
+    /**
+     * Substitute a column of last names as by substituteLastName(String). Null entries stay null.
+     */
+    String[] substituteLastNames(final String[] column) {
+        return substituteLastNames(column, SURNAME_SAMPLING.weighted);
+    }
+
+    /**
+     * Substitute a column of last names as by substituteLastName(String, SURNAME_SAMPLING). Null entries stay null.
+     *
+     * @throws IllegalArgumentException if the name dictionary has no surnames
+     */
+    String[] substituteLastNames(final String[] column, final SURNAME_SAMPLING sampling) throws IllegalArgumentException {
+        final SurnameTable table = surnames();
+        return substitute(column, i -> column[i] == null ? null : lastName(column[i], table, sampling));
+    }
+
+    /**
+     * Apply a row substitution to a whole column; long columns are split across the common fork-join pool. The
+     * substitutions only read shared state and draw from ThreadLocalRandom, so rows need no coordination.
+     */
+    private static String[] substitute(final String[] column, final IntFunction<String> row) {
+        final String[] result = new String[column.length];
+        if (column.length >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSetAll(result, row);
+        } else {
+            for (int i = 0; i < result.length; i++) {
+                result[i] = row.apply(i);
+            }
+        }
+        return result;
+    }
+
+    private boolean isFemale(final CharSequence name) {
+        final int female = names.find(name, true);
+        final int male = names.find(name, false);
+        if (female < 0 && male < 0) {
+            return genders.getRandom();
+        }
+        return male < 0 || (female >= 0 && names.count(female) >= names.count(male));
+    }
+
+    /**
+     * @return the compiled year closest to the given one, or null if the dictionary has no years
+     */
+    private YearRanks closest(final int year) {
+        if (years.length == 0) {
+            return null;
+        }
+        YearRanks closest = years[0];
+        for (YearRanks ranks : years) {
+            if (Math.abs(ranks.year - year) < Math.abs(closest.year - year)) {
+                closest = ranks;
+            }
+        }
+        return closest;
+    }
+
+    private static boolean hasLowerCase(final CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isLowerCase(value.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
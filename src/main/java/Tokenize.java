@@ -0,0 +1,438 @@
+import org.apache.commons.crypto.cipher.CryptoCipher;
+import org.apache.commons.crypto.cipher.CryptoCipherFactory;
+import utils.ColumnMasker;
+import utils.MaskedColumn;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Deterministic, keyed tokenization
+ *
+ * The same value always produces the same token for a given key and tweak, so masked tables can still be joined
+ * on tokenized columns. Two kinds of token are available:
+ *
+ *  tokenize: an HMAC-SHA256 of the value, Base64 (URL safe, unpadded) encoded. One-way, 43 characters.
+ *  tokenizePreservingFormat: every ASCII digit is replaced by a digit, every upper case letter by an upper case letter
+ *      and every lower case letter by a lower case letter; all other characters are kept where they are. The value
+ *      keeps its length and layout (123-45-6789 becomes another ddd-dd-dddd) and detokenize recovers the original.
+ *
+ * The format preserving mode follows the structure of NIST SP 800-38G FF1: a 10 round Feistel network over the
+ * letters and digits, with an AES CBC-MAC round function (through commons-crypto). Each position is added modulo
+ * its own radix (10 or 26) rather than treating each half as one number, which lets a single value mix digits and
+ * letters. It is not a validated FF1 implementation. Values with very few letters and digits have correspondingly
+ * few possible tokens, and non-ASCII letters and digits are left unchanged.
+ *
+ * Both modes use subkeys derived from the configured secret, never the secret itself. Every thread keeps its own
+ * keyed Mac and initialized AES cipher, so the key schedule is computed once per thread rather than per value.
+ */
+public class Tokenize implements ColumnMasker {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String FPE_TRANSFORM = "AES/CBC/NoPadding";
+    private static final int BLOCK_SIZE = 16;
+    private static final int ROUNDS = 10;
+    private static final byte VERSION = 1;
+
+    private static final int NOT_TRANSFORMED = 0;
+
+    /**
+     * Key material from application.yaml, read the first time a Tokenize is created with the default constructor
+     */
+    private static final class DefaultConfig {
+        private static final EncryptionConfig INSTANCE = new EncryptionConfig();
+    }
+
+    private final SecretKeySpec hmacKey;
+    private final SecretKeySpec fpeKey;
+    private final byte[] tweak;
+
+    private final ThreadLocal<Context> contexts = ThreadLocal.withInitial(this::newContext);
+
+    /**
+     * Per-thread keyed primitives and scratch space; the arrays only grow
+     */
+    private static final class Context {
+        private final Mac mac;
+        private final CryptoCipher cipher;
+        private final byte[] block = new byte[BLOCK_SIZE];
+        private final byte[] mac16 = new byte[BLOCK_SIZE];
+        private byte[] message = new byte[4 * BLOCK_SIZE];
+        private byte[] encrypted = new byte[4 * BLOCK_SIZE];
+        private byte[] stream = new byte[4 * BLOCK_SIZE];
+        private int[] positions = new int[32];
+        private int[] digits = new int[32];
+        private int[] radices = new int[32];
+        private int[] next = new int[32];
+        private int[] scratch = new int[32];
+
+        private Context(final Mac mac, final CryptoCipher cipher) {
+            this.mac = mac;
+            this.cipher = cipher;
+        }
+
+        private void ensureDigits(final int length) {
+            if (positions.length < length) {
+                int size = Math.max(length, positions.length * 2);
+                positions = new int[size];
+                digits = new int[size];
+                radices = new int[size];
+                next = new int[size];
+                scratch = new int[size];
+            }
+        }
+    }
+
+    /**
+     * Tokenize with the secret configured in application.yaml and no tweak
+     */
+    public Tokenize() throws IllegalArgumentException {
+        this(DefaultConfig.INSTANCE, "");
+    }
+
+    /**
+     * @param encryptionConfig supplies the secret key the tokenization subkeys are derived from
+     * @param tweak public value that separates token domains (for example a column or project name). Tokens only
+     *              match when they were created with the same key and tweak.
+     * @throws IllegalArgumentException if the configuration has no secret key
+     */
+    public Tokenize(final EncryptionConfig encryptionConfig, final String tweak) throws IllegalArgumentException {
+        if (encryptionConfig.getSecretKey() == null || encryptionConfig.getSecretKey().isEmpty()) {
+            throw new IllegalArgumentException("The encryption configuration must provide a secretKey");
+        }
+        final byte[] secret = encryptionConfig.getSecretKey().getBytes(StandardCharsets.UTF_8);
+        this.tweak = tweak == null ? new byte[0] : tweak.getBytes(StandardCharsets.UTF_8);
+
+        try {
+            // the HMAC has no other input for the tweak, so it goes into that subkey; FPE mixes it into every round
+            final Mac derive = Mac.getInstance(HMAC_ALGORITHM);
+            derive.init(new SecretKeySpec(secret, HMAC_ALGORITHM));
+            derive.update("safedata tokenize hmac".getBytes(StandardCharsets.UTF_8));
+            derive.update((byte) 0);
+            final byte[] hmacKey = derive.doFinal(this.tweak);
+            final byte[] fpeKey = derive.doFinal("safedata tokenize fpe".getBytes(StandardCharsets.UTF_8));
+
+            this.hmacKey = new SecretKeySpec(hmacKey, HMAC_ALGORITHM);
+            this.fpeKey = new SecretKeySpec(Arrays.copyOf(fpeKey, BLOCK_SIZE), "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to derive the tokenization keys", e);
+        }
+    }
+
+    /**
+     * @param value text to tokenize
+     * @return URL safe Base64 HMAC-SHA256 of the UTF-8 value, or null if the value is null
+     */
+    public String tokenize(final String value) {
+        if (value == null) {
+            return null;
+        }
+        return tokenize(value, contexts.get());
+    }
+
+    /**
+     * Tokenize a column of values, fetching this thread's keyed Mac once for the whole batch
+     *
+     * @see #tokenize(String)
+     */
+    public String[] tokenize(final String[] values) {
+        final Context context = contexts.get();
+        final String[] tokens = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            tokens[i] = values[i] == null ? null : tokenize(values[i], context);
+        }
+        return tokens;
+    }
+
+    /**
+     * @param value text to tokenize
+     * @return a token with the same length and the same character class at every position, or null if the value
+     * is null. Values without ASCII letters or digits are returned unchanged.
+     */
+    public String tokenizePreservingFormat(final String value) {
+        if (value == null) {
+            return null;
+        }
+        return transform(value, contexts.get(), true);
+    }
+
+    /**
+     * Format preserving tokenization of a column of values, fetching this thread's cipher once for the whole batch
+     *
+     * @see #tokenizePreservingFormat(String)
+     */
+    public String[] tokenizePreservingFormat(final String[] values) {
+        final Context context = contexts.get();
+        final String[] tokens = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            tokens[i] = values[i] == null ? null : transform(values[i], context, true);
+        }
+        return tokens;
+    }
+
+    /**
+     * Tokenize a column into the masked buffer, fetching this thread's keyed Mac once for the whole batch
+     *
+     * @see #tokenize(String)
+     */
+    @Override
+    public void mask(final CharSequence[] values, final int from, final int to, final MaskedColumn masked) {
+        Objects.checkFromToIndex(from, to, values.length);
+        final Context context = contexts.get();
+        for (int i = from; i < to; i++) {
+            masked.append(values[i] == null ? null : tokenize(values[i].toString(), context));
+        }
+    }
+
+    /**
+     * Format preserving tokenization of columns, fetching this thread's cipher once per batch
+     *
+     * @see #tokenizePreservingFormat(String)
+     */
+    public ColumnMasker preservingFormatColumn() {
+        return (values, from, to, masked) -> {
+            Objects.checkFromToIndex(from, to, values.length);
+            final Context context = contexts.get();
+            for (int i = from; i < to; i++) {
+                masked.append(values[i] == null ? null : transform(values[i].toString(), context, true));
+            }
+        };
+    }
+
+    /**
+     * Reverse tokenizePreservingFormat. Only possible with the same key and tweak.
+     *
+     * @param token a token created by tokenizePreservingFormat
+     * @return the original value, or null if the token is null
+     */
+    public String detokenize(final String token) {
+        if (token == null) {
+            return null;
+        }
+        return transform(token, contexts.get(), false);
+    }
+
+    private String tokenize(final String value, final Context context) {
+        final byte[] digest = context.mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    /**
+     * Run the Feistel network forwards (tokenize) or backwards (detokenize) over the letters and digits of a value
+     */
+    private String transform(final String value, final Context context, final boolean forward) {
+        final int length = value.length();
+        context.ensureDigits(length);
+        final int[] positions = context.positions;
+        final int[] digits = context.digits;
+        final int[] radices = context.radices;
+
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            int radix = radix(c);
+            if (radix != NOT_TRANSFORMED) {
+                positions[n] = i;
+                radices[n] = radix;
+                digits[n] = c - base(c);
+                n++;
+            }
+        }
+        if (n == 0) {
+            return value;
+        }
+
+        /*
+        The numeral string X = A || B with |A| = u and |B| = v. Each round replaces A with A + F(B), digit by digit
+        modulo each digit's radix, then swaps the halves. The halves are tracked as offsets into the digits array:
+        after an even number of rounds they are back where they started.
+         */
+        final int u = n / 2;
+        final int[] next = context.next;
+        if (forward) {
+            for (int round = 0; round < ROUNDS; round++) {
+                feistelRound(context, digits, radices, next, n, u, round, true);
+            }
+        } else {
+            for (int round = ROUNDS - 1; round >= 0; round--) {
+                feistelRound(context, digits, radices, next, n, u, round, false);
+            }
+        }
+
+        final char[] result = value.toCharArray();
+        for (int i = 0; i < n; i++) {
+            result[positions[i]] = (char) (base(result[positions[i]]) + digits[i]);
+        }
+        return new String(result);
+    }
+
+    /**
+     * One Feistel round, in place over digits[0..n)
+     *
+     * Forward, with A = digits[0..m) and B = digits[m..n) where m is the length of A for this round:
+     *      (A, B) -> (B, A + F(round, B))
+     * Backward undoes it, with A and B the halves produced by the forward round:
+     *      (A, B) -> (B - F(round, A), A)
+     */
+    private void feistelRound(final Context context, final int[] digits, final int[] radices, final int[] next,
+                              final int n, final int u, final int round, final boolean forward) {
+        final int m = round % 2 == 0 ? u : n - u;
+        if (m == 0) {
+            return;
+        }
+
+        if (forward) {
+            // F is computed over B = digits[m..n) and added to A = digits[0..m)
+            final byte[] stream = roundFunction(context, digits, m, n, n, u, round, m);
+            for (int j = 0; j < m; j++) {
+                next[j] = (digits[j] + keyStream(stream, j) % radices[j]) % radices[j];
+            }
+            rotate(digits, radices, next, context.scratch, n, m);
+        } else {
+            // the forward round left (B, C) with |B| = n - m; C - F(B) recovers A
+            final int b = n - m;
+            final byte[] stream = roundFunction(context, digits, 0, b, n, u, round, m);
+            for (int j = 0; j < m; j++) {
+                next[j] = Math.floorMod(digits[b + j] - keyStream(stream, j) % radices[b + j], radices[b + j]);
+            }
+            unrotate(digits, radices, next, context.scratch, n, m);
+        }
+    }
+
+    /**
+     * After a forward round: digits = B || C where C = next[0..m), and the radices of C move with it
+     */
+    private static void rotate(final int[] digits, final int[] radices, final int[] next, final int[] scratch,
+                               final int n, final int m) {
+        final int b = n - m;
+        System.arraycopy(radices, 0, scratch, 0, m);
+        System.arraycopy(digits, m, digits, 0, b);
+        System.arraycopy(radices, m, radices, 0, b);
+        System.arraycopy(next, 0, digits, b, m);
+        System.arraycopy(scratch, 0, radices, b, m);
+    }
+
+    /**
+     * After a backward round: digits = A || B where A = next[0..m) and B was the first n - m digits
+     */
+    private static void unrotate(final int[] digits, final int[] radices, final int[] next, final int[] scratch,
+                                 final int n, final int m) {
+        final int b = n - m;
+        System.arraycopy(radices, b, scratch, 0, m);
+        System.arraycopy(digits, 0, digits, m, b);
+        System.arraycopy(radices, 0, radices, m, b);
+        System.arraycopy(next, 0, digits, 0, m);
+        System.arraycopy(scratch, 0, radices, 0, m);
+    }
+
+    /**
+     * F(round, B): CBC-MAC of header || tweak || B under the FPE key, stretched to at least 4 * m bytes by encrypting
+     * the MAC xor a counter, in the manner of FF1
+     */
+    private byte[] roundFunction(final Context context, final int[] digits, final int from, final int to,
+                                 final int n, final int u, final int round, final int m) {
+        final int length = BLOCK_SIZE + tweak.length + (to - from);
+        final int padded = (length + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+        if (context.message.length < padded) {
+            context.message = new byte[padded * 2];
+            context.encrypted = new byte[padded * 2];
+        }
+        final byte[] message = context.message;
+        Arrays.fill(message, 0, padded, (byte) 0);
+        message[0] = VERSION;
+        message[1] = (byte) round;
+        writeInt(message, 2, n);
+        writeInt(message, 6, u);
+        writeInt(message, 10, tweak.length);
+        System.arraycopy(tweak, 0, message, BLOCK_SIZE, tweak.length);
+        int offset = BLOCK_SIZE + tweak.length;
+        for (int i = from; i < to; i++) {
+            message[offset++] = (byte) digits[i];
+        }
+
+        encrypt(context, message, padded, context.encrypted);
+        final byte[] mac = context.mac16;
+        System.arraycopy(context.encrypted, padded - BLOCK_SIZE, mac, 0, BLOCK_SIZE);
+
+        final int streamLength = Math.max(BLOCK_SIZE, (4 * m + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE);
+        if (context.stream.length < streamLength) {
+            context.stream = new byte[streamLength * 2];
+        }
+        final byte[] stream = context.stream;
+        System.arraycopy(mac, 0, stream, 0, BLOCK_SIZE);
+        for (int j = 1; j * BLOCK_SIZE < streamLength; j++) {
+            System.arraycopy(mac, 0, context.block, 0, BLOCK_SIZE);
+            context.block[BLOCK_SIZE - 1] ^= (byte) j;
+            context.block[BLOCK_SIZE - 2] ^= (byte) (j >>> 8);
+            context.block[BLOCK_SIZE - 3] ^= (byte) (j >>> 16);
+            encrypt(context, context.block, BLOCK_SIZE, context.block);
+            System.arraycopy(context.block, 0, stream, j * BLOCK_SIZE, BLOCK_SIZE);
+        }
+        return stream;
+    }
+
+    private static int keyStream(final byte[] stream, final int j) {
+        final int i = 4 * j;
+        final int value = (stream[i] & 0xFF) << 24 | (stream[i + 1] & 0xFF) << 16 | (stream[i + 2] & 0xFF) << 8 | (stream[i + 3] & 0xFF);
+        return value & Integer.MAX_VALUE;
+    }
+
+    private void encrypt(final Context context, final byte[] input, final int length, final byte[] output) {
+        try {
+            context.cipher.doFinal(input, 0, length, output, 0);
+        } catch (ShortBufferException | IllegalBlockSizeException | BadPaddingException e) {
+            contexts.remove();
+            throw new IllegalStateException("Unable to compute the tokenization round function", e);
+        }
+    }
+
+    private static void writeInt(final byte[] bytes, final int offset, final int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int radix(final char c) {
+        if (c >= '0' && c <= '9') {
+            return 10;
+        } else if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) {
+            return 26;
+        } else {
+            return NOT_TRANSFORMED;
+        }
+    }
+
+    private static char base(final char c) {
+        if (c <= '9') {
+            return '0';
+        } else if (c <= 'Z') {
+            return 'A';
+        } else {
+            return 'a';
+        }
+    }
+
+    private Context newContext() {
+        try {
+            Mac threadMac = Mac.getInstance(HMAC_ALGORITHM);
+            threadMac.init(hmacKey);
+            CryptoCipher cipher = CryptoCipherFactory.getCryptoCipher(FPE_TRANSFORM, new Properties());
+            cipher.init(Cipher.ENCRYPT_MODE, fpeKey, new IvParameterSpec(new byte[BLOCK_SIZE]));
+            return new Context(threadMac, cipher);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialize the tokenization keys", e);
+        }
+    }
+}
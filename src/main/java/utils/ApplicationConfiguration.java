@@ -0,0 +1,72 @@
+package utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.configuration2.ImmutableHierarchicalConfiguration;
+import org.apache.commons.configuration2.YAMLConfiguration;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * application.yaml, read and parsed once per class loader and shared read-only by every class that needs a setting
+ *
+ * A missing or unreadable file is logged once and yields an empty configuration, so callers fall back to their own
+ * defaults exactly as they did when each of them read the file.
+ */
+@Slf4j
+public final class ApplicationConfiguration {
+
+    static final String RESOURCE = "application.yaml";
+
+    private static final class Loaded {
+        private static final ImmutableHierarchicalConfiguration INSTANCE = load();
+    }
+
+    private ApplicationConfiguration() {
+    }
+
+    /**
+     * @return the parsed application.yaml; the first call reads it
+     */
+    public static ImmutableHierarchicalConfiguration get() {
+        return Loaded.INSTANCE;
+    }
+
+    /**
+     * Parse a YAML file other than application.yaml, such as a masking policy kept next to the data
+     *
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not valid YAML
+     */
+    public static ImmutableHierarchicalConfiguration read(final Path file) throws IOException, IllegalArgumentException {
+        final YAMLConfiguration yamlConfiguration = new YAMLConfiguration();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            yamlConfiguration.read(reader);
+        } catch (ConfigurationException e) {
+            String message = String.format("The file [%s] is not valid YAML", file);
+            throw new IllegalArgumentException(message, e);
+        }
+        return yamlConfiguration;
+    }
+
+    private static ImmutableHierarchicalConfiguration load() {
+        final YAMLConfiguration yamlConfiguration = new YAMLConfiguration();
+        final URL url = ApplicationConfiguration.class.getClassLoader().getResource(RESOURCE);
+        if (url == null) {
+            log.info("{} was not found on the classpath. Using hardcoded defaults.", RESOURCE);
+            return yamlConfiguration;
+        }
+        try (InputStream inputStream = url.openStream()) {
+            yamlConfiguration.read(inputStream);
+        } catch (ConfigurationException | IOException e) {
+            log.info("Unable to read {}. Using hardcoded defaults.", RESOURCE, e);
+        }
+        return yamlConfiguration;
+    }
+}
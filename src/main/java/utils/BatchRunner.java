@@ -0,0 +1,307 @@
+package utils;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Mask every file of a directory that FileUtils selects into a target directory, and pick up where a previous run
+ * stopped
+ *
+ * Files are masked by a fixed pool of worker threads. Small files are packed into tasks of about packSize bytes so
+ * thousands of tiny files do not cost a task each, while files of largeFileSize bytes or more are split into chunks
+ * and masked by the whole pool (see MaskingPipeline.mask(Path, Path, ExecutorService)).
+ *
+ * Every finished file is appended to a checkpoint file together with the size and modification time of its source.
+ * A later run skips the files the checkpoint lists unless their source has changed or their target is missing, so a
+ * run that crashed or failed on some files can simply be started again.
+ *
+ * <pre>
+ *     BatchRunner.builder()
+ *             .directory("/data/extracts")
+ *             .extension("csv")
+ *             .targetDirectory(Paths.get("/data/masked"))
+ *             .pipeline(pipeline)
+ *             .threads(8)
+ *             .build()
+ *             .run();
+ * </pre>
+ */
+@Slf4j
+public class BatchRunner {
+
+    static final String DEFAULT_CHECKPOINT = ".checkpoint";
+    static final long DEFAULT_LARGE_FILE_SIZE = 256L * 1024 * 1024;
+    static final long DEFAULT_PACK_SIZE = 64L * 1024 * 1024;
+
+    private final Path directory;
+    private final List<String> fileNames;
+    private final Path targetDirectory;
+    private final MaskingPipeline pipeline;
+    private final Path checkpoint;
+    private final int threads;
+    private final long largeFileSize;
+    private final long packSize;
+
+    /**
+     * @param directory source directory, as for FileUtils.FileParameters
+     * @param nameContains optional pattern the source file names must contain
+     * @param extension optional extension of the source files
+     * @param targetDirectory where masked files are written under their source names; created if missing, and
+     *                        must not be the source directory
+     * @param pipeline masking applied to every file; its operations must be thread safe
+     * @param checkpoint file listing the finished files; defaults to .checkpoint in the target directory
+     * @param threads worker threads; defaults to the number of processors
+     * @param largeFileSize files at least this large are split across the workers; defaults to 256MB
+     * @param packSize smaller files are grouped into tasks of about this many bytes; defaults to 64MB
+     * @throws IllegalArgumentException if the source directory is invalid or is also the target directory
+     */
+    @Builder
+    private BatchRunner(final String directory,
+                        final String nameContains,
+                        final String extension,
+                        @NonNull final Path targetDirectory,
+                        @NonNull final MaskingPipeline pipeline,
+                        final Path checkpoint,
+                        final int threads,
+                        final long largeFileSize,
+                        final long packSize) throws IllegalArgumentException {
+        final FileUtils fileUtils = new FileUtils(FileUtils.FileParameters.builder()
+                .directory(directory)
+                .nameContains(nameContains)
+                .extension(extension)
+                .build());
+
+        this.directory = Paths.get(directory);
+        if (this.directory.toAbsolutePath().normalize().equals(targetDirectory.toAbsolutePath().normalize())) {
+            String message = String.format("The target directory [%s] must differ from the source directory", targetDirectory);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.fileNames = fileUtils.getFileNames().stream().sorted().collect(Collectors.toList());
+        this.targetDirectory = targetDirectory;
+        this.pipeline = pipeline;
+        this.checkpoint = checkpoint != null ? checkpoint : targetDirectory.resolve(DEFAULT_CHECKPOINT);
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.largeFileSize = largeFileSize > 0 ? largeFileSize : DEFAULT_LARGE_FILE_SIZE;
+        this.packSize = packSize > 0 ? packSize : DEFAULT_PACK_SIZE;
+    }
+
+    /**
+     * Mask every selected file that the checkpoint does not list as finished
+     *
+     * A file that fails is logged and left out of the checkpoint; the others are still masked.
+     *
+     * @return number of data records masked by this run
+     * @throws IOException if the target directory or the checkpoint cannot be written
+     * @throws IllegalArgumentException if any file could not be masked; the message names them all
+     */
+    public long run() throws IOException, IllegalArgumentException {
+        Files.createDirectories(targetDirectory);
+        final Map<String, String> finished = readCheckpoint();
+
+        final List<Path> small = new ArrayList<>();
+        final List<Path> large = new ArrayList<>();
+        long skipped = 0;
+        for (String fileName : fileNames) {
+            final Path source = directory.resolve(fileName);
+            if (signature(source).equals(finished.get(fileName)) && Files.exists(targetDirectory.resolve(fileName))) {
+                skipped++;
+            } else if (Files.size(source) >= largeFileSize) {
+                large.add(source);
+            } else {
+                small.add(source);
+            }
+        }
+        log.info("Masking {} small and {} large files from {} into {}; {} already done", small.size(), large.size(),
+                directory, targetDirectory, skipped);
+
+        final List<String> failed = new ArrayList<>();
+        long records = 0;
+
+        endLastRecord();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (FileChannel checkpointChannel = FileChannel.open(checkpoint, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            final List<List<Path>> packs = pack(small);
+            final List<Future<Long>> results = new ArrayList<>();
+            for (List<Path> pack : packs) {
+                results.add(executor.submit(() -> {
+                    long packRecords = 0;
+                    for (Path source : pack) {
+                        packRecords += maskFile(source, failed, checkpointChannel, null);
+                    }
+                    return packRecords;
+                }));
+            }
+
+            // large files are split from this thread so their chunks queue behind the packs instead of blocking workers
+            for (Path source : large) {
+                records += maskFile(source, failed, checkpointChannel, executor);
+            }
+
+            for (Future<Long> result : results) {
+                records += result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(String.format("Interrupted while masking %s", directory));
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (!failed.isEmpty()) {
+            String message = String.format("Unable to mask %d files from [%s]: %s", failed.size(), directory, failed);
+            throw new IllegalArgumentException(message);
+        }
+        log.info("Masked {} records from {} files in {}", records, small.size() + large.size(), directory);
+        return records;
+    }
+
+    /**
+     * Group files, in order, into lists of about packSize bytes
+     */
+    private List<List<Path>> pack(final List<Path> files) throws IOException {
+        final List<List<Path>> packs = new ArrayList<>();
+        List<Path> pack = new ArrayList<>();
+        long bytes = 0;
+        for (Path file : files) {
+            pack.add(file);
+            bytes += Files.size(file);
+            if (bytes >= packSize) {
+                packs.add(pack);
+                pack = new ArrayList<>();
+                bytes = 0;
+            }
+        }
+        if (!pack.isEmpty()) {
+            packs.add(pack);
+        }
+        return packs;
+    }
+
+    /**
+     * Mask one file, on this thread or split across the executor, and record it in the checkpoint
+     *
+     * @return number of data records masked, 0 if the file failed
+     */
+    private long maskFile(final Path source, final List<String> failed, final FileChannel checkpointChannel,
+                          final ExecutorService executor) throws IOException {
+        final String fileName = source.getFileName().toString();
+        final String signature = signature(source);
+        final Path target = targetDirectory.resolve(fileName);
+        final long records;
+        try {
+            records = executor == null ? pipeline.mask(source, target) : pipeline.mask(source, target, executor);
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Unable to mask {}", source, e);
+            synchronized (failed) {
+                failed.add(fileName);
+            }
+            return 0;
+        }
+        writeCheckpoint(checkpointChannel, fileName, signature, records);
+        return records;
+    }
+
+    /**
+     * @return size and modification time of the file, which change whenever it is rewritten
+     */
+    private static String signature(final Path file) throws IOException {
+        return Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis();
+    }
+
+    /**
+     * Append one finished file to the checkpoint and force it to disk, so a crash never loses a finished file
+     */
+    private synchronized void writeCheckpoint(final FileChannel channel, final String fileName, final String signature,
+                                              final long records) throws IOException {
+        final StringWriter line = new StringWriter();
+        final DelimitedWriter writer = new DelimitedWriter(line, ',');
+        writer.field(fileName);
+        writer.field(signature);
+        writer.field(Long.toString(records));
+        writer.endRecord();
+
+        final ByteBuffer bytes = StandardCharsets.UTF_8.encode(line.toString());
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Terminate a record cut short by a crash, so the next one starts on a line of its own
+     */
+    private void endLastRecord() throws IOException {
+        if (!Files.exists(checkpoint)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(checkpoint, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final long size = channel.size();
+            final ByteBuffer last = ByteBuffer.allocate(1);
+            if (size > 0 && channel.read(last, size - 1) == 1 && last.get(0) != '\n') {
+                channel.write(ByteBuffer.wrap(new byte[]{'\n'}), size);
+            }
+        }
+    }
+
+    /**
+     * @return signatures of the finished files by name. A record cut short by a crash is ignored.
+     */
+    private Map<String, String> readCheckpoint() throws IOException {
+        final Map<String, String> finished = new HashMap<>();
+        if (!Files.exists(checkpoint)) {
+            return finished;
+        }
+
+        try (Reader source = Files.newBufferedReader(checkpoint, StandardCharsets.UTF_8);
+             DelimitedReader reader = new DelimitedReader(source, ',')) {
+            final List<String> fields = new ArrayList<>();
+            while (reader.next()) {
+                fields.add(reader.field().toString());
+                if (reader.endOfRecord()) {
+                    if (fields.size() == 3 && isNumber(fields.get(2))) {
+                        finished.put(fields.get(0), fields.get(1));
+                    }
+                    fields.clear();
+                }
+            }
+        }
+        return finished;
+    }
+
+    private static boolean isNumber(final String value) {
+        return !value.isEmpty() && value.chars().allMatch(Character::isDigit);
+    }
+}
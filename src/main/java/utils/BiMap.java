@@ -17,12 +17,12 @@ public class BiMap<K, V> extends HashMap<K, V> {
 
     @Override
     public int size() {
-        return this.size();
+        return super.size();
     }
 
     @Override
     public boolean isEmpty() {
-        return this.size() > 0;
+        return super.isEmpty();
     }
 
     @Override
@@ -34,7 +34,11 @@ public class BiMap<K, V> extends HashMap<K, V> {
 
     @Override
     public V put(K key, V value) {
+        V previous = super.put(key, value);
+        if (previous != null) {
+            inverseMap.remove(previous);
+        }
         inverseMap.put(value, key);
-        return super.put(key, value);
+        return previous;
     }
 }
@@ -0,0 +1,160 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Dictionary encoding of a column chunk: its distinct values once each, and an int code per row
+ *
+ * Row i of the last chunk encoded is distinct()[code(i)], or null if code(i) is NULL. Distinct values are kept in
+ * order of first appearance and are the caller's own CharSequences, not copies, so they are only valid while the
+ * chunk is. Entries past size() are null, so a dictionary does not keep the values of an earlier chunk alive. Values
+ * are compared by content, so a String and a StringBuilder with the same characters share a code.
+ *
+ * The lookup table is open-addressed over int arrays and every array is reused by the next chunk, so encoding
+ * allocates nothing once the dictionary has seen its largest chunk. Not thread-safe; keep one per thread.
+ */
+public final class ColumnDictionary {
+
+    /**
+     * Code of a null row
+     */
+    public static final int NULL = -1;
+
+    private static final int EMPTY = 0;
+
+    private CharSequence[] distinct = new CharSequence[16];
+    private int[] hashes = new int[16];
+    private int[] codes = new int[16];
+    // code + 1 of the distinct value hashed to each slot, or EMPTY
+    private int[] slots = new int[32];
+    private int size;
+    private int rows;
+
+    /**
+     * Encode values[from, to), replacing the previous chunk
+     *
+     * @return the number of distinct non-null values
+     * @throws IndexOutOfBoundsException if the range is outside the values
+     */
+    public int encode(final CharSequence[] values, final int from, final int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        rows = to - from;
+        final int previousSize = size;
+        size = 0;
+        if (codes.length < rows) {
+            codes = new int[rows];
+        }
+        // keep the table at most half full even if every value is distinct
+        final int tableSize = Math.max(32, Integer.highestOneBit(Math.max(rows, 1)) << 2);
+        if (slots.length < tableSize) {
+            slots = new int[tableSize];
+        } else {
+            Arrays.fill(slots, EMPTY);
+        }
+
+        final int mask = slots.length - 1;
+        for (int i = from; i < to; i++) {
+            final CharSequence value = values[i];
+            if (value == null) {
+                codes[i - from] = NULL;
+                continue;
+            }
+            final int hash = hash(value);
+            int slot = spread(hash) & mask;
+            int code;
+            while (true) {
+                final int entry = slots[slot];
+                if (entry == EMPTY) {
+                    code = add(value, hash);
+                    slots[slot] = code + 1;
+                    break;
+                }
+                if (hashes[entry - 1] == hash && contentEquals(distinct[entry - 1], value)) {
+                    code = entry - 1;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            codes[i - from] = code;
+        }
+        // drop the values of the previous chunk that this one did not overwrite, so they can be collected
+        if (size < previousSize) {
+            Arrays.fill(distinct, size, previousSize, null);
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of distinct non-null values of the chunk
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of rows of the chunk
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * @return the code of a row of the chunk, counted from its first row, or NULL
+     */
+    public int code(final int row) {
+        return codes[Objects.checkIndex(row, rows)];
+    }
+
+    /**
+     * @return the distinct values in entries [0, size()); the backing array, reused by the next chunk
+     */
+    public CharSequence[] distinct() {
+        return distinct;
+    }
+
+    private int add(final CharSequence value, final int hash) {
+        if (size == distinct.length) {
+            distinct = Arrays.copyOf(distinct, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        distinct[size] = value;
+        hashes[size] = hash;
+        return size++;
+    }
+
+    /**
+     * String.hashCode over any CharSequence; Strings use their cached hash
+     */
+    private static int hash(final CharSequence value) {
+        if (value instanceof String) {
+            return value.hashCode();
+        }
+        int h = 0;
+        for (int i = 0; i < value.length(); i++) {
+            h = 31 * h + value.charAt(i);
+        }
+        return h;
+    }
+
+    private static int spread(final int hash) {
+        final int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean contentEquals(final CharSequence a, final CharSequence b) {
+        if (a == b) {
+            return true;
+        }
+        final int length = a.length();
+        if (length != b.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,49 @@
+package utils;
+
+import java.util.Objects;
+
+/**
+ * A masking operation applied to a column of values at a time
+ *
+ * FieldMasker is called once per field, so every value pays the dispatch, the parameter checks and any per-thread
+ * lookups of its operation. A ColumnMasker does that work once per batch and then runs a plain loop over the values,
+ * which the JIT can unroll; operations that work character by character write into the output buffer directly.
+ *
+ * Null values become null rows. Each masker appends exactly one row to the output per value, in order, so masked row
+ * masked.size() - (to - from) + i belongs to values[from + i].
+ */
+@FunctionalInterface
+public interface ColumnMasker {
+
+    /**
+     * @param values the column; entries may be null
+     * @param from index of the first value to mask (inclusive)
+     * @param to index of the last value to mask (exclusive)
+     * @param masked buffer the masked values are appended to
+     * @throws IndexOutOfBoundsException if the range is outside the values
+     */
+    void mask(CharSequence[] values, int from, int to, MaskedColumn masked);
+
+    default void mask(final CharSequence[] values, final MaskedColumn masked) {
+        mask(values, 0, values.length, masked);
+    }
+
+    /**
+     * Apply a per-field masker to every non-null value of the batch, for operations without a column form
+     */
+    static ColumnMasker of(final FieldMasker masker) {
+        return (values, from, to, masked) -> {
+            Objects.checkFromToIndex(from, to, values.length);
+            final StringBuilder field = new StringBuilder();
+            for (int i = from; i < to; i++) {
+                if (values[i] == null) {
+                    masked.appendNull();
+                } else {
+                    field.setLength(0);
+                    masker.mask(values[i], field);
+                    masked.append(field);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed ring of ints handed out round robin to any number of threads
+ *
+ * The values never change after construction, so threads only share the cursor: next() advances it with one atomic
+ * increment (no lock, no compare-and-set retry loop) and reads the value it lands on. Every value is handed out once
+ * before any is handed out again, whichever threads ask. contains() is a binary search of a sorted copy.
+ */
+public final class ConcurrentIntRing {
+
+    private final int[] values;
+    private final int[] sorted;
+    private final AtomicLong cursor = new AtomicLong();
+
+    /**
+     * @param values the ring, in order; copied
+     * @throws IllegalArgumentException if there are no values
+     */
+    public ConcurrentIntRing(final int[] values) throws IllegalArgumentException {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("A ring needs at least one value");
+        }
+        this.values = values.clone();
+        this.sorted = values.clone();
+        Arrays.sort(sorted);
+    }
+
+    /**
+     * The values of a ring, in its current order
+     *
+     * @throws IllegalArgumentException if the ring is empty
+     */
+    public static ConcurrentIntRing of(final IntRing ring) throws IllegalArgumentException {
+        return new ConcurrentIntRing(ring.toArray());
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean contains(final int value) {
+        return Arrays.binarySearch(sorted, value) >= 0;
+    }
+
+    /**
+     * @return the value after the one handed out last, by any thread, starting with the first
+     */
+    public int next() {
+        // a long cursor does not wrap in practice, so the order never skips at overflow
+        return values[(int) (cursor.getAndIncrement() % values.length)];
+    }
+
+    public int get(final int position) {
+        return values[position];
+    }
+}
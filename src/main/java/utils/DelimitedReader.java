@@ -0,0 +1,196 @@
+package utils;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Pull parser for delimited text (CSV and friends) that never holds more than one buffer and one field in memory
+ *
+ * Each call to next() advances to the following field. The field is exposed as a CharSequence backed by a reused
+ * builder, so it is only valid until the next call; take a copy (toString) if it has to outlive that. Fields may be
+ * quoted with double quotes, in which case they can contain the separator, line breaks and doubled quotes ("").
+ * Records end with \n, \r\n or \r. A final record without a trailing line break is still returned.
+ */
+public class DelimitedReader implements FieldReader {
+
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final char QUOTE = '"';
+    private static final int END_OF_INPUT = -1;
+
+    private final Reader source;
+    private final char separator;
+    private final char[] buffer;
+    private int position;
+    private int limit;
+
+    private final StringBuilder field = new StringBuilder();
+    private int column = -1;
+    private long record = 0;
+    private boolean endOfRecord = true;
+    private boolean endOfInput = false;
+
+    public DelimitedReader(final Reader source, final char separator) {
+        this(source, separator, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param source characters to parse. It is read in chunks of bufferSize, so it does not need to be buffered.
+     * @param separator field separator, must not be a quote or a line break
+     * @param bufferSize number of characters read from the source at a time
+     * @throws IllegalArgumentException if the separator or buffer size cannot be used
+     */
+    public DelimitedReader(final Reader source, final char separator, final int bufferSize) throws IllegalArgumentException {
+        if (separator == QUOTE || separator == '\n' || separator == '\r') {
+            throw new IllegalArgumentException("The field separator cannot be a quote or a line break");
+        }
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("The buffer size must be greater than zero");
+        }
+        this.source = source;
+        this.separator = separator;
+        this.buffer = new char[bufferSize];
+    }
+
+    /**
+     * Convert the String form of a field separator (as found in FileUtils.FileParameters) to a single character
+     *
+     * @param fieldSeparator separator; null falls back to a comma like FileUtils does
+     * @return the separator character
+     * @throws IllegalArgumentException if the separator is not exactly one character
+     */
+    public static char separator(final String fieldSeparator) throws IllegalArgumentException {
+        if (fieldSeparator == null) {
+            return ',';
+        }
+        if (fieldSeparator.length() != 1) {
+            String message = String.format("The field separator [%s] must be a single character", fieldSeparator);
+            throw new IllegalArgumentException(message);
+        }
+        return fieldSeparator.charAt(0);
+    }
+
+    /**
+     * Advance to the next field
+     *
+     * @return false once the input is exhausted, true if field(), column() and record() describe a new field
+     * @throws IOException if the source cannot be read
+     */
+    @Override
+    public boolean next() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+
+        int c = read();
+        if (c == END_OF_INPUT && endOfRecord) {
+            endOfInput = true;
+            return false;
+        }
+
+        if (endOfRecord) {
+            record++;
+            column = 0;
+        } else {
+            column++;
+        }
+        field.setLength(0);
+
+        if (c == QUOTE) {
+            c = readQuoted();
+        }
+        while (c != END_OF_INPUT && c != separator && c != '\n' && c != '\r') {
+            field.append((char) c);
+            c = read();
+        }
+
+        if (c == '\r' && peek() == '\n') {
+            position++;
+        }
+        endOfRecord = c != separator;
+        endOfInput = c == END_OF_INPUT;
+        return true;
+    }
+
+    /**
+     * @return the current field without its surrounding quotes. Only valid until the next call to next().
+     */
+    @Override
+    public CharSequence field() {
+        return field;
+    }
+
+    /**
+     * @return zero-based position of the current field within its record
+     */
+    @Override
+    public int column() {
+        return column;
+    }
+
+    /**
+     * @return one-based number of the record holding the current field
+     */
+    @Override
+    public long record() {
+        return record;
+    }
+
+    /**
+     * @return true if the current field is the last one of its record
+     */
+    @Override
+    public boolean endOfRecord() {
+        return endOfRecord;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /**
+     * Consume a quoted section, the opening quote having been read already
+     *
+     * @return the first character after the closing quote
+     */
+    private int readQuoted() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == END_OF_INPUT) {
+                return c;
+            }
+            if (c == QUOTE) {
+                if (peek() != QUOTE) {
+                    return read();
+                }
+                position++;
+            }
+            field.append((char) c);
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return END_OF_INPUT;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return END_OF_INPUT;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = source.read(buffer, 0, buffer.length);
+        while (read == 0) {
+            read = source.read(buffer, 0, buffer.length);
+        }
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+}
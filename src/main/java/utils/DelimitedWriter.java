@@ -0,0 +1,76 @@
+package utils;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Counterpart of DelimitedReader: writes fields one at a time, quoting only the ones that need it
+ *
+ * A field is quoted when it contains the separator, a quote or a line break. Records are terminated with \n.
+ */
+public class DelimitedWriter implements Closeable, Flushable {
+
+    private static final char QUOTE = '"';
+
+    private final Writer target;
+    private final char separator;
+    private boolean startOfRecord = true;
+
+    /**
+     * @param target destination of the delimited text. Fields are written piecewise, so it should be buffered.
+     * @param separator field separator
+     */
+    public DelimitedWriter(final Writer target, final char separator) {
+        this.target = target;
+        this.separator = separator;
+    }
+
+    public void field(final CharSequence value) throws IOException {
+        if (!startOfRecord) {
+            target.write(separator);
+        }
+        startOfRecord = false;
+
+        if (!needsQuotes(value)) {
+            target.append(value);
+            return;
+        }
+
+        target.write(QUOTE);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == QUOTE) {
+                target.write(QUOTE);
+            }
+            target.write(c);
+        }
+        target.write(QUOTE);
+    }
+
+    public void endRecord() throws IOException {
+        target.write('\n');
+        startOfRecord = true;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        target.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        target.close();
+    }
+
+    private boolean needsQuotes(final CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == separator || c == QUOTE || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
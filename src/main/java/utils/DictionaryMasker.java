@@ -0,0 +1,58 @@
+package utils;
+
+import java.util.Objects;
+
+/**
+ * Mask a column through its dictionary: each distinct value of a batch is masked once and the rows are rebuilt from
+ * their codes
+ *
+ * Columns such as state, gender or zip code hold a handful of distinct values over millions of rows. Encoding a batch
+ * with a ColumnDictionary costs a hash probe per row; the wrapped masker then runs only over the distinct values, and
+ * every row copies the characters of its masked value. Encryption of a state column becomes some fifty encryptions
+ * per batch whatever its size.
+ *
+ * Every occurrence of a value within a batch gets the same masked value, including with random operations such as
+ * substitution or perturbation, so rows that agreed before masking still agree after it. Batches are encoded
+ * independently, so a random operation may mask a value differently in the next batch.
+ *
+ * When most values of a batch are distinct the encoding is pure overhead; wrap only columns that repeat. Each thread
+ * keeps its own dictionary and buffer, so a DictionaryMasker can be shared as long as the wrapped masker can.
+ */
+public final class DictionaryMasker implements ColumnMasker {
+
+    private final ColumnMasker masker;
+    private final ThreadLocal<ColumnDictionary> dictionaries = ThreadLocal.withInitial(ColumnDictionary::new);
+    private final ThreadLocal<MaskedColumn> distinctMasked = ThreadLocal.withInitial(MaskedColumn::new);
+
+    /**
+     * @param masker masks the distinct values; it must append one row per value, as every ColumnMasker does
+     */
+    public DictionaryMasker(final ColumnMasker masker) {
+        this.masker = Objects.requireNonNull(masker);
+    }
+
+    /**
+     * @throws IllegalStateException if the wrapped masker does not append one row per distinct value
+     */
+    @Override
+    public void mask(final CharSequence[] values, final int from, final int to, final MaskedColumn masked) {
+        final ColumnDictionary dictionary = dictionaries.get();
+        final int size = dictionary.encode(values, from, to);
+        final MaskedColumn distinct = distinctMasked.get();
+        distinct.clear();
+        masker.mask(dictionary.distinct(), 0, size, distinct);
+        if (distinct.size() != size) {
+            String message = String.format("The masker returned %d rows for %d distinct values", distinct.size(), size);
+            throw new IllegalStateException(message);
+        }
+
+        for (int row = 0; row < dictionary.rows(); row++) {
+            final int code = dictionary.code(row);
+            if (code == ColumnDictionary.NULL) {
+                masked.appendNull();
+            } else {
+                masked.append(distinct, code);
+            }
+        }
+    }
+}
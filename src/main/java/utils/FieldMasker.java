@@ -0,0 +1,36 @@
+package utils;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * A masking operation applied to one field of a delimited record
+ *
+ * Implementations append the masked value to the builder they are given instead of returning a new String, so
+ * operations that work character by character (like redaction) can run without allocating.
+ */
+@FunctionalInterface
+public interface FieldMasker {
+
+    /**
+     * Copies the field unchanged
+     */
+    FieldMasker PASS_THROUGH = (value, masked) -> masked.append(value);
+
+    /**
+     * @param value the original field. It may be backed by a reused buffer, so it must not be retained.
+     * @param masked builder the masked field is appended to
+     */
+    void mask(CharSequence value, StringBuilder masked);
+
+    /**
+     * Adapt a String-to-String operation. A null result is written as an empty field.
+     */
+    static FieldMasker of(final UnaryOperator<String> operation) {
+        return (value, masked) -> {
+            String result = operation.apply(value.toString());
+            if (result != null) {
+                masked.append(result);
+            }
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A pull parser that walks delimited input one field at a time
+ *
+ * The field returned by field() may be backed by a reused buffer or by the input itself, so it is only valid until
+ * the next call to next(); take a copy (toString) if it has to outlive that.
+ */
+public interface FieldReader extends Closeable {
+
+    /**
+     * Advance to the next field
+     *
+     * @return false once the input is exhausted, true if field(), column() and record() describe a new field
+     * @throws IOException if the input cannot be read
+     */
+    boolean next() throws IOException;
+
+    /**
+     * @return the current field without its surrounding quotes. Only valid until the next call to next().
+     */
+    CharSequence field();
+
+    /**
+     * @return zero-based position of the current field within its record
+     */
+    int column();
+
+    /**
+     * @return one-based number of the record holding the current field
+     */
+    long record();
+
+    /**
+     * @return true if the current field is the last one of its record
+     */
+    boolean endOfRecord();
+}
@@ -32,6 +32,9 @@ class FileUtils {
     @Getter
     private Set<String> fileNames;
 
+    private final Path directory;
+    private final String fieldSeparator;
+
     /**
      * Provide a directory location and (optionally) file name patterns and/or extensions to be uploaded
      *
@@ -44,19 +47,49 @@ class FileUtils {
      * @throws IllegalArgumentException is thrown if the directory is null, empty or invalid
      */
     FileUtils(@NonNull final FileParameters fileParameters) throws IllegalArgumentException {
-        final String directory = validDirectory(fileParameters.getDirectory());
+        this(Paths.get(validDirectory(fileParameters.getDirectory())), fileParameters);
+    }
+
+    /**
+     * List a directory given as a Path, which may belong to another file system (such as a directory inside a jar on
+     * the classpath); the directory of the file parameters is ignored
+     *
+     * @throws IllegalArgumentException is thrown if the directory does not exist
+     */
+    FileUtils(@NonNull final Path directory, @NonNull final FileParameters fileParameters) throws IllegalArgumentException {
+        if (!Files.isDirectory(directory)) {
+            String message = String.format("The directory [%s] has not been found", directory);
+            throw new IllegalArgumentException(message);
+        }
         final String nameContains = validNameContains(fileParameters.getNameContains());
         final String extension = validExtension(fileParameters.getExtension());
         final String fieldSeparator = validFieldSeparator(fileParameters.getFieldSeparator());
 
         fileNames = buildList(directory, nameContains, extension);
         count = fileNames.size();
+        this.directory = directory;
+        this.fieldSeparator = fieldSeparator;
 
         assert count >= 0;
         assert count == fileNames.size();
     }
 
-    private String validDirectory(final String directory) throws IllegalArgumentException {
+    /**
+     * Memory-map one of the listed files for parsing with the configured field separator
+     *
+     * @param fileName one of getFileNames()
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalArgumentException if the file was not listed or the field separator is not a single character
+     */
+    MappedDelimitedReader map(final String fileName) throws IOException, IllegalArgumentException {
+        if (!fileNames.contains(fileName)) {
+            String message = String.format("The file [%s] is not in the directory [%s]", fileName, directory);
+            throw new IllegalArgumentException(message);
+        }
+        return new MappedDelimitedReader(directory.resolve(fileName), DelimitedReader.separator(fieldSeparator));
+    }
+
+    private static String validDirectory(final String directory) throws IllegalArgumentException {
         if (directory == null || directory.isBlank() || !Files.exists(Path.of(directory)) || !Files.isDirectory(Path.of(directory))) {
             String message = String.format("The directory [%s] has not been found", directory);
             throw new IllegalArgumentException(message);
@@ -91,8 +124,8 @@ class FileUtils {
         }
     }
 
-    private Set<String> buildList(final String directory, final String prefix, final String extension) throws IllegalArgumentException {
-        try (Stream<Path> stream = Files.walk(Paths.get(directory), 1)) {
+    private Set<String> buildList(final Path directory, final String prefix, final String extension) throws IllegalArgumentException {
+        try (Stream<Path> stream = Files.walk(directory, 1)) {
             return stream
                     .filter(file -> !Files.isDirectory(file))
                     .filter(file -> file.getFileName().toString().contains(prefix))
@@ -0,0 +1,217 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * Circular sequence of ints in a growable int[], handed out round robin by next()
+ *
+ * The values sit next to each other in one array, so walking the ring reads memory in order and adding a value
+ * allocates nothing until the array has to grow. next() returns the values in ring order and wraps back to the first
+ * one after the last.
+ *
+ * Without an index, contains and delete scan the array. An indexed ring also keeps an open-addressed hash table from
+ * value to position, which makes both O(1); its values are distinct, so adding a value it already holds does nothing.
+ * Deleting moves the last value into the freed position, so the ring order is the insertion order only until the
+ * first delete.
+ *
+ * Not thread-safe; ConcurrentIntRing hands out a fixed set of values from any number of threads.
+ */
+public class IntRing {
+
+    private static final int EMPTY = 0;
+
+    private int[] values;
+    private int size;
+    private int cursor;
+    // position + 1 of the value hashed to each slot, or EMPTY; null if the ring is not indexed
+    private int[] slots;
+
+    public IntRing() {
+        this(16, false);
+    }
+
+    /**
+     * @param capacity number of values to make room for
+     * @param indexed whether to keep a hash index for contains and delete
+     */
+    public IntRing(final int capacity, final boolean indexed) {
+        this.values = new int[Math.max(capacity, 1)];
+        this.slots = indexed ? new int[tableSize(values.length)] : null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isIndexed() {
+        return slots != null;
+    }
+
+    /**
+     * Add a value at the end of the ring
+     *
+     * @return false if the ring is indexed and already holds the value
+     */
+    public boolean add(final int value) {
+        if (slots != null && slot(value) >= 0) {
+            return false;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+        if (slots != null) {
+            if (size * 2 > slots.length) {
+                rehash(tableSize(values.length));
+            } else {
+                insert(size - 1);
+            }
+        }
+        return true;
+    }
+
+    public boolean contains(final int value) {
+        return position(value) >= 0;
+    }
+
+    /**
+     * Remove the first occurrence of the value, replacing it with the last value of the ring
+     *
+     * @return whether the ring held the value
+     */
+    public boolean delete(final int value) {
+        final int position = position(value);
+        if (position < 0) {
+            return false;
+        }
+        final int last = size - 1;
+        if (slots != null) {
+            remove(slot(value));
+            if (position != last) {
+                slots[slot(values[last])] = position + 1;
+            }
+        }
+        values[position] = values[last];
+        size = last;
+        if (cursor >= size) {
+            cursor = 0;
+        }
+        return true;
+    }
+
+    /**
+     * @return the value after the one returned last time, starting with the first and wrapping around
+     * @throws IllegalStateException if the ring is empty
+     */
+    public int next() throws IllegalStateException {
+        if (size == 0) {
+            throw new IllegalStateException("The ring is empty");
+        }
+        final int value = values[cursor];
+        cursor = cursor + 1 == size ? 0 : cursor + 1;
+        return value;
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if the position is not in the ring
+     */
+    public int get(final int position) throws IndexOutOfBoundsException {
+        return values[Objects.checkIndex(position, size)];
+    }
+
+    /**
+     * Pass every value to the action once, in ring order from the first; the cursor of next() does not move
+     */
+    public void forEach(final IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * @return the position of the first occurrence of the value, or -1
+     */
+    private int position(final int value) {
+        if (slots != null) {
+            final int slot = slot(value);
+            return slot < 0 ? -1 : slots[slot] - 1;
+        }
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the slot of the index that holds the value, or -1
+     */
+    private int slot(final int value) {
+        final int mask = slots.length - 1;
+        for (int slot = hash(value) & mask; ; slot = (slot + 1) & mask) {
+            final int entry = slots[slot];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (values[entry - 1] == value) {
+                return slot;
+            }
+        }
+    }
+
+    private void insert(final int position) {
+        final int mask = slots.length - 1;
+        int slot = hash(values[position]) & mask;
+        while (slots[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = position + 1;
+    }
+
+    /**
+     * Empty a slot, moving later entries of the same probe run back so that every entry stays reachable from its
+     * home slot without tombstones
+     */
+    private void remove(final int slot) {
+        final int mask = slots.length - 1;
+        int hole = slot;
+        for (int i = (slot + 1) & mask; slots[i] != EMPTY; i = (i + 1) & mask) {
+            final int home = hash(values[slots[i] - 1]) & mask;
+            // an entry whose home is cyclically in (hole, i] is already as close to it as it can be
+            final boolean stays = hole <= i ? hole < home && home <= i : hole < home || home <= i;
+            if (!stays) {
+                slots[hole] = slots[i];
+                hole = i;
+            }
+        }
+        slots[hole] = EMPTY;
+    }
+
+    private void rehash(final int length) {
+        slots = new int[length];
+        for (int position = 0; position < size; position++) {
+            insert(position);
+        }
+    }
+
+    // keep the index at most half full
+    private static int tableSize(final int capacity) {
+        return Integer.highestOneBit(capacity) << 2;
+    }
+
+    private static int hash(final int value) {
+        final int h = value * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
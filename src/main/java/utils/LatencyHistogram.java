@@ -0,0 +1,134 @@
+package utils;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent histogram of latencies in nanoseconds with a bounded relative error, in the style of HdrHistogram
+ *
+ * Values below 32 have a bucket each. Above that every power of two is split into 16 buckets, so a percentile is
+ * reported at most 1/16 (6.25%) above the value that was recorded, whatever its magnitude. Values of 2^36 ns (about
+ * 69 seconds) or more share the last bucket, which reports max(); max() itself stays exact. Each bucket is a
+ * LongAdder, so threads recording at the same time update their own cells instead of contending for one counter.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    private static final int LINEAR_BITS = SUB_BUCKET_BITS + 1;
+    private static final int MAX_EXPONENT = 35;
+    private static final long MAX_TRACKED = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKETS = index(MAX_TRACKED) + 1;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param nanos latency; negative values (a clock going backwards) are counted as 0
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(nanos, 0);
+        buckets[index(Math.min(value, MAX_TRACKED))].increment();
+        max.accumulate(value);
+    }
+
+    /**
+     * @return number of recorded values. Values recorded while it runs may or may not be included.
+     */
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return largest recorded value, 0 if none
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the upper end of the bucket holding that percentile, never more than max(); 0 if nothing was recorded
+     * @throws IllegalArgumentException if the percentile is outside [0, 100]
+     */
+    public long percentile(final double percentile) throws IllegalArgumentException {
+        return percentiles(percentile)[0];
+    }
+
+    /**
+     * Several percentiles from a single pass over the buckets, so they are consistent with each other
+     *
+     * @param percentiles values between 0 and 100, in any order
+     * @throws IllegalArgumentException if a percentile is outside [0, 100]
+     */
+    public long[] percentiles(final double... percentiles) throws IllegalArgumentException {
+        final long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        final long maximum = max();
+
+        final long[] result = new long[percentiles.length];
+        for (int p = 0; p < percentiles.length; p++) {
+            if (!(percentiles[p] >= 0 && percentiles[p] <= 100)) {
+                String message = String.format("The percentile %s must be between 0 and 100", percentiles[p]);
+                throw new IllegalArgumentException(message);
+            }
+            if (total == 0) {
+                continue;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(percentiles[p] / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    result[p] = i == BUCKETS - 1 ? maximum : Math.min(highestValue(i), maximum);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        max.reset();
+    }
+
+    private static int index(final long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - LINEAR_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return the largest value that falls in the bucket
+     */
+    private static long highestValue(final int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        final int exponent = (index - LINEAR_LIMIT) / SUB_BUCKETS + LINEAR_BITS;
+        final int subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS;
+        final int shift = exponent - SUB_BUCKET_BITS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
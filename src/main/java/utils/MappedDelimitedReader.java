@@ -0,0 +1,358 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Pull parser for delimited UTF-8 files that reads fields straight out of a memory-mapped window of the file
+ *
+ * The file is mapped a window at a time (256MB by default) with FileChannel.map, and the window is moved forward so
+ * that it always starts at or before the current field. Unquoted ASCII fields, by far the most common kind, are
+ * exposed as a CharSequence view over the mapped bytes: nothing is copied or decoded until a character is asked
+ * for. Quoted fields and fields holding other UTF-8 characters are decoded into a reused builder. fieldOffset() and
+ * fieldEnd() give the raw byte range of every field, quotes included, for callers that want to work on the bytes.
+ *
+ * Quoting, line breaks and the last record follow DelimitedReader, so either reader can sit behind a FieldReader.
+ */
+public class MappedDelimitedReader implements FieldReader {
+
+    static final long DEFAULT_WINDOW_SIZE = 256L * 1024 * 1024;
+
+    private static final int QUOTE = '"';
+    private static final int END_OF_INPUT = -1;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long windowSize;
+    private final int separator;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long windowEnd;
+    private long position;
+
+    private final AsciiView view = new AsciiView();
+    private final StringBuilder decoded = new StringBuilder();
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private ByteBuffer bytes = ByteBuffer.allocate(256);
+    private CharBuffer chars = CharBuffer.allocate(256);
+
+    private CharSequence field = decoded;
+    private long fieldOffset;
+    private long fieldEnd;
+    private boolean crlf;
+    private int column = -1;
+    private long record = 0;
+    private boolean endOfRecord = true;
+    private boolean endOfInput = false;
+
+    public MappedDelimitedReader(final Path file, final char separator) throws IOException, IllegalArgumentException {
+        this(file, separator, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param file UTF-8 file to parse
+     * @param separator field separator, must be an ASCII character other than a quote or a line break
+     * @param windowSize bytes of the file mapped at a time. Fields longer than the window still parse, but are decoded
+     *                   instead of viewed.
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalArgumentException if the separator or window size cannot be used
+     */
+    public MappedDelimitedReader(final Path file, final char separator, final long windowSize) throws IOException, IllegalArgumentException {
+        this(file, separator, 0, Long.MAX_VALUE, 1, windowSize);
+    }
+
+    /**
+     * Parse the records in a byte range of a file, such as a chunk found by RecordSplitter
+     *
+     * @param from offset of the first byte of the first record in the range
+     * @param to offset just past the last record in the range; clamped to the size of the file
+     * @param firstRecord number reported by record() for the first record in the range
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalArgumentException if the separator, range or window size cannot be used
+     */
+    public MappedDelimitedReader(final Path file, final char separator, final long from, final long to, final long firstRecord,
+                                 final long windowSize) throws IOException, IllegalArgumentException {
+        if (separator == QUOTE || separator == '\n' || separator == '\r' || separator > 0x7f) {
+            throw new IllegalArgumentException("The field separator must be an ASCII character other than a quote or a line break");
+        }
+        if (windowSize < 1 || windowSize > Integer.MAX_VALUE) {
+            String message = String.format("The window size %d must be between 1 and %d bytes", windowSize, Integer.MAX_VALUE);
+            throw new IllegalArgumentException(message);
+        }
+        if (from < 0 || to < from || firstRecord < 1) {
+            String message = String.format("Unable to read bytes [%d, %d) starting at record %d", from, to, firstRecord);
+            throw new IllegalArgumentException(message);
+        }
+        this.separator = separator;
+        this.windowSize = windowSize;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = Math.min(to, channel.size());
+        this.position = from;
+        this.windowStart = from;
+        this.windowEnd = from;
+        this.record = firstRecord - 1;
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        if (position >= size && endOfRecord) {
+            endOfInput = true;
+            return false;
+        }
+
+        if (endOfRecord) {
+            record++;
+            column = 0;
+        } else {
+            column++;
+        }
+
+        fieldOffset = position;
+        final int c = byteAt(position) == QUOTE ? quoted() : unquoted();
+
+        position = fieldEnd + (crlf ? 2 : 1);
+        endOfRecord = c != separator;
+        endOfInput = c == END_OF_INPUT;
+        return true;
+    }
+
+    /**
+     * @return the current field without its surrounding quotes. Only valid until the next call to next(); an ASCII
+     * field is read from the mapped file, so its characters must not be asked for once the reader has moved on.
+     */
+    @Override
+    public CharSequence field() {
+        return field;
+    }
+
+    @Override
+    public int column() {
+        return column;
+    }
+
+    @Override
+    public long record() {
+        return record;
+    }
+
+    @Override
+    public boolean endOfRecord() {
+        return endOfRecord;
+    }
+
+    /**
+     * @return byte offset in the file of the first byte of the current field, its opening quote if it has one
+     */
+    public long fieldOffset() {
+        return fieldOffset;
+    }
+
+    /**
+     * @return byte offset in the file just past the current field, where its separator or line break starts
+     */
+    public long fieldEnd() {
+        return fieldEnd;
+    }
+
+    /**
+     * @return byte offset in the file where the next field starts, just past the current field's separator or line
+     * break
+     */
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    /**
+     * Scan an unquoted field, leaving a view over it if it is ASCII and mapped in one piece
+     *
+     * @return the separator, line break or end of input that ends the field
+     */
+    private int unquoted() throws IOException {
+        long p = position;
+        boolean ascii = true;
+        int c;
+        while ((c = byteAt(p)) != END_OF_INPUT && c != separator && c != '\n' && c != '\r') {
+            ascii &= c < 0x80;
+            p++;
+        }
+        end(c, p);
+
+        if (ascii && fieldOffset >= windowStart && p <= windowEnd) {
+            view.offset = (int) (fieldOffset - windowStart);
+            view.length = (int) (p - fieldOffset);
+            field = view;
+        } else {
+            decoded.setLength(0);
+            decode(fieldOffset, p);
+            field = decoded;
+        }
+        return c;
+    }
+
+    /**
+     * Decode a field that starts with a quote: "" stands for one quote, and anything between the closing quote and
+     * the end of the field is kept, as DelimitedReader does
+     *
+     * @return the separator, line break or end of input that ends the field
+     */
+    private int quoted() throws IOException {
+        decoded.setLength(0);
+        field = decoded;
+
+        long p = fieldOffset + 1;
+        long from = p;
+        int c;
+        while ((c = byteAt(p)) != END_OF_INPUT) {
+            if (c == QUOTE) {
+                decode(from, p);
+                if (byteAt(p + 1) != QUOTE) {
+                    p++;
+                    break;
+                }
+                decoded.append('"');
+                p += 2;
+                from = p;
+            } else {
+                p++;
+            }
+        }
+        if (c == END_OF_INPUT) {
+            decode(from, p);
+            end(c, p);
+            return c;
+        }
+
+        from = p;
+        while ((c = byteAt(p)) != END_OF_INPUT && c != separator && c != '\n' && c != '\r') {
+            p++;
+        }
+        decode(from, p);
+        end(c, p);
+        return c;
+    }
+
+    /**
+     * Record where the field ends, looking past a \r for a \n before the window can move off the field
+     */
+    private void end(final int terminator, final long offset) throws IOException {
+        fieldEnd = offset;
+        crlf = terminator == '\r' && byteAt(offset + 1) == '\n';
+    }
+
+    /**
+     * Append the UTF-8 bytes [from, to) of the file to the decoded field, straight from the window when they are all
+     * mapped and through a scratch buffer when the field is longer than the window
+     */
+    private void decode(final long from, final long to) throws IOException {
+        final int length = (int) (to - from);
+        if (length == 0) {
+            return;
+        }
+        if (chars.capacity() < length) {
+            chars = CharBuffer.allocate(Math.max(length, 2 * chars.capacity()));
+        }
+
+        final ByteBuffer source;
+        if (from >= windowStart && to <= windowEnd) {
+            window.limit((int) (to - windowStart)).position((int) (from - windowStart));
+            source = window;
+        } else {
+            if (bytes.capacity() < length) {
+                bytes = ByteBuffer.allocate(Math.max(length, 2 * bytes.capacity()));
+            }
+            bytes.clear();
+            for (long offset = from; offset < to; offset++) {
+                bytes.put((byte) byteAt(offset));
+            }
+            bytes.flip();
+            source = bytes;
+        }
+
+        chars.clear();
+        decoder.reset();
+        decoder.decode(source, chars, true);
+        decoder.flush(chars);
+        chars.flip();
+        decoded.append(chars);
+        window.clear();
+    }
+
+    /**
+     * @return the byte at the file offset, or END_OF_INPUT past the end of the file
+     */
+    private int byteAt(final long offset) throws IOException {
+        if (offset >= size) {
+            return END_OF_INPUT;
+        }
+        if (offset < windowStart || offset >= windowEnd) {
+            map(offset);
+        }
+        return window.get((int) (offset - windowStart)) & 0xff;
+    }
+
+    /**
+     * Map the window holding the offset, starting it at the current field when the field fits
+     */
+    private void map(final long offset) throws IOException {
+        final long start = offset >= fieldOffset && offset - fieldOffset < windowSize ? fieldOffset : offset;
+        final long length = Math.min(windowSize, size - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        windowStart = start;
+        windowEnd = start + length;
+    }
+
+    /**
+     * Characters of an ASCII field, read from the mapped window on demand
+     */
+    private final class AsciiView implements CharSequence {
+        private int offset;
+        private int length;
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(String.format("Index %d is outside a field of length %d", index, length));
+            }
+            return (char) window.get(offset + index);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            final byte[] ascii = new byte[length];
+            final ByteBuffer slice = window.duplicate();
+            slice.position(offset);
+            slice.get(ascii);
+            return new String(ascii, StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Output buffer of a ColumnMasker: the masked values of a column packed end to end in one char array
+ *
+ * Row i holds characters()[start(i), end(i)). A null row (the input value was null) is empty and reports isNull. The
+ * buffer only grows, so clearing and refilling it for every batch allocates nothing once it has reached the size of
+ * the largest batch.
+ *
+ * Maskers that write characters directly (such as redaction) reserve room, write from position() and end the row
+ * with endRow(); maskers that produce Strings use append().
+ */
+public final class MaskedColumn {
+
+    private char[] characters;
+    private int[] ends;
+    private boolean[] nulls;
+    private int size;
+
+    public MaskedColumn() {
+        this(64, 1024);
+    }
+
+    /**
+     * @param rows initial number of rows
+     * @param characters initial number of characters, for all rows together
+     */
+    public MaskedColumn(final int rows, final int characters) {
+        this.characters = new char[Math.max(characters, 16)];
+        this.ends = new int[Math.max(rows, 1)];
+        this.nulls = new boolean[this.ends.length];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return the backing array. It is replaced when the column grows, so fetch it again after writing.
+     */
+    public char[] characters() {
+        return characters;
+    }
+
+    public int start(final int row) {
+        return row == 0 ? 0 : ends[checkRow(row) - 1];
+    }
+
+    public int end(final int row) {
+        return ends[checkRow(row)];
+    }
+
+    public int length(final int row) {
+        return end(row) - start(row);
+    }
+
+    public boolean isNull(final int row) {
+        return nulls[checkRow(row)];
+    }
+
+    /**
+     * @return the row as a new String, or null if it is a null row
+     */
+    public String get(final int row) {
+        return isNull(row) ? null : new String(characters, start(row), length(row));
+    }
+
+    /**
+     * Append the row to a builder without creating a String; a null row appends nothing
+     */
+    public void appendTo(final int row, final StringBuilder builder) {
+        builder.append(characters, start(row), length(row));
+    }
+
+    public String[] toArray() {
+        final String[] values = new String[size];
+        for (int row = 0; row < size; row++) {
+            values[row] = get(row);
+        }
+        return values;
+    }
+
+    /**
+     * @return the index in characters() where the next row starts
+     */
+    public int position() {
+        return size == 0 ? 0 : ends[size - 1];
+    }
+
+    /**
+     * Make room for the given number of characters after position()
+     *
+     * @return the backing array to write them to
+     */
+    public char[] reserve(final int length) {
+        final int required = position() + length;
+        if (required > characters.length) {
+            characters = Arrays.copyOf(characters, Math.max(required, characters.length * 2));
+        }
+        return characters;
+    }
+
+    /**
+     * End the current row after the characters written to characters()[position(), end)
+     *
+     * @throws IllegalArgumentException if the end is before position() or past the reserved characters
+     */
+    public void endRow(final int end) throws IllegalArgumentException {
+        if (end < position() || end > characters.length) {
+            String message = String.format("The row end %d must be between %d and %d", end, position(), characters.length);
+            throw new IllegalArgumentException(message);
+        }
+        addRow(end, false);
+    }
+
+    public MaskedColumn append(final CharSequence value) {
+        if (value == null) {
+            return appendNull();
+        }
+        final int length = value.length();
+        final char[] destination = reserve(length);
+        final int start = position();
+        if (value instanceof String) {
+            ((String) value).getChars(0, length, destination, start);
+        } else {
+            for (int i = 0; i < length; i++) {
+                destination[start + i] = value.charAt(i);
+            }
+        }
+        addRow(start + length, false);
+        return this;
+    }
+
+    /**
+     * Append a row of another column by copying its characters; a null row stays null
+     */
+    public MaskedColumn append(final MaskedColumn source, final int row) {
+        if (source.isNull(row)) {
+            return appendNull();
+        }
+        final int start = source.start(row);
+        final int length = source.end(row) - start;
+        final char[] destination = reserve(length);
+        final int position = position();
+        System.arraycopy(source.characters, start, destination, position, length);
+        addRow(position + length, false);
+        return this;
+    }
+
+    public MaskedColumn appendNull() {
+        addRow(position(), true);
+        return this;
+    }
+
+    private void addRow(final int end, final boolean isNull) {
+        if (size == ends.length) {
+            ends = Arrays.copyOf(ends, size * 2);
+            nulls = Arrays.copyOf(nulls, size * 2);
+        }
+        ends[size] = end;
+        nulls[size] = isNull;
+        size++;
+    }
+
+    private int checkRow(final int row) {
+        if (row < 0 || row >= size) {
+            String message = String.format("Row %d is outside the column of %d rows", row, size);
+            throw new IndexOutOfBoundsException(message);
+        }
+        return row;
+    }
+}
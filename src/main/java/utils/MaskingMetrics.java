@@ -0,0 +1,202 @@
+package utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Per-operation call counts, characters masked and latency histograms for a masking job
+ *
+ * Operations are named by the caller; a name per column rule (such as "ssn:redact") shows which rule a slow job
+ * spends its time in. instrument() wraps a FieldMasker so every call is timed with System.nanoTime, which adds a few
+ * tens of nanoseconds per field, so only instrument the pipelines being investigated.
+ *
+ * Snapshots can be written to a CSV file with export() or published as MXBeans (one per operation) with
+ * registerMBeans(), where jconsole or any JMX collector can read them while the job runs.
+ *
+ * <pre>
+ *     MaskingMetrics metrics = new MaskingMetrics();
+ *     MaskingPipeline.builder()
+ *             .header(true)
+ *             .column("ssn", metrics.instrument("ssn:redact", ssnMasker))
+ *             .build()
+ *             .mask(source, target);
+ *     metrics.export(Paths.get("target/metrics.csv"));
+ * </pre>
+ */
+@Slf4j
+public class MaskingMetrics {
+
+    private static final String MBEAN_TYPE = "MaskingOperation";
+
+    private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, MemoCache> caches = new ConcurrentHashMap<>();
+    private final Set<ObjectName> registered = new LinkedHashSet<>();
+    private String domain;
+
+    /**
+     * @return the metrics of the named operation, created on first use
+     */
+    public OperationMetrics operation(final String name) {
+        OperationMetrics metrics = operations.get(name);
+        if (metrics == null) {
+            final OperationMetrics created = new OperationMetrics(name);
+            metrics = operations.putIfAbsent(name, created);
+            if (metrics == null) {
+                metrics = created;
+                register(created);
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Time every call of the masker and count the characters it is given; calls that throw are counted as failures
+     */
+    public FieldMasker instrument(final String name, final FieldMasker masker) {
+        final OperationMetrics metrics = operation(name);
+        return (value, masked) -> {
+            final long start = System.nanoTime();
+            try {
+                masker.mask(value, masked);
+            } catch (RuntimeException e) {
+                metrics.failed();
+                throw e;
+            }
+            metrics.record(System.nanoTime() - start, value.length());
+        };
+    }
+
+    /**
+     * Keep track of the memo cache of an operation, so its hit rate can be read with the operation's metrics
+     */
+    public void cache(final String name, final MemoCache cache) {
+        caches.put(name, cache);
+    }
+
+    /**
+     * @return the memo cache registered under the name, or null
+     */
+    public MemoCache cache(final String name) {
+        return caches.get(name);
+    }
+
+    /**
+     * @return a snapshot of every operation, the one that took the most time first
+     */
+    public List<OperationMetrics.Snapshot> snapshot() {
+        return operations.values().stream()
+                .map(OperationMetrics::snapshot)
+                .sorted(Comparator.comparingLong(OperationMetrics.Snapshot::getTotalNanos).reversed())
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        operations.values().forEach(OperationMetrics::reset);
+    }
+
+    /**
+     * Write a snapshot as CSV with a header row, one record per operation, replacing the file if it exists
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void export(final Path file) throws IOException {
+        final Path parent = file.toAbsolutePath().getParent();
+        final Path temporary = parent.resolve(String.format("%s.%d.%d.tmp", file.getFileName(),
+                ProcessHandle.current().pid(), Thread.currentThread().getId()));
+        final List<OperationMetrics.Snapshot> snapshots = snapshot();
+        try {
+            try (Writer target = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                final DelimitedWriter writer = new DelimitedWriter(target, ',');
+                for (String column : new String[]{"operation", "calls", "failures", "characters", "total_nanos", "p50_nanos",
+                        "p90_nanos", "p99_nanos", "p999_nanos", "max_nanos", "characters_per_second"}) {
+                    writer.field(column);
+                }
+                writer.endRecord();
+                for (OperationMetrics.Snapshot snapshot : snapshots) {
+                    writer.field(snapshot.getName());
+                    for (long value : new long[]{snapshot.getCalls(), snapshot.getFailures(), snapshot.getCharacters(),
+                            snapshot.getTotalNanos(), snapshot.getP50Nanos(), snapshot.getP90Nanos(), snapshot.getP99Nanos(),
+                            snapshot.getP999Nanos(), snapshot.getMaxNanos(), Math.round(snapshot.charactersPerSecond())}) {
+                        writer.field(Long.toString(value));
+                    }
+                    writer.endRecord();
+                }
+                writer.flush();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        log.info("Exported metrics of {} operations to {}", snapshots.size(), file);
+    }
+
+    /**
+     * Publish every operation, and every operation created later, as an MXBean named
+     * domain:type=MaskingOperation,name=&lt;operation&gt; on the platform MBean server
+     *
+     * @throws IllegalArgumentException if the domain is not a valid JMX domain or beans are already registered
+     */
+    public synchronized void registerMBeans(final String domain) throws IllegalArgumentException {
+        if (this.domain != null) {
+            String message = String.format("The metrics are already registered under the domain [%s]", this.domain);
+            throw new IllegalArgumentException(message);
+        }
+        this.domain = domain;
+        operations.values().forEach(this::register);
+    }
+
+    public synchronized void unregisterMBeans() {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+                log.warn("Unable to unregister {}", name, e);
+            }
+        }
+        registered.clear();
+        domain = null;
+    }
+
+    /**
+     * Register the operation unless it already is: an operation created while registerMBeans() runs can be reached
+     * both from operation() and from registerMBeans()
+     */
+    private synchronized void register(final OperationMetrics metrics) throws IllegalArgumentException {
+        if (domain == null) {
+            return;
+        }
+        try {
+            final ObjectName name = new ObjectName(String.format("%s:type=%s,name=%s", domain, MBEAN_TYPE, ObjectName.quote(metrics.getName())));
+            if (registered.contains(name)) {
+                return;
+            }
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+            registered.add(name);
+        } catch (MalformedObjectNameException | InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException e) {
+            String message = String.format("Unable to register the metrics of [%s] under the domain [%s]", metrics.getName(), domain);
+            throw new IllegalArgumentException(message, e);
+        }
+    }
+}
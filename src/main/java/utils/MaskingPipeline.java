@@ -0,0 +1,344 @@
+package utils;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Stream a delimited file through a per-column masking plan
+ *
+ * Records are processed one field at a time: the reader holds one fixed-size buffer plus the current field, and
+ * every masked field goes straight to the (buffered) writer. Heap use therefore depends on the longest field, not
+ * on the size of the file, and no record is ever split into a String[]. Files are memory-mapped
+ * (MappedDelimitedReader), so unquoted ASCII fields reach the maskers as views over the file without being copied.
+ *
+ * A large file can also be masked on several threads, chunk by chunk, given an executor; the operations are then
+ * called from all of its threads at once and must be thread safe.
+ *
+ * Columns can be configured by zero-based index, or by name when the input starts with a header row. Columns
+ * without a configured operation are copied unchanged.
+ *
+ * <pre>
+ *     MaskingPipeline.builder()
+ *             .header(true)
+ *             .column("ssn", ssnMasker)
+ *             .column(4, dateMasker)
+ *             .build()
+ *             .mask(source, target);
+ * </pre>
+ */
+@Slf4j
+public class MaskingPipeline {
+
+    private final char separator;
+    private final boolean header;
+    private final Map<String, FieldMasker> columnsByName;
+    private final Map<Integer, FieldMasker> columnsByIndex;
+    private final int bufferSize;
+    private final long chunkSize;
+
+    /**
+     * @param fieldSeparator single character separator, same meaning and default (a comma) as
+     *                       FileUtils.FileParameters.fieldSeparator
+     * @param header true if the first record holds column names. It is copied to the output unmasked.
+     * @param columnsByName operations keyed by header name; requires header
+     * @param columnsByIndex operations keyed by zero-based column position
+     * @param bufferSize characters read at a time from a Reader source; defaults to 64K. Files are mapped instead.
+     * @param chunkSize bytes of records masked by one task when a file is masked on several threads; defaults to 64MB
+     * @throws IllegalArgumentException if the separator is not a single character, a column index is negative or
+     * columns are named without a header row
+     */
+    @Builder
+    private MaskingPipeline(final String fieldSeparator,
+                            final boolean header,
+                            @Singular("column") final Map<String, FieldMasker> columnsByName,
+                            @Singular("column") final Map<Integer, FieldMasker> columnsByIndex,
+                            final int bufferSize,
+                            final long chunkSize) throws IllegalArgumentException {
+        if (!header && !columnsByName.isEmpty()) {
+            String message = String.format("Columns %s are referenced by name but the input has no header", columnsByName.keySet());
+            throw new IllegalArgumentException(message);
+        }
+        if (columnsByIndex.keySet().stream().anyMatch(index -> index < 0)) {
+            String message = String.format("Column indexes %s must not be negative", columnsByIndex.keySet());
+            throw new IllegalArgumentException(message);
+        }
+
+        this.separator = DelimitedReader.separator(fieldSeparator);
+        this.header = header;
+        this.columnsByName = columnsByName;
+        this.columnsByIndex = columnsByIndex;
+        this.bufferSize = bufferSize > 0 ? bufferSize : DelimitedReader.DEFAULT_BUFFER_SIZE;
+        this.chunkSize = chunkSize > 0 ? chunkSize : RecordSplitter.DEFAULT_CHUNK_SIZE;
+    }
+
+    /**
+     * Mask a UTF-8 file into another file, replacing the target if it exists
+     *
+     * @return number of data records written (the header is not counted)
+     * @throws IOException if either file cannot be read or written
+     * @throws IllegalArgumentException if a named column is missing from the header or an operation fails on a field
+     */
+    public long mask(final Path source, final Path target) throws IOException, IllegalArgumentException {
+        try (FieldReader reader = new MappedDelimitedReader(source, separator);
+             Writer writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            long records = mask(reader, writer);
+            log.info("Masked {} records from {} into {}", records, source, target);
+            return records;
+        }
+    }
+
+    /**
+     * Mask delimited text from the source into the target. Neither is closed; the target is flushed.
+     *
+     * @return number of data records written (the header is not counted)
+     * @throws IOException if the source cannot be read or the target cannot be written
+     * @throws IllegalArgumentException if a named column is missing from the header or an operation fails on a field
+     */
+    public long mask(final Reader source, final Writer target) throws IOException, IllegalArgumentException {
+        return mask(new DelimitedReader(source, separator, bufferSize), target);
+    }
+
+    /**
+     * Mask a UTF-8 file into another file on several threads, replacing the target if it exists
+     *
+     * The data records are split into chunks of at least chunkSize bytes (see RecordSplitter) and each chunk is masked
+     * into a part file next to the target by its own task. The parts are then appended to the target in order and
+     * deleted, so the target ends up exactly as mask(source, target) would write it.
+     *
+     * @param executor runs one task per chunk, e.g. a ForkJoinPool or a virtual thread executor. It is not shut down.
+     * @return number of data records written (the header is not counted)
+     * @throws IOException if either file cannot be read or written
+     * @throws IllegalArgumentException if a named column is missing from the header or an operation fails on a field
+     */
+    public long mask(final Path source, final Path target, final ExecutorService executor) throws IOException, IllegalArgumentException {
+        final List<String> names = new ArrayList<>();
+        final List<Path> parts = new ArrayList<>();
+        final long records = mask(source, target, executor, false, names, parts);
+
+        try {
+            try (Writer writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+                writeHeader(new DelimitedWriter(writer, separator), names);
+            }
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                for (Path part : parts) {
+                    try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                        final long size = in.size();
+                        for (long position = 0; position < size; ) {
+                            position += in.transferTo(position, size - position, out);
+                        }
+                    }
+                    Files.delete(part);
+                }
+            }
+        } finally {
+            deleteAll(parts);
+        }
+
+        log.info("Masked {} records from {} into {} in {} chunks", records, source, target, parts.size());
+        return records;
+    }
+
+    /**
+     * Mask a UTF-8 file on several threads into part files named after the target (target.part-00000,
+     * target.part-00001, ...), replacing any that exist. Every part starts with a copy of the header, if there is one,
+     * so each is a complete file; read in order, they hold the records of the source in order.
+     *
+     * @param executor runs one task per chunk, e.g. a ForkJoinPool or a virtual thread executor. It is not shut down.
+     * @return the part files in order; none if the source has no data records
+     * @throws IOException if either file cannot be read or written
+     * @throws IllegalArgumentException if a named column is missing from the header or an operation fails on a field
+     */
+    public List<Path> maskParts(final Path source, final Path target, final ExecutorService executor) throws IOException, IllegalArgumentException {
+        final List<Path> parts = new ArrayList<>();
+        final long records = mask(source, target, executor, true, new ArrayList<>(), parts);
+        log.info("Masked {} records from {} into {} parts of {}", records, source, parts.size(), target);
+        return parts;
+    }
+
+    /**
+     * Read the header, split the data records into chunks and mask every chunk into its own part file
+     *
+     * @param names receives the header names
+     * @param parts receives the part files in order
+     * @return number of data records written
+     */
+    private long mask(final Path source, final Path target, final ExecutorService executor, final boolean headerInParts,
+                      final List<String> names, final List<Path> parts) throws IOException, IllegalArgumentException {
+        long dataStart = 0;
+        long firstRecord = 1;
+        if (header) {
+            try (MappedDelimitedReader reader = new MappedDelimitedReader(source, separator)) {
+                if (!readHeader(reader, names)) {
+                    return 0;
+                }
+                dataStart = reader.position();
+                firstRecord = 2;
+            }
+        }
+        final FieldMasker[] plan = plan(names);
+
+        final List<RecordSplitter.Chunk> chunks = RecordSplitter.split(source, separator, dataStart, firstRecord, chunkSize);
+        final List<Callable<Long>> tasks = new ArrayList<>();
+        for (RecordSplitter.Chunk chunk : chunks) {
+            final Path part = target.resolveSibling(String.format("%s.part-%05d", target.getFileName(), parts.size()));
+            parts.add(part);
+            tasks.add(() -> {
+                try (MappedDelimitedReader reader = new MappedDelimitedReader(source, separator, chunk.getFrom(), chunk.getTo(),
+                        chunk.getFirstRecord(), MappedDelimitedReader.DEFAULT_WINDOW_SIZE);
+                     Writer writer = Files.newBufferedWriter(part, StandardCharsets.UTF_8)) {
+                    final DelimitedWriter delimitedWriter = new DelimitedWriter(writer, separator);
+                    if (headerInParts) {
+                        writeHeader(delimitedWriter, names);
+                    }
+                    final long records = mask(reader, delimitedWriter, plan);
+                    delimitedWriter.flush();
+                    return records;
+                }
+            });
+        }
+
+        long records = 0;
+        try {
+            for (Future<Long> result : executor.invokeAll(tasks)) {
+                records += result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            deleteAll(parts);
+            throw new InterruptedIOException(String.format("Interrupted while masking %s", source));
+        } catch (ExecutionException e) {
+            deleteAll(parts);
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+        return records;
+    }
+
+    private long mask(final FieldReader reader, final Writer target) throws IOException, IllegalArgumentException {
+        final DelimitedWriter writer = new DelimitedWriter(target, separator);
+        final List<String> names = new ArrayList<>();
+        if (header) {
+            if (!readHeader(reader, names)) {
+                return 0;
+            }
+            writeHeader(writer, names);
+        }
+
+        final long records = mask(reader, writer, plan(names));
+        writer.flush();
+        return records;
+    }
+
+    /**
+     * Mask every remaining record of the reader into the writer
+     *
+     * @return number of records written
+     */
+    private static long mask(final FieldReader reader, final DelimitedWriter writer, final FieldMasker[] plan) throws IOException, IllegalArgumentException {
+        final StringBuilder masked = new StringBuilder();
+        long records = 0;
+
+        while (reader.next()) {
+            final int column = reader.column();
+            final FieldMasker masker = column < plan.length ? plan[column] : FieldMasker.PASS_THROUGH;
+            if (masker == FieldMasker.PASS_THROUGH) {
+                writer.field(reader.field());
+            } else {
+                masked.setLength(0);
+                try {
+                    masker.mask(reader.field(), masked);
+                } catch (RuntimeException e) {
+                    String message = String.format("Unable to mask column %d of record %d", column, reader.record());
+                    throw new IllegalArgumentException(message, e);
+                }
+                writer.field(masked);
+            }
+
+            if (reader.endOfRecord()) {
+                writer.endRecord();
+                records++;
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @param names receives the fields of the first record
+     * @return false if the input is empty
+     */
+    private static boolean readHeader(final FieldReader reader, final List<String> names) throws IOException {
+        while (reader.next()) {
+            names.add(reader.field().toString());
+            if (reader.endOfRecord()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeHeader(final DelimitedWriter writer, final List<String> names) throws IOException {
+        if (!header || names.isEmpty()) {
+            return;
+        }
+        for (String name : names) {
+            writer.field(name);
+        }
+        writer.endRecord();
+        writer.flush();
+    }
+
+    private static void deleteAll(final List<Path> parts) throws IOException {
+        for (Path part : parts) {
+            Files.deleteIfExists(part);
+        }
+    }
+
+    /**
+     * Resolve the configured columns into an array indexed by column position
+     *
+     * @param names header names, empty if the input has no header
+     */
+    private FieldMasker[] plan(final List<String> names) throws IllegalArgumentException {
+        Set<String> missing = columnsByName.keySet().stream()
+                .filter(name -> !names.contains(name))
+                .collect(Collectors.toSet());
+        if (!missing.isEmpty()) {
+            String message = String.format("Columns %s are not in the header %s", missing, names);
+            throw new IllegalArgumentException(message);
+        }
+
+        int width = Math.max(names.size(), columnsByIndex.keySet().stream().mapToInt(i -> i + 1).max().orElse(0));
+        FieldMasker[] plan = new FieldMasker[width];
+        Arrays.fill(plan, FieldMasker.PASS_THROUGH);
+        columnsByIndex.forEach((index, masker) -> plan[index] = masker);
+        columnsByName.forEach((name, masker) -> plan[names.indexOf(name)] = masker);
+        return plan;
+    }
+}
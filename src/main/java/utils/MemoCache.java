@@ -0,0 +1,318 @@
+package utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded, thread-safe memo of masked values, for deterministic operations on columns that repeat
+ *
+ * A city, employer or first name column holds few distinct values, each repeated many times. Encrypting or
+ * tokenizing every occurrence repeats the same cipher work; with a memo, every occurrence after the first costs one
+ * hash probe. Only operations that always mask a value the same way may be memoized (redaction, encryption,
+ * tokenization, zip generalization); random ones (perturbation, substitution, zip swapping) would lose their
+ * randomness.
+ *
+ * The entries are split over segments by hash, each guarded by its own lock, so threads masking different values
+ * rarely wait for each other. Values are computed outside the lock: two threads that miss on the same value at once
+ * both compute it, which is harmless because the operation is deterministic. Each segment holds its share of the
+ * maximum size and evicts in one of two ways:
+ * <ul>
+ *     <li>lru: the least recently used entry</li>
+ *     <li>tinyLfu: W-TinyLFU, as in Caffeine. New entries enter a small LRU window (1% of the segment); an entry
+ *     leaving the window only replaces the eldest entry of the main area if it has been asked for more often,
+ *     according to a 4-bit count-min sketch whose counts are halved every 10 x size accesses so old popularity
+ *     fades. The main area is a segmented LRU: entries hit a second time move from probation to a protected area
+ *     (80%). A scan of values seen once therefore cannot flush the values that repeat.</li>
+ * </ul>
+ *
+ * Hits, misses and evictions are counted with LongAdders, which threads update without contending.
+ */
+public final class MemoCache {
+
+    public enum EVICTION {lru, tinyLfu}
+
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final int maximumSize;
+    private final EVICTION eviction;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maximumSize number of entries to keep at most, up to rounding to a whole number per segment
+     * @throws IllegalArgumentException if the size is less than 1 or there is no eviction
+     */
+    public MemoCache(final int maximumSize, final EVICTION eviction) throws IllegalArgumentException {
+        if (maximumSize < 1 || eviction == null) {
+            String message = String.format("A memo cache needs a size of at least 1 [%d] and an eviction %s [%s]",
+                    maximumSize, List.of(EVICTION.values()), eviction);
+            throw new IllegalArgumentException(message);
+        }
+        this.maximumSize = maximumSize;
+        this.eviction = eviction;
+
+        // enough segments for the threads to spread over, as long as each keeps enough entries to evict well
+        final int target = 4 * Runtime.getRuntime().availableProcessors();
+        int count = 1;
+        while (count * 2 <= target && maximumSize / (count * 2) >= MIN_SEGMENT_SIZE) {
+            count *= 2;
+        }
+        this.segments = new Segment[count];
+        final int segmentSize = (maximumSize + count - 1) / count;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(segmentSize, eviction);
+        }
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    public EVICTION eviction() {
+        return eviction;
+    }
+
+    /**
+     * @return the memoized value, or null if there is none. Counts as a hit or a miss.
+     */
+    public String get(final String key) {
+        final String value = segment(key).get(key);
+        (value == null ? misses : hits).increment();
+        return value;
+    }
+
+    /**
+     * Memoize a value, evicting an entry if the segment is full; a key that is already memoized keeps its value
+     */
+    public void put(final String key, final String value) {
+        if (segment(key).put(key, value)) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * @return the memoized value of the key, computing and memoizing it on a miss. A null result is not memoized.
+     */
+    public String get(final String key, final UnaryOperator<String> operation) {
+        String value = get(key);
+        if (value == null) {
+            value = operation.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Memoize a field masker: a hit appends the memoized value, a miss masks the value and memoizes what the masker
+     * appended. Failures are not memoized, so a value that cannot be masked fails every time.
+     */
+    public FieldMasker memoize(final FieldMasker masker) {
+        return (value, masked) -> {
+            final String key = value.toString();
+            final String memoized = get(key);
+            if (memoized != null) {
+                masked.append(memoized);
+                return;
+            }
+            final int start = masked.length();
+            masker.mask(value, masked);
+            put(key, masked.substring(start));
+        };
+    }
+
+    /**
+     * @return the number of entries; a moment's view when other threads are using the cache
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return hits as a fraction of all lookups, or 0 before the first lookup
+     */
+    public double hitRate() {
+        final long hits = hits();
+        final long lookups = hits + misses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MemoCache[%s, %d of %d entries, %d hits, %d misses, %d evictions, hit rate %.3f]",
+                eviction, size(), maximumSize, hits(), misses(), evictions(), hitRate());
+    }
+
+    private Segment segment(final String key) {
+        final int h = key.hashCode() * 0x9e3779b9;
+        return segments[(h >>> 16) & (segments.length - 1)];
+    }
+
+    /**
+     * One lock's share of the entries. With lru eviction only the window is used and it holds the whole share.
+     */
+    private static final class Segment {
+
+        private final LinkedHashMap<String, String> window = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<String, String> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<String, String> protectedArea = new LinkedHashMap<>(16, 0.75f, true);
+        private final int windowSize;
+        private final int mainSize;
+        private final int protectedSize;
+        private final FrequencySketch sketch;
+
+        private Segment(final int size, final EVICTION eviction) {
+            if (eviction == EVICTION.lru) {
+                this.windowSize = size;
+                this.mainSize = 0;
+                this.sketch = null;
+            } else {
+                this.windowSize = Math.max(1, size / 100);
+                this.mainSize = size - windowSize;
+                this.sketch = new FrequencySketch(size);
+            }
+            this.protectedSize = mainSize * 4 / 5;
+        }
+
+        private synchronized String get(final String key) {
+            if (sketch != null) {
+                sketch.increment(key.hashCode());
+            }
+            String value = window.get(key);
+            if (value != null || sketch == null) {
+                return value;
+            }
+            value = probation.remove(key);
+            if (value != null) {
+                protectedArea.put(key, value);
+                if (protectedArea.size() > protectedSize) {
+                    final Map.Entry<String, String> demoted = removeEldest(protectedArea);
+                    probation.put(demoted.getKey(), demoted.getValue());
+                }
+                return value;
+            }
+            return protectedArea.get(key);
+        }
+
+        /**
+         * @return whether an entry was evicted
+         */
+        private synchronized boolean put(final String key, final String value) {
+            if (window.containsKey(key) || probation.containsKey(key) || protectedArea.containsKey(key)) {
+                return false;
+            }
+            window.put(key, value);
+            if (window.size() <= windowSize) {
+                return false;
+            }
+            final Map.Entry<String, String> candidate = removeEldest(window);
+            if (sketch == null) {
+                return true;
+            }
+            if (probation.size() + protectedArea.size() < mainSize) {
+                probation.put(candidate.getKey(), candidate.getValue());
+                return false;
+            }
+            final LinkedHashMap<String, String> victims = probation.isEmpty() ? protectedArea : probation;
+            if (victims.isEmpty()) {
+                return true;
+            }
+            final String victim = victims.keySet().iterator().next();
+            if (sketch.frequency(candidate.getKey().hashCode()) > sketch.frequency(victim.hashCode())) {
+                victims.remove(victim);
+                probation.put(candidate.getKey(), candidate.getValue());
+            }
+            return true;
+        }
+
+        private synchronized int size() {
+            return window.size() + probation.size() + protectedArea.size();
+        }
+
+        private static Map.Entry<String, String> removeEldest(final LinkedHashMap<String, String> map) {
+            final Iterator<Map.Entry<String, String>> entries = map.entrySet().iterator();
+            final Map.Entry<String, String> eldest = entries.next();
+            final Map.Entry<String, String> removed = Map.entry(eldest.getKey(), eldest.getValue());
+            entries.remove();
+            return removed;
+        }
+    }
+
+    /**
+     * Count-min sketch of how often each hash was asked for: four counters per hash, each at most 15, and the
+     * smallest of the four is the estimate
+     */
+    private static final class FrequencySketch {
+
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x97cb3127, 0xb2e1b19d, 0x4eec5b47, 0x2c5bd7a3};
+
+        private final byte[] counters;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(final int size) {
+            this.counters = new byte[Integer.highestOneBit(Math.max(size, 8)) << 4];
+            this.sampleSize = 10 * Math.max(size, 8);
+        }
+
+        private void increment(final int hash) {
+            boolean added = false;
+            for (int seed : SEEDS) {
+                final int i = index(hash, seed);
+                if (counters[i] < MAX_COUNT) {
+                    counters[i]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) {
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>= 1;
+                }
+                additions /= 2;
+            }
+        }
+
+        private int frequency(final int hash) {
+            int frequency = MAX_COUNT;
+            for (int seed : SEEDS) {
+                frequency = Math.min(frequency, counters[index(hash, seed)]);
+            }
+            return frequency;
+        }
+
+        private int index(final int hash, final int seed) {
+            // the finalizer of MurmurHash3, so each seed picks counters independently of the others
+            int h = hash ^ seed;
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            h *= 0xc2b2ae35;
+            h ^= h >>> 16;
+            return h & (counters.length - 1);
+        }
+    }
+}
@@ -0,0 +1,540 @@
+package utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Read-only binary copy of the US SSA first name files and the five-thirty-eight surname file
+ *
+ * Parsing ~200k lines of text is the largest part of starting a substitution task. The build compiles the text files
+ * once through main() into names.dict on the classpath, which openResource() memory maps, so opening it costs a header
+ * check no matter how many names it holds. A dictionary kept elsewhere is compiled on its first use by openOrCompile().
+ *
+ * Every name is stored once in a string table and referred to by its id. First names keep the order of their source
+ * file (by gender, then count descending), so a row's position within its year and gender is its rank. All values are
+ * big-endian ints:
+ *
+ *  header          magic, version, year count Y, first name rows R, surname rows S, string count N, string bytes B, 0
+ *  years           int[Y]      year of each source file, ascending
+ *  year rows       int[Y + 1]  first row of each year; the last entry is R
+ *  first names     int[R]      string id
+ *  first counts    int[R]      number of babies given the name that year
+ *  female          int[(R + 31) / 32] bitset, set for F rows
+ *  surnames        int[S]      string id
+ *  surname ranks   int[S]
+ *  surname counts  int[S]
+ *  string offsets  int[N + 1]  start of each string in the string bytes; the last entry is B
+ *  string bytes    byte[B]     UTF-8
+ */
+@Slf4j
+public final class NameDictionary {
+
+    /**
+     * Name of the dictionary on the classpath
+     */
+    public static final String DEFAULT_FILE_NAME = "names.dict";
+
+    /**
+     * Where main() writes the dictionary by default: the build's classes directory, so it ends up on the classpath
+     */
+    static final String BUILD_OUTPUT_DIRECTORY = "target/classes";
+
+    static final String FIRSTNAME_FILE_PREFIX = "yob";
+    static final String FIRSTNAME_FILE_SUFFIX = ".txt";
+    static final String SURNAME_FILE = "most-common-name_surnames.csv";
+
+    private static final int MAGIC = 0x53444e44; // SDND
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    // five-thirty-eight columns: rowid, name, rank, count, ...
+    private static final int SURNAME_NAME_COLUMN = 1;
+    private static final int SURNAME_RANK_COLUMN = 2;
+    private static final int SURNAME_COUNT_COLUMN = 3;
+
+    private final ByteBuffer buffer;
+    private final int yearCount;
+    private final int firstNameRows;
+    private final int surnameRows;
+    private final int stringCount;
+
+    private final int yearsOffset;
+    private final int yearRowsOffset;
+    private final int firstNamesOffset;
+    private final int firstCountsOffset;
+    private final int femaleOffset;
+    private final int surnamesOffset;
+    private final int surnameRanksOffset;
+    private final int surnameCountsOffset;
+    private final int stringOffsetsOffset;
+    private final int stringBytesOffset;
+
+    // decoded on first use; a racing thread decodes an equal String, which is harmless
+    private final String[] strings;
+
+    private NameDictionary(final ByteBuffer buffer, final Object source) throws IllegalArgumentException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            String message = String.format("The file [%s] is not a version %d name dictionary", source, VERSION);
+            throw new IllegalArgumentException(message);
+        }
+        yearCount = buffer.getInt(8);
+        firstNameRows = buffer.getInt(12);
+        surnameRows = buffer.getInt(16);
+        stringCount = buffer.getInt(20);
+        final int stringBytes = buffer.getInt(24);
+
+        yearsOffset = HEADER_SIZE;
+        yearRowsOffset = yearsOffset + 4 * yearCount;
+        firstNamesOffset = yearRowsOffset + 4 * (yearCount + 1);
+        firstCountsOffset = firstNamesOffset + 4 * firstNameRows;
+        femaleOffset = firstCountsOffset + 4 * firstNameRows;
+        surnamesOffset = femaleOffset + 4 * ((firstNameRows + 31) / 32);
+        surnameRanksOffset = surnamesOffset + 4 * surnameRows;
+        surnameCountsOffset = surnameRanksOffset + 4 * surnameRows;
+        stringOffsetsOffset = surnameCountsOffset + 4 * surnameRows;
+        stringBytesOffset = stringOffsetsOffset + 4 * (stringCount + 1);
+
+        if ((long) stringBytesOffset + stringBytes != buffer.capacity()) {
+            String message = String.format("The name dictionary [%s] is truncated or corrupt", source);
+            throw new IllegalArgumentException(message);
+        }
+        strings = new String[stringCount];
+    }
+
+    /**
+     * Memory map a compiled dictionary
+     *
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a dictionary of this version
+     */
+    public static NameDictionary open(final Path dictionary) throws IOException, IllegalArgumentException {
+        try (FileChannel channel = FileChannel.open(dictionary, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new NameDictionary(buffer, dictionary);
+        }
+    }
+
+    /**
+     * The dictionary compiled onto the classpath by the build. It is memory mapped when the classes are a directory;
+     * from a jar, which cannot be mapped, it is read onto the heap, which still costs no parsing.
+     *
+     * @return the dictionary, or null if there is none on the classpath
+     * @throws IOException if it cannot be read
+     * @throws IllegalArgumentException if it is not a dictionary of this version
+     */
+    public static NameDictionary openResource() throws IOException, IllegalArgumentException {
+        final URL resource = NameDictionary.class.getClassLoader().getResource(DEFAULT_FILE_NAME);
+        if (resource == null) {
+            return null;
+        }
+        if ("file".equals(resource.getProtocol())) {
+            try {
+                return open(Paths.get(resource.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException(String.format("Unable to open the name dictionary [%s]", resource), e);
+            }
+        }
+        try (InputStream input = resource.openStream()) {
+            return new NameDictionary(ByteBuffer.wrap(input.readAllBytes()), resource);
+        }
+    }
+
+    /**
+     * Memory map the dictionary, compiling it first if it is missing, unreadable or older than any of the source files
+     *
+     * @param sourceDirectory directory holding the yobYYYY.txt files and the surname file
+     * @param dictionary compiled dictionary location
+     * @throws IOException if the sources cannot be read or the dictionary cannot be written
+     */
+    public static NameDictionary openOrCompile(final Path sourceDirectory, final Path dictionary) throws IOException {
+        if (Files.exists(dictionary) && !isStale(sourceDirectory, dictionary)) {
+            try {
+                return open(dictionary);
+            } catch (IllegalArgumentException e) {
+                log.warn("The name dictionary [{}] will be compiled again", dictionary, e);
+            }
+        }
+        compile(sourceDirectory, dictionary);
+        return open(dictionary);
+    }
+
+    /**
+     * Compile the text files into a dictionary. The file is written next to its destination and then moved into place,
+     * so a concurrent reader sees either the old dictionary or the new one.
+     *
+     * @param sourceDirectory directory holding the yobYYYY.txt files and, optionally, the surname file
+     * @param dictionary compiled dictionary location
+     * @throws IOException if the sources cannot be read or the dictionary cannot be written
+     * @throws IllegalArgumentException if a source line is not in the expected format
+     */
+    public static void compile(final Path sourceDirectory, final Path dictionary) throws IOException, IllegalArgumentException {
+        final long start = System.nanoTime();
+        final Compiler compiler = new Compiler();
+
+        final List<Path> yearFiles = yearFiles(sourceDirectory);
+        final int[] years = new int[yearFiles.size()];
+        final int[] yearRows = new int[yearFiles.size() + 1];
+        for (int i = 0; i < yearFiles.size(); i++) {
+            years[i] = year(yearFiles.get(i));
+            yearRows[i] = compiler.firstNames.size();
+            compiler.readFirstNames(yearFiles.get(i));
+        }
+        yearRows[yearFiles.size()] = compiler.firstNames.size();
+
+        final Path surnames = sourceDirectory.resolve(SURNAME_FILE);
+        if (Files.exists(surnames)) {
+            compiler.readSurnames(surnames);
+        }
+
+        final Path parent = dictionary.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        // not createTempFile, whose owner-only permissions would hide the dictionary from other users of the directory
+        final Path temporary = parent.resolve(String.format("%s.%d.%d.tmp", dictionary.getFileName(),
+                ProcessHandle.current().pid(), Thread.currentThread().getId()));
+        try {
+            Files.write(temporary, compiler.toBytes(years, yearRows));
+            Files.move(temporary, dictionary, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        log.info("Compiled {} first name rows from {} files and {} surnames into {} in {} ms",
+                compiler.firstNames.size(), years.length, compiler.surnames.size(), dictionary,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Build step, run by the pom at process-classes: java utils.NameDictionary [sourceDirectory [dictionary]]
+     *
+     * The defaults compile the resources copied to target/classes into target/classes/names.dict, where
+     * openResource() finds it.
+     */
+    public static void main(final String[] args) throws IOException {
+        final Path sourceDirectory = Paths.get(args.length > 0 ? args[0] : BUILD_OUTPUT_DIRECTORY);
+        final Path dictionary = args.length > 1 ? Paths.get(args[1]) : Paths.get(BUILD_OUTPUT_DIRECTORY, DEFAULT_FILE_NAME);
+        compile(sourceDirectory, dictionary);
+    }
+
+    public int stringCount() {
+        return stringCount;
+    }
+
+    /**
+     * @param id string id from firstName(row) or surname(row)
+     * @return the name. Each id is decoded once and the same String is returned afterwards.
+     */
+    public String string(final int id) {
+        String value = strings[id];
+        if (value == null) {
+            final int from = buffer.getInt(stringOffsetsOffset + 4 * id);
+            final int to = buffer.getInt(stringOffsetsOffset + 4 * (id + 1));
+            final byte[] bytes = new byte[to - from];
+            final ByteBuffer view = buffer.duplicate();
+            view.position(stringBytesOffset + from);
+            view.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[id] = value;
+        }
+        return value;
+    }
+
+    public int yearCount() {
+        return yearCount;
+    }
+
+    public int year(final int yearIndex) {
+        return buffer.getInt(yearsOffset + 4 * yearIndex);
+    }
+
+    /**
+     * @return the index of the year, or -1 if no file was compiled for it
+     */
+    public int yearIndex(final int year) {
+        for (int i = 0; i < yearCount; i++) {
+            if (year(i) == year) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the first first-name row of the year; rows run up to yearRowStart(yearIndex + 1)
+     */
+    public int yearRowStart(final int yearIndex) {
+        return buffer.getInt(yearRowsOffset + 4 * yearIndex);
+    }
+
+    public int firstNameRows() {
+        return firstNameRows;
+    }
+
+    public int firstName(final int row) {
+        return buffer.getInt(firstNamesOffset + 4 * row);
+    }
+
+    public int firstNameCount(final int row) {
+        return buffer.getInt(firstCountsOffset + 4 * row);
+    }
+
+    public boolean isFemale(final int row) {
+        return (buffer.getInt(femaleOffset + 4 * (row >>> 5)) & (1 << (row & 31))) != 0;
+    }
+
+    public int surnameRows() {
+        return surnameRows;
+    }
+
+    public int surname(final int row) {
+        return buffer.getInt(surnamesOffset + 4 * row);
+    }
+
+    public int surnameRank(final int row) {
+        return buffer.getInt(surnameRanksOffset + 4 * row);
+    }
+
+    public int surnameCount(final int row) {
+        return buffer.getInt(surnameCountsOffset + 4 * row);
+    }
+
+    private static boolean isStale(final Path sourceDirectory, final Path dictionary) throws IOException {
+        final FileTime compiled = Files.getLastModifiedTime(dictionary);
+        final List<Path> sources = new ArrayList<>(yearFiles(sourceDirectory));
+        sources.add(sourceDirectory.resolve(SURNAME_FILE));
+        for (Path source : sources) {
+            if (Files.exists(source) && Files.getLastModifiedTime(source).compareTo(compiled) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the yobYYYY.txt files of the directory, oldest year first
+     */
+    private static List<Path> yearFiles(final Path sourceDirectory) throws IOException {
+        try (Stream<Path> files = Files.list(sourceDirectory)) {
+            return files
+                    .filter(file -> isYearFile(file.getFileName().toString()))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isYearFile(final String fileName) {
+        return fileName.length() == FIRSTNAME_FILE_PREFIX.length() + 4 + FIRSTNAME_FILE_SUFFIX.length()
+                && fileName.startsWith(FIRSTNAME_FILE_PREFIX)
+                && fileName.endsWith(FIRSTNAME_FILE_SUFFIX)
+                && fileName.chars().skip(FIRSTNAME_FILE_PREFIX.length()).limit(4).allMatch(Character::isDigit);
+    }
+
+    private static int year(final Path yearFile) {
+        return Integer.parseInt(yearFile.getFileName().toString().substring(FIRSTNAME_FILE_PREFIX.length(), FIRSTNAME_FILE_PREFIX.length() + 4));
+    }
+
+    /**
+     * Collects the rows and interns the names while the text files are read
+     */
+    private static final class Compiler {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private final IntList firstNames = new IntList();
+        private final IntList firstCounts = new IntList();
+        private final IntList females = new IntList();
+        private final IntList surnames = new IntList();
+        private final IntList surnameRanks = new IntList();
+        private final IntList surnameCounts = new IntList();
+
+        private int intern(final CharSequence name) {
+            final String value = name.toString();
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = strings.size();
+                ids.put(value, id);
+                strings.add(value);
+            }
+            return id;
+        }
+
+        private void readFirstNames(final Path file) throws IOException {
+            try (Reader source = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+                 DelimitedReader reader = new DelimitedReader(source, ',')) {
+                int name = -1;
+                boolean female = false;
+                while (reader.next()) {
+                    final CharSequence field = reader.field();
+                    switch (reader.column()) {
+                        case 0:
+                            name = intern(field);
+                            break;
+                        case 1:
+                            if (field.length() != 1 || (field.charAt(0) != 'F' && field.charAt(0) != 'M')) {
+                                throw malformed(file, reader.record());
+                            }
+                            female = field.charAt(0) == 'F';
+                            break;
+                        case 2:
+                            if (!reader.endOfRecord()) {
+                                throw malformed(file, reader.record());
+                            }
+                            if (female) {
+                                females.add(firstNames.size());
+                            }
+                            firstNames.add(name);
+                            firstCounts.add(parseCount(field, file, reader.record()));
+                            break;
+                        default:
+                            throw malformed(file, reader.record());
+                    }
+                    if (reader.endOfRecord() && reader.column() != 2) {
+                        throw malformed(file, reader.record());
+                    }
+                }
+            }
+        }
+
+        private void readSurnames(final Path file) throws IOException {
+            try (Reader source = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+                 DelimitedReader reader = new DelimitedReader(source, ',')) {
+                while (reader.next()) {
+                    if (reader.record() == 1) {
+                        continue; // header
+                    }
+                    switch (reader.column()) {
+                        case SURNAME_NAME_COLUMN:
+                            surnames.add(intern(reader.field()));
+                            break;
+                        case SURNAME_RANK_COLUMN:
+                            surnameRanks.add(parseCount(reader.field(), file, reader.record()));
+                            break;
+                        case SURNAME_COUNT_COLUMN:
+                            surnameCounts.add(parseCount(reader.field(), file, reader.record()));
+                            break;
+                        default:
+                            break;
+                    }
+                    if (reader.endOfRecord() && reader.column() < SURNAME_COUNT_COLUMN) {
+                        throw malformed(file, reader.record());
+                    }
+                }
+            }
+        }
+
+        private byte[] toBytes(final int[] years, final int[] yearRows) {
+            final byte[][] encoded = new byte[strings.size()][];
+            int stringBytes = 0;
+            for (int i = 0; i < encoded.length; i++) {
+                encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+                stringBytes += encoded[i].length;
+            }
+
+            final int rows = firstNames.size();
+            final int[] femaleBits = new int[(rows + 31) / 32];
+            for (int i = 0; i < females.size(); i++) {
+                final int row = females.get(i);
+                femaleBits[row >>> 5] |= 1 << (row & 31);
+            }
+
+            final int size = HEADER_SIZE
+                    + 4 * (years.length + yearRows.length + 2 * rows + femaleBits.length + 3 * surnames.size() + encoded.length + 1)
+                    + stringBytes;
+            final ByteBuffer out = ByteBuffer.allocate(size);
+            out.putInt(MAGIC).putInt(VERSION).putInt(years.length).putInt(rows).putInt(surnames.size())
+                    .putInt(encoded.length).putInt(stringBytes).putInt(0);
+            put(out, years, years.length);
+            put(out, yearRows, yearRows.length);
+            firstNames.putInto(out);
+            firstCounts.putInto(out);
+            put(out, femaleBits, femaleBits.length);
+            surnames.putInto(out);
+            surnameRanks.putInto(out);
+            surnameCounts.putInto(out);
+            int offset = 0;
+            for (byte[] bytes : encoded) {
+                out.putInt(offset);
+                offset += bytes.length;
+            }
+            out.putInt(offset);
+            for (byte[] bytes : encoded) {
+                out.put(bytes);
+            }
+            return out.array();
+        }
+    }
+
+    private static int parseCount(final CharSequence field, final Path file, final long record) throws IllegalArgumentException {
+        if (field.length() == 0 || field.length() > 9) {
+            throw malformed(file, record);
+        }
+        int value = 0;
+        for (int i = 0; i < field.length(); i++) {
+            final char c = field.charAt(i);
+            if (c < '0' || c > '9') {
+                throw malformed(file, record);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException malformed(final Path file, final long record) {
+        String message = String.format("Line %d of the name file [%s] is not in the expected format", record, file);
+        return new IllegalArgumentException(message);
+    }
+
+    private static void put(final ByteBuffer out, final int[] values, final int length) {
+        for (int i = 0; i < length; i++) {
+            out.putInt(values[i]);
+        }
+    }
+
+    /**
+     * Growable int array, so compiling does not box a value per row
+     */
+    private static final class IntList {
+        private int[] values = new int[1024];
+        private int size;
+
+        private void add(final int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int get(final int index) {
+            return values[index];
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private void putInto(final ByteBuffer out) {
+            put(out, values, size);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Read-only totals for every name and gender in a set of US SSA files
+ *
+ * Entries live in parallel arrays: the name, its total count, the number of files (years) it appears in and a bit
+ * that is set for female entries. An open-addressed index of entry numbers finds an entry from a name without
+ * allocating, so a lookup touches two int arrays and the name's characters instead of a key object, a value object and
+ * two boxed Integers. The same name can appear twice, once per gender.
+ *
+ * Names are compared without regard to case, like SurnameTable.find(), so MARY and mary find the entry of Mary from
+ * the SSA files. An entry keeps the name as it was first added.
+ *
+ * Build a table with the Builder; the table itself never changes and can be shared by any number of threads.
+ */
+public final class NameFrequencyTable {
+
+    private static final int EMPTY = -1;
+
+    private final String[] names;
+    private final int[] counts;
+    private final int[] frequencies;
+    private final long[] female;
+    private final int[] index;
+    private final int size;
+    private final long femaleWeight;
+    private final long maleWeight;
+
+    private NameFrequencyTable(final Builder builder) {
+        this.size = builder.size;
+        this.names = Arrays.copyOf(builder.names, size);
+        this.counts = Arrays.copyOf(builder.counts, size);
+        this.frequencies = Arrays.copyOf(builder.frequencies, size);
+        this.female = Arrays.copyOf(builder.female, (size + 63) >>> 6);
+        this.index = builder.index.clone();
+
+        long femaleTotal = 0;
+        long maleTotal = 0;
+        for (int i = 0; i < size; i++) {
+            if (isFemale(i)) {
+                femaleTotal += counts[i];
+            } else {
+                maleTotal += counts[i];
+            }
+        }
+        this.femaleWeight = femaleTotal;
+        this.maleWeight = maleTotal;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the number of entries; entry numbers run from 0 to size() - 1 in the order they were first added
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param name name to look up in any case, compared character by character so a reused buffer can be passed
+     * @return the entry number of the name with that gender, or -1 if there is none
+     */
+    public int find(final CharSequence name, final boolean isFemale) {
+        return find(index, names, female, name, isFemale);
+    }
+
+    public String name(final int entry) {
+        return names[entry];
+    }
+
+    public int count(final int entry) {
+        return counts[entry];
+    }
+
+    public int frequency(final int entry) {
+        return frequencies[entry];
+    }
+
+    public boolean isFemale(final int entry) {
+        return isSet(female, entry);
+    }
+
+    /**
+     * @return the total count of every female entry
+     */
+    public long getFemaleWeight() {
+        return femaleWeight;
+    }
+
+    /**
+     * @return the total count of every male entry
+     */
+    public long getMaleWeight() {
+        return maleWeight;
+    }
+
+    private static int find(final int[] index, final String[] names, final long[] female, final CharSequence name, final boolean isFemale) {
+        final int mask = index.length - 1;
+        for (int slot = Names.hashIgnoreCase(name, isFemale ? 1 : 0) & mask; ; slot = (slot + 1) & mask) {
+            final int entry = index[slot];
+            if (entry == EMPTY) {
+                return EMPTY;
+            }
+            if (isSet(female, entry) == isFemale && Names.equalsIgnoreCase(names[entry], name)) {
+                return entry;
+            }
+        }
+    }
+
+    private static boolean isSet(final long[] bits, final int entry) {
+        return (bits[entry >>> 6] & (1L << entry)) != 0;
+    }
+
+    /**
+     * Collects totals. Adding a name and gender that is already present, in any case, adds to its count and frequency.
+     */
+    public static final class Builder {
+        private String[] names = new String[1024];
+        private int[] counts = new int[1024];
+        private int[] frequencies = new int[1024];
+        private long[] female = new long[1024 >>> 6];
+        private int[] index = emptyIndex(2048);
+        private int size;
+
+        private Builder() {
+        }
+
+        /**
+         * @throws IllegalArgumentException if the name is null or the count or frequency is negative
+         */
+        public Builder add(final String name, final boolean isFemale, final int count, final int frequency) throws IllegalArgumentException {
+            if (name == null || count < 0 || frequency < 0) {
+                String message = String.format("Unable to add [%s] with count %d and frequency %d", name, count, frequency);
+                throw new IllegalArgumentException(message);
+            }
+
+            final int mask = index.length - 1;
+            int slot = Names.hashIgnoreCase(name, isFemale ? 1 : 0) & mask;
+            for (int entry = index[slot]; entry != EMPTY; entry = index[slot]) {
+                if (isSet(female, entry) == isFemale && Names.equalsIgnoreCase(names[entry], name)) {
+                    counts[entry] += count;
+                    frequencies[entry] += frequency;
+                    return this;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            if (size == names.length) {
+                grow();
+            }
+            names[size] = name;
+            counts[size] = count;
+            frequencies[size] = frequency;
+            if (isFemale) {
+                female[size >>> 6] |= 1L << size;
+            }
+            // keep the index at most half full
+            if (2 * (size + 1) > index.length) {
+                index = emptyIndex(index.length * 2);
+                for (int entry = 0; entry < size; entry++) {
+                    insert(entry);
+                }
+                insert(size);
+            } else {
+                index[slot] = size;
+            }
+            size++;
+            return this;
+        }
+
+        public NameFrequencyTable build() {
+            return new NameFrequencyTable(this);
+        }
+
+        private void insert(final int entry) {
+            final int mask = index.length - 1;
+            int slot = Names.hashIgnoreCase(names[entry], isSet(female, entry) ? 1 : 0) & mask;
+            while (index[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = entry;
+        }
+
+        private void grow() {
+            final int capacity = names.length * 2;
+            names = Arrays.copyOf(names, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            frequencies = Arrays.copyOf(frequencies, capacity);
+            female = Arrays.copyOf(female, capacity >>> 6);
+        }
+
+        private static int[] emptyIndex(final int capacity) {
+            final int[] index = new int[capacity];
+            Arrays.fill(index, EMPTY);
+            return index;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package utils;
+
+/**
+ * How the name tables compare names: without regard to case, over any CharSequence and without allocating
+ *
+ * NameFrequencyTable and SurnameTable both use these, so a first name and a last name are matched the same way.
+ */
+final class Names {
+
+    private Names() {
+    }
+
+    static boolean equalsIgnoreCase(final String name, final CharSequence other) {
+        final int length = name.length();
+        if (length != other.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (Character.toUpperCase(name.charAt(i)) != Character.toUpperCase(other.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * String.hashCode of the upper case name over any CharSequence, started from the given value so a table can fold
+     * in more of its key, with the bits spread so that neighbouring hashes do not fill neighbouring slots
+     */
+    static int hashIgnoreCase(final CharSequence name, final int initial) {
+        int h = initial;
+        for (int i = 0; i < name.length(); i++) {
+            h = 31 * h + Character.toUpperCase(name.charAt(i));
+        }
+        h *= 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,132 @@
+package utils;
+
+import lombok.Value;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and a latency histogram for one masking operation, typically one column rule
+ *
+ * Every counter is a LongAdder, so the threads of a parallel job record into their own cells and only snapshot()
+ * adds them up.
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+
+    /**
+     * Totals and latency percentiles of an operation at one point in time
+     */
+    @Value
+    public static class Snapshot {
+        String name;
+        long calls;
+        long failures;
+        long characters;
+        long totalNanos;
+        long p50Nanos;
+        long p90Nanos;
+        long p99Nanos;
+        long p999Nanos;
+        long maxNanos;
+
+        /**
+         * @return characters masked per second of time spent inside the operation
+         */
+        public double charactersPerSecond() {
+            return totalNanos == 0 ? 0 : characters * 1e9 / totalNanos;
+        }
+    }
+
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder characters = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    OperationMetrics(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param nanos time taken by one call
+     * @param characters length of the value it masked
+     */
+    public void record(final long nanos, final int characters) {
+        calls.increment();
+        this.characters.add(characters);
+        totalNanos.add(nanos);
+        latency.record(nanos);
+    }
+
+    /**
+     * Count a call that threw; its latency is not recorded
+     */
+    public void failed() {
+        calls.increment();
+        failures.increment();
+    }
+
+    public Snapshot snapshot() {
+        final long[] percentiles = latency.percentiles(50, 90, 99, 99.9);
+        return new Snapshot(name, calls.sum(), failures.sum(), characters.sum(), totalNanos.sum(),
+                percentiles[0], percentiles[1], percentiles[2], percentiles[3], latency.max());
+    }
+
+    public void reset() {
+        calls.reset();
+        failures.reset();
+        characters.reset();
+        totalNanos.reset();
+        latency.reset();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getCharacters() {
+        return characters.sum();
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return latency.percentile(50);
+    }
+
+    @Override
+    public long getP90Nanos() {
+        return latency.percentile(90);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return latency.percentile(99);
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return latency.percentile(99.9);
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return latency.max();
+    }
+}
@@ -0,0 +1,27 @@
+package utils;
+
+/**
+ * JMX view of one masking operation; see OperationMetrics
+ */
+public interface OperationMetricsMXBean {
+
+    String getName();
+
+    long getCalls();
+
+    long getFailures();
+
+    long getCharacters();
+
+    long getTotalNanos();
+
+    long getP50Nanos();
+
+    long getP90Nanos();
+
+    long getP99Nanos();
+
+    long getP999Nanos();
+
+    long getMaxNanos();
+}
@@ -4,20 +4,23 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.configuration2.YAMLConfiguration;
-import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.configuration2.ImmutableHierarchicalConfiguration;
 
 import javax.validation.constraints.NotNull;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDate;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 
@@ -50,23 +53,21 @@ public class ProcessFirstNames {
         String gender;
     }
 
-    @Value
-    @Builder
-    static class value_column {
-        Integer count;
-        Integer frequency;
-    }
-
     // Constants to be used as defaults in case there is some issue reading application.yaml
     private static final String FIRSTNAME_FILE_PREFIX = "yob";
     private static final String FIRSTNAME_FILE_SUFFIX = ".txt";
-    private static final String FIRSTNAME_FILE_LOCATION = "/src/main/resources";
     private static final String FIRSTNAME_FIELD_SEPARATOR = ",";
     private static final Integer FIRSTNAME_START_YEAR = 1920;
     private static final Integer FIRSTNAME_END_YEAR = 2020;
     private static final Integer FIRSTNAME_INCREMENT = 10;
 
+    // gender initials used in the SSA files; keys share these instances instead of a String per row
+    private static final String GENDER_FEMALE = "F";
+    private static final String GENDER_MALE = "M";
+
     private FileUtils.FileParameters fileParameters;
+    private Path directory;
+    private Path dictionary;
 
     /*
     A note on threadsafe collections
@@ -79,19 +80,17 @@ public class ProcessFirstNames {
 
     private Set<String> requestedFiles = Collections.synchronizedSet(new HashSet<>());
 
-    //private ConcurrentHashMap<String, value_columns> names = new ConcurrentHashMap<String, value_columns>();
-    private final ConcurrentHashMap<key_column, value_column> names = new ConcurrentHashMap<key_column, value_column>();
-    private final ConcurrentHashMap<key_column, value_column> weighted_male_names = new ConcurrentHashMap<key_column, value_column>();
-    private final ConcurrentHashMap<key_column, value_column> weighted_female_names = new ConcurrentHashMap<key_column, value_column>();
+    // total count and number of requested years for every name and gender that was read
+    @Getter
+    private NameFrequencyTable names = NameFrequencyTable.builder().build();
 
+    // per year rows of every compiled file, or null if the text files had to be read instead
+    @Getter
+    private NameDictionary nameDictionary;
 
     private final Integer upper = 0;
     private final Integer duplicateUpper = 0;
 
-    private final Integer totalNumberOfFiles = 0;
-    private Integer maleWeight = 0;
-    private Integer femaleWeight = 0;
-
     @Getter
     @Builder(builderClassName = "Builder", buildMethodName = "build")
     static class RequestParameters {
@@ -129,28 +128,21 @@ public class ProcessFirstNames {
             }
 
             private void readDefaultValues() {
-                YAMLConfiguration yamlConfiguration = new YAMLConfiguration();
-                URL url =  getClass().getClassLoader().getResource("application.yaml");
-                try (InputStream inputStream = url.openStream()) {
-                    yamlConfiguration.read(inputStream);
-                    startYearDefault = yamlConfiguration.get(Integer.class, "substitution.firstNameStart", FIRSTNAME_START_YEAR);
-                    endYearDefault = yamlConfiguration.get(Integer.class, "substitution.firstNameEnd", FIRSTNAME_END_YEAR);
-                    incrementDefault = yamlConfiguration.get(Integer.class, "substitution.firstNameIncrement", FIRSTNAME_INCREMENT);
-                } catch (ConfigurationException | IOException e) {
-                    log.info("Unable to read the configuration file for substitution values. Using hardcoded defaults.");
-                }
+                ImmutableHierarchicalConfiguration configuration = ApplicationConfiguration.get();
+                startYearDefault = configuration.get(Integer.class, "substitution.firstNameStart", FIRSTNAME_START_YEAR);
+                endYearDefault = configuration.get(Integer.class, "substitution.firstNameEnd", FIRSTNAME_END_YEAR);
+                incrementDefault = configuration.get(Integer.class, "substitution.firstNameIncrement", FIRSTNAME_INCREMENT);
             }
         }
     }
 
 
     public ProcessFirstNames() throws IllegalArgumentException {
-        RequestParameters requestParameters = RequestParameters.builder()
+        this(RequestParameters.builder()
                 .startYear(FIRSTNAME_START_YEAR)
                 .endYear(FIRSTNAME_END_YEAR)
                 .increment(FIRSTNAME_INCREMENT)
-                .build();
-        new ProcessFirstNames(requestParameters);
+                .build());
     }
 
     public ProcessFirstNames(@NotNull final RequestParameters requestParameters) throws IllegalArgumentException {
@@ -162,7 +154,9 @@ public class ProcessFirstNames {
 
         // get the parameters that will be used to retrieve data files
         this.fileParameters = populateFileParameters();
-        FileUtils fileUtils = new FileUtils(this.fileParameters);
+        this.directory = sourceDirectory(buildFileName(requestParameters.getStartYear(), 0));
+        this.dictionary = populateDictionary();
+        FileUtils fileUtils = new FileUtils(this.directory, this.fileParameters);
 
         // validate the requested file list actually exists in the target file system
         AbstractMap.SimpleImmutableEntry<Boolean, String> validation = validateRequest(requestParameters, fileUtils);
@@ -173,6 +167,7 @@ public class ProcessFirstNames {
         }
 
         // process the requested files
+        read();
     }
 
     /**
@@ -194,7 +189,7 @@ public class ProcessFirstNames {
         Integer startYear = requestParameters.getStartYear();
         Integer endYear = requestParameters.getEndYear();
         Integer increment = requestParameters.getIncrement();
-        Integer requestFileCount = (startYear - endYear) / increment;
+        Integer requestFileCount = (endYear - startYear) / increment + 1;
         Integer availableFileCount = fileUtils.getCount();
 
         // if more files have been requested than are available, log the error but continue
@@ -208,7 +203,7 @@ public class ProcessFirstNames {
         // Build the file names that are requested and compare the result to the actual available files
         Set<String> availableFiles = fileUtils.getFileNames();
         Set<String> requestedFiles = new HashSet<>();
-        for (int i = 0; i <= requestFileCount; i++) {
+        for (int i = 0; i < requestFileCount; i++) {
             requestedFiles.add(buildFileName(startYear, i * increment));
         }
 
@@ -230,138 +225,293 @@ public class ProcessFirstNames {
             this.requestedFiles = requestedFiles;
         }
 
-        return new AbstractMap.SimpleImmutableEntry(result, messages.toString);
+        return new AbstractMap.SimpleImmutableEntry(result, messages.toString());
     }
 
     /**
      * Get information about the directory and files containing first name information
      *
      * @return FileParameters object with values for file location, prefix and suffix extracted from
-     *          yaml file or from class-level defaults
+     *          yaml file or from class-level defaults; the location is null unless it is configured
      */
     private FileUtils.FileParameters populateFileParameters() {
-        //TODO extenralize this
-        YAMLConfiguration yamlConfiguration = new YAMLConfiguration();
-        URL url =  getClass().getClassLoader().getResource("application.yaml");
-
-        try (InputStream inputStream = Objects.requireNonNull(url).openStream()) {
-            yamlConfiguration.read(inputStream);
-            log.info("Populating fileparameters object with values stored in yaml");
-            return FileUtils.FileParameters.builder()
-                    .extension(yamlConfiguration.get(String.class, "substitution.firstNameFileSuffix"))
-                    .nameContains(yamlConfiguration.get(String.class, "substitution.firstNameFilePrefix"))
-                    .directory(yamlConfiguration.get(String.class, "substitution.firstNameFileDirectory"))
-                    .fieldSeparator(yamlConfiguration.get(String.class, "substitution.firstNameFieldSeparator"))
-                    .build();
-        } catch (ConfigurationException | IOException e) {
-            log.warn("Unable to read the configuration file for first name file parameters values. Using hardcoded defaults.");
-            return FileUtils.FileParameters.builder()
-                    .extension(FIRSTNAME_FILE_SUFFIX)
-                    .nameContains(FIRSTNAME_FILE_PREFIX)
-                    .directory(FIRSTNAME_FILE_LOCATION)
-                    .directory(FIRSTNAME_FIELD_SEPARATOR)
-                    .build();
-        }
+        ImmutableHierarchicalConfiguration configuration = ApplicationConfiguration.get();
+        log.info("Populating fileparameters object with values stored in yaml");
+        return FileUtils.FileParameters.builder()
+                .extension(configuration.get(String.class, "substitution.firstNameFileSuffix", FIRSTNAME_FILE_SUFFIX))
+                .nameContains(configuration.get(String.class, "substitution.firstNameFilePrefix", FIRSTNAME_FILE_PREFIX))
+                .directory(configuration.get(String.class, "substitution.firstNameFileDirectory", null))
+                .fieldSeparator(configuration.get(String.class, "substitution.firstNameFieldSeparator", FIRSTNAME_FIELD_SEPARATOR))
+                .build();
     }
 
     /**
+     * The directory of the yob files: substitution.firstNameFileDirectory when it is configured (best given as an
+     * absolute path, since a relative one depends on where the JVM was started), otherwise the directory that holds
+     * the files on the classpath. That directory may be inside a jar, as on a Spark executor; the jar is opened as a
+     * file system once per JVM and stays open.
      *
-     * @param fileName
+     * @param fileName one of the requested files, used to find the directory on the classpath
+     * @throws IllegalArgumentException if the files are not configured and not on the classpath
      */
-    private void readFile(final String fileName) {
-
-        try (BufferedReader br = Files.newBufferedReader(Paths.get(ClassLoader.getSystemResource(fileName).toURI()))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-
-                String[] columns = line.split(FIRSTNAME_FIELD_SEPARATOR);
-                key_column keyColumn = buildKeyColumn(fileName, columns);
-
-                int count = Integer.parseInt(columns[2]);
-                //names.compute(name, (key, value) -> value == null ?
-                //        value_column.builder().count(count).frequency(1).build() :
-                //        value_column.builder().count(value.getCount() + count).frequency(value.getFrequency() + 1).build());
-
-                names.compute(keyColumn, (key, value) -> {
-                    if (value != null ) {
-                        return value_column.builder().count(value.getCount() + count).frequency(value.getFrequency() + 1).build();
-                    } else {
-                        return value_column.builder().count(count).frequency(1).build();
-                    }
-                });
+    private Path sourceDirectory(final String fileName) throws IllegalArgumentException {
+        if (fileParameters.getDirectory() != null) {
+            return Paths.get(fileParameters.getDirectory());
+        }
+        final URL resource = ProcessFirstNames.class.getClassLoader().getResource(fileName);
+        if (resource == null) {
+            String message = String.format("The first name file [%s] was not found on the classpath and substitution.firstNameFileDirectory is not set", fileName);
+            throw new IllegalArgumentException(message);
+        }
+        try {
+            final URI uri = resource.toURI();
+            if ("jar".equals(uri.getScheme())) {
+                try {
+                    FileSystems.newFileSystem(uri, Collections.emptyMap());
+                } catch (FileSystemAlreadyExistsException e) {
+                    // opened by an earlier instance
+                }
             }
-        } catch (IOException | URISyntaxException e) {
-            e.printStackTrace();
+            return Paths.get(uri).getParent();
+        } catch (URISyntaxException | IOException e) {
+            String message = String.format("Unable to open the first name files at [%s]", resource);
+            throw new IllegalArgumentException(message, e);
         }
     }
 
-    private key_column buildKeyColumn(final String fileName, final String[] columns) {
-        return key_column.builder()
-                //.year(fileName.replaceAll(FIRSTNAME_FILE_PREFIX, "").replaceAll(FIRSTNAME_FILE_SUFFIX, ""))
-                .name(columns[0])
-                .gender(columns[1])
-                .build();
+    /**
+     * @return location of the compiled name dictionary from the yaml file, or null to use the one the build compiles
+     * onto the classpath
+     */
+    private Path populateDictionary() {
+        final String dictionary = ApplicationConfiguration.get().get(String.class, "substitution.firstNameDictionary", null);
+        return dictionary == null ? null : Paths.get(dictionary);
     }
 
     /**
-     * Read US SSA baby name files
+     * Read the requested US SSA baby name files and replace the name totals with the result
+     *
+     * The names come from the memory-mapped NameDictionary, compiled by the build. If it cannot be used,
+     * each file is parsed by its own fork-join task into a private map, and the maps are merged as the tasks join, so
+     * the frequency table is built once per name rather than once per row of every file.
      */
-    private void read(final RequestParameters requestParameters) {
-        LocalDate a = LocalDate.now();
-        /*
-        readFiles(FileUtils.FileParameters.builder()
-                .directory(firstNameFileParameters.directory)
-                .nameContains(firstNameFileParameters.nameContains)
-                .extension(firstNameFileParameters.extension)
-                .build());
-*/
+    private void read() {
+        final long start = System.nanoTime();
+        final String[] files = requestedFiles.toArray(new String[0]);
+        Arrays.sort(files);
+        final byte separator = (byte) DelimitedReader.separator(fileParameters.getFieldSeparator());
+
+        NameFrequencyTable table = readDictionary(files);
+        if (table == null) {
+            final Map<key_column, Tally> tallies = files.length == 0
+                    ? Collections.emptyMap()
+                    : ForkJoinPool.commonPool().invoke(new ReadTask(directory, separator, files, 0, files.length));
+            final NameFrequencyTable.Builder builder = NameFrequencyTable.builder();
+            tallies.forEach((key, tally) -> builder.add(key.getName(), GENDER_FEMALE.equals(key.getGender()), tally.count, tally.frequency));
+            table = builder.build();
+        }
+        names = table;
 
-        System.out.println(names.size());  // 68165
-        /*
-        names.forEach((key, value) -> {
-            if (value.getCount() < THRESHOLD) {
-                names.remove(key);
-            }
-        });
-        System.out.println(names.size()); //12492
-        //createDataSet();
-        */
-        calculateGenderedWeights();
-        System.out.println(femaleWeight); //17699977
-        System.out.println(maleWeight);   //18527741
+        log.info("Read {} first names from {} files in {} ms", names.size(), files.length,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     }
 
-    private void calculateGenderedWeights() {
-        names.forEach((key, value) -> {
-            if (key.getGender().contains("F")) {
-                this.femaleWeight = this.femaleWeight + value.getCount();
+    /**
+     * Total the requested years from the name dictionary
+     *
+     * A configured substitution.firstNameDictionary is compiled from the yob directory on its first use. Otherwise
+     * the dictionary on the classpath is used, as long as the yob files come from the classpath too; it was compiled
+     * from them by the build.
+     *
+     * @return the totals, or null if the dictionary cannot be opened or compiled or lacks one of the requested years
+     */
+    private NameFrequencyTable readDictionary(final String[] files) {
+        final NameDictionary nameDictionary;
+        try {
+            if (dictionary != null) {
+                nameDictionary = NameDictionary.openOrCompile(directory, dictionary);
+            } else if (fileParameters.getDirectory() == null) {
+                nameDictionary = NameDictionary.openResource();
             } else {
-                this.maleWeight = this.maleWeight + value.getCount();
+                nameDictionary = null;
             }
-        });
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Unable to use the name dictionary [{}], the text files will be read instead", dictionaryName(), e);
+            return null;
+        }
+        if (nameDictionary == null) {
+            return null;
+        }
+        this.nameDictionary = nameDictionary;
+
+        final NameFrequencyTable.Builder builder = NameFrequencyTable.builder();
+        for (String file : files) {
+            final int year = Integer.parseInt(file.substring(FIRSTNAME_FILE_PREFIX.length(), file.length() - FIRSTNAME_FILE_SUFFIX.length()));
+            final int yearIndex = nameDictionary.yearIndex(year);
+            if (yearIndex < 0) {
+                log.warn("The name dictionary [{}] has no names for {}, the text files will be read instead", dictionaryName(), year);
+                return null;
+            }
+            for (int row = nameDictionary.yearRowStart(yearIndex), end = nameDictionary.yearRowStart(yearIndex + 1); row < end; row++) {
+                builder.add(nameDictionary.string(nameDictionary.firstName(row)), nameDictionary.isFemale(row), nameDictionary.firstNameCount(row), 1);
+            }
+        }
+        return builder.build();
     }
 
-    private void createDataset() {
+    private String dictionaryName() {
+        return dictionary == null ? "classpath:" + NameDictionary.DEFAULT_FILE_NAME : dictionary.toString();
+    }
 
+    public long getFemaleWeight() {
+        return names.getFemaleWeight();
     }
 
+    public long getMaleWeight() {
+        return names.getMaleWeight();
+    }
 
-    private void readFiles(final FileUtils.FileParameters fileParameters)  {
-        int j = 10;
+    /**
+     * Running total for one name and gender while files are read and merged. It is mutable so a row costs an addition
+     * instead of a new object.
+     */
+    private static final class Tally {
+        private int count;
+        private int frequency;
+
+        private Tally(final int count, final int frequency) {
+            this.count = count;
+            this.frequency = frequency;
+        }
+
+        private void add(final int count, final int frequency) {
+            this.count += count;
+            this.frequency += frequency;
+        }
+    }
 
-        if (j < 1) {
-            log.error("The number of files to be read must be 1 or more. You passed " + j + ". No files will be read.");
-            j = 0;
+    /**
+     * Reads files[from, to) by splitting the range in half until a task holds a single file
+     */
+    private static final class ReadTask extends RecursiveTask<Map<key_column, Tally>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+        private final byte separator;
+        private final String[] files;
+        private final int from;
+        private final int to;
+
+        private ReadTask(final Path directory, final byte separator, final String[] files, final int from, final int to) {
+            this.directory = directory;
+            this.separator = separator;
+            this.files = files;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<key_column, Tally> compute() {
+            if (to - from == 1) {
+                return readFile(directory.resolve(files[from]), separator);
+            }
+            final int middle = (from + to) >>> 1;
+            final ReadTask right = new ReadTask(directory, separator, files, middle, to);
+            right.fork();
+            final Map<key_column, Tally> left = new ReadTask(directory, separator, files, from, middle).compute();
+            return merge(left, right.join());
+        }
+    }
+
+    /**
+     * Add the smaller map's totals into the larger one
+     *
+     * @return the larger map, holding the totals of both
+     */
+    private static Map<key_column, Tally> merge(final Map<key_column, Tally> first, final Map<key_column, Tally> second) {
+        final Map<key_column, Tally> into = first.size() >= second.size() ? first : second;
+        final Map<key_column, Tally> from = into == first ? second : first;
+        for (Map.Entry<key_column, Tally> entry : from.entrySet()) {
+            final Tally tally = entry.getValue();
+            final Tally existing = into.putIfAbsent(entry.getKey(), tally);
+            if (existing != null) {
+                existing.add(tally.count, tally.frequency);
+            }
         }
+        return into;
+    }
 
-        if (j > totalNumberOfFiles) {
-            log.error("The number of files to be read must less than the total number of files:  " + totalNumberOfFiles + ". All files will be read.");
-            j = totalNumberOfFiles;
+    /**
+     * Parse one US SSA file. Every line is name, gender initial (F or M) and count; the file is read in one call and
+     * scanned byte by byte rather than split into a String per line and another per column.
+     *
+     * @throws IllegalArgumentException if the file cannot be read or a line is not in the expected format
+     */
+    private static Map<key_column, Tally> readFile(final Path file, final byte separator) throws IllegalArgumentException {
+        final byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (IOException e) {
+            String message = String.format("Unable to read the first name file [%s]", file);
+            throw new IllegalArgumentException(message, e);
         }
 
-        for (int i = 0; i < j; i++) {
-            readFile(buildFileName(i * INCREMENT_YEAR));
+        // the files average a little under 16 bytes a line
+        final Map<key_column, Tally> tallies = new HashMap<>(bytes.length / 12);
+        final int length = bytes.length;
+        int line = 1;
+        int i = 0;
+        while (i < length) {
+            if (bytes[i] == '\n') {
+                line++;
+                i++;
+                continue;
+            }
+            if (bytes[i] == '\r') {
+                i++;
+                continue;
+            }
+
+            final int nameStart = i;
+            while (i < length && bytes[i] != separator && bytes[i] != '\r' && bytes[i] != '\n') {
+                i++;
+            }
+            if (i == nameStart || i + 2 >= length || bytes[i] != separator || bytes[i + 2] != separator) {
+                throw malformed(file, line);
+            }
+            final String name = new String(bytes, nameStart, i - nameStart, StandardCharsets.UTF_8);
+
+            final String gender;
+            if (bytes[i + 1] == 'F') {
+                gender = GENDER_FEMALE;
+            } else if (bytes[i + 1] == 'M') {
+                gender = GENDER_MALE;
+            } else {
+                throw malformed(file, line);
+            }
+
+            i += 3;
+            final int countStart = i;
+            int count = 0;
+            while (i < length && bytes[i] >= '0' && bytes[i] <= '9' && i - countStart < 9) {
+                count = count * 10 + (bytes[i] - '0');
+                i++;
+            }
+            if (i == countStart || (i < length && bytes[i] != '\r' && bytes[i] != '\n')) {
+                throw malformed(file, line);
+            }
+
+            final Tally existing = tallies.putIfAbsent(new key_column(name, gender), new Tally(count, 1));
+            if (existing != null) {
+                existing.add(count, 1);
+            }
         }
+        return tallies;
+    }
+
+    private static IllegalArgumentException malformed(final Path file, final int line) {
+        String message = String.format("Line %d of the first name file [%s] is not name,gender,count", line, file);
+        return new IllegalArgumentException(message);
     }
 
     /**
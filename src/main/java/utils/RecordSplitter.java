@@ -0,0 +1,141 @@
+package utils;
+
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Divide a delimited file into byte ranges of whole records so the ranges can be parsed independently
+ *
+ * A line break inside a quoted field does not end a record, and whether a byte is inside quotes depends on every quote
+ * before it, so the file is scanned once from the start of the range with the same rules as DelimitedReader: a quote
+ * opens a quoted section only at the start of a field, and "" inside one stands for a quote. The scan only looks at
+ * bytes, so it runs far faster than parsing and masking the chunks it produces.
+ *
+ * Each chunk ends just after the line break of the first record that takes it to chunkSize bytes or more, and knows
+ * the number of its first record so errors can still name the record they come from.
+ */
+public final class RecordSplitter {
+
+    static final long DEFAULT_CHUNK_SIZE = 64L * 1024 * 1024;
+
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final byte QUOTE = '"';
+
+    /**
+     * A range of whole records: [from, to) in bytes, starting with record number firstRecord
+     */
+    @Value
+    public static class Chunk {
+        long from;
+        long to;
+        long firstRecord;
+    }
+
+    private RecordSplitter() {
+    }
+
+    /**
+     * @param file UTF-8 delimited file
+     * @param separator field separator
+     * @param from offset of the first record to split, e.g. just past a header
+     * @param firstRecord number of the record that starts at from
+     * @param chunkSize smallest number of bytes in a chunk; only the last chunk can be smaller
+     * @return chunks covering [from, end of file) in order, none if the range is empty
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the range or the chunk size cannot be used
+     */
+    public static List<Chunk> split(final Path file, final char separator, final long from, final long firstRecord,
+                                    final long chunkSize) throws IOException, IllegalArgumentException {
+        if (chunkSize < 1 || from < 0 || firstRecord < 1) {
+            String message = String.format("Unable to split from byte %d (record %d) into chunks of %d bytes", from, firstRecord, chunkSize);
+            throw new IllegalArgumentException(message);
+        }
+
+        final List<Chunk> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            long chunkStart = from;
+            long record = firstRecord;
+            long chunkRecord = firstRecord;
+
+            boolean fieldStart = true;
+            boolean quoted = false;
+            boolean closingQuote = false;
+            boolean carriageReturn = false;
+
+            for (long windowStart = from; windowStart < size; windowStart += WINDOW_SIZE) {
+                final int length = (int) Math.min(WINDOW_SIZE, size - windowStart);
+                final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+                for (int i = 0; i < length; i++) {
+                    final byte c = window.get(i);
+                    long recordEnd = -1;
+
+                    if (carriageReturn) {
+                        carriageReturn = false;
+                        if (c == '\n') {
+                            recordEnd = windowStart + i + 1;
+                        } else {
+                            // a lone \r ended the record before this byte, which starts the next one
+                            record++;
+                            if (windowStart + i - chunkStart >= chunkSize) {
+                                chunks.add(new Chunk(chunkStart, windowStart + i, chunkRecord));
+                                chunkStart = windowStart + i;
+                                chunkRecord = record;
+                            }
+                        }
+                    }
+
+                    if (recordEnd < 0) {
+                        if (quoted) {
+                            if (c == QUOTE) {
+                                quoted = false;
+                                closingQuote = true;
+                            }
+                            continue;
+                        }
+                        if (c == QUOTE && (fieldStart || closingQuote)) {
+                            // an opening quote, or the second half of ""
+                            quoted = true;
+                            fieldStart = false;
+                            closingQuote = false;
+                            continue;
+                        }
+                        closingQuote = false;
+                        if (c == separator) {
+                            fieldStart = true;
+                        } else if (c == '\n') {
+                            recordEnd = windowStart + i + 1;
+                        } else if (c == '\r') {
+                            carriageReturn = true;
+                            fieldStart = true;
+                        } else {
+                            fieldStart = false;
+                        }
+                    }
+
+                    if (recordEnd >= 0) {
+                        record++;
+                        fieldStart = true;
+                        if (recordEnd - chunkStart >= chunkSize) {
+                            chunks.add(new Chunk(chunkStart, recordEnd, chunkRecord));
+                            chunkStart = recordEnd;
+                            chunkRecord = record;
+                        }
+                    }
+                }
+            }
+
+            if (chunkStart < size) {
+                chunks.add(new Chunk(chunkStart, size, chunkRecord));
+            }
+        }
+        return chunks;
+    }
+}
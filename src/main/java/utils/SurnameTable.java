@@ -0,0 +1,171 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Read-only table of the most common US surnames (most-common-name_surnames.csv) in rank order, with O(1) draws
+ *
+ * Entries live in parallel arrays indexed by row, most common first: the name, its rank and the number of people who
+ * have it. Three kinds of draw are offered, each a constant number of array reads:
+ * <ul>
+ *     <li>uniform: every surname is equally likely</li>
+ *     <li>weighted: in proportion to the counts, through an alias table (Vose's method, as in WeightedRandomBag)
+ *     held in two primitive arrays</li>
+ *     <li>similar rank: one of the surnames up to a band of rows either side of a given row, so a replacement is about as
+ *     common as the original (Callaghan for Alderson rather than for Smith)</li>
+ * </ul>
+ *
+ * find() looks a surname up without allocating and without regard to case, since the file is upper case (SMITH) and
+ * data usually is not. The table never changes and can be shared by any number of threads; draws use
+ * ThreadLocalRandom.
+ */
+public final class SurnameTable {
+
+    private static final int EMPTY = -1;
+
+    private final String[] names;
+    private final int[] ranks;
+    private final int[] counts;
+    private final double[] probability;
+    private final int[] alias;
+    private final int[] index;
+
+    /**
+     * @param names surnames, most common first
+     * @param ranks rank of each surname, in ascending order (ties share a rank)
+     * @param counts number of people with each surname
+     * @throws IllegalArgumentException if the arrays differ in length or are empty, a name is null, a count is
+     * negative or the ranks are not in ascending order
+     */
+    public SurnameTable(final String[] names, final int[] ranks, final int[] counts) throws IllegalArgumentException {
+        if (names.length == 0 || names.length != ranks.length || names.length != counts.length) {
+            String message = String.format("There are %d surnames, %d ranks and %d counts; they must be the same, non-zero number",
+                    names.length, ranks.length, counts.length);
+            throw new IllegalArgumentException(message);
+        }
+        final int size = names.length;
+        final double[] weights = new double[size];
+        double total = 0;
+        for (int row = 0; row < size; row++) {
+            if (names[row] == null || counts[row] < 0 || (row > 0 && ranks[row] < ranks[row - 1])) {
+                String message = String.format("Row %d [%s] with rank %d and count %d is not a surname in rank order",
+                        row, names[row], ranks[row], counts[row]);
+                throw new IllegalArgumentException(message);
+            }
+            weights[row] = counts[row];
+            total += counts[row];
+        }
+
+        this.names = names.clone();
+        this.ranks = ranks.clone();
+        this.counts = counts.clone();
+        this.probability = new double[size];
+        this.alias = new int[size];
+        WeightedRandomBag.buildAliasTable(weights, size, total, probability, alias);
+
+        // keep the index at most half full
+        this.index = new int[Integer.highestOneBit(size) << 2];
+        Arrays.fill(index, EMPTY);
+        final int mask = index.length - 1;
+        for (int row = 0; row < size; row++) {
+            int slot = Names.hashIgnoreCase(names[row], 0) & mask;
+            while (index[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = row;
+        }
+    }
+
+    /**
+     * The surnames of a compiled name dictionary, which copies them from most-common-name_surnames.csv
+     *
+     * @throws IllegalArgumentException if the dictionary has no surnames
+     */
+    public static SurnameTable of(final NameDictionary dictionary) throws IllegalArgumentException {
+        final int size = dictionary.surnameRows();
+        final String[] names = new String[size];
+        final int[] ranks = new int[size];
+        final int[] counts = new int[size];
+        for (int row = 0; row < size; row++) {
+            names[row] = dictionary.string(dictionary.surname(row));
+            ranks[row] = dictionary.surnameRank(row);
+            counts[row] = dictionary.surnameCount(row);
+        }
+        return new SurnameTable(names, ranks, counts);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(final int row) {
+        return names[row];
+    }
+
+    public int rank(final int row) {
+        return ranks[row];
+    }
+
+    public int count(final int row) {
+        return counts[row];
+    }
+
+    /**
+     * @param name surname in any case, compared character by character so a reused buffer can be passed
+     * @return its row, or -1 if it is not one of the surnames
+     */
+    public int find(final CharSequence name) {
+        final int mask = index.length - 1;
+        for (int slot = Names.hashIgnoreCase(name, 0) & mask; ; slot = (slot + 1) & mask) {
+            final int row = index[slot];
+            if (row == EMPTY || Names.equalsIgnoreCase(names[row], name)) {
+                return row;
+            }
+        }
+    }
+
+    /**
+     * @return a row, every row equally likely
+     */
+    public int uniform() {
+        return ThreadLocalRandom.current().nextInt(names.length);
+    }
+
+    /**
+     * @return a row drawn in proportion to the counts
+     */
+    public int weighted() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int column = random.nextInt(names.length);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+
+    /**
+     * A row other than the given one, at most band rows away from it, every such row equally likely. A row of -1 (a
+     * surname find() does not know) stands for one rarer than every surname in the table, so the draw comes from the
+     * last band rows.
+     *
+     * @param row row of the original surname, or -1
+     * @param band number of rows either side to draw from, at least 1
+     * @throws IllegalArgumentException if the band is less than 1
+     */
+    public int similarRank(final int row, final int band) throws IllegalArgumentException {
+        if (band < 1) {
+            String message = String.format("The rank band %d must be at least 1", band);
+            throw new IllegalArgumentException(message);
+        }
+        final int size = names.length;
+        final int center = row < 0 ? size : row;
+        final int from = Math.max(0, center - band);
+        final int to = Math.min(size - 1, center + band);
+        if (row < 0) {
+            return from + ThreadLocalRandom.current().nextInt(to - from + 1);
+        }
+        if (from == to) {
+            return row;
+        }
+        final int drawn = from + ThreadLocalRandom.current().nextInt(to - from);
+        return drawn >= row ? drawn + 1 : drawn;
+    }
+}
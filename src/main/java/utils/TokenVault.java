@@ -0,0 +1,736 @@
+package utils;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Thread-safe store of original value / replacement pairs for reversible masking
+ *
+ * Every original maps to exactly one replacement and every replacement to exactly one original, so a masked column
+ * can be re-identified on an authorized request. Pairs are indexed twice, by original and by replacement, and each
+ * index is split into segments with their own read-write lock: threads masking different values rarely wait for each
+ * other, and reverse lookups only lock the replacement index. A writer always locks its original's segment before
+ * its replacement's segment, so two writers cannot deadlock.
+ *
+ * With a spill directory, a segment that holds more than its share of maxResidentEntries in heap writes them to a
+ * sorted run file and looks them up from then on by binary search over the memory mapped run. Runs are merged in
+ * tiers, like the levels of a log-structured merge tree: a new run is merged with the one before it as long as that
+ * one is no larger, so a segment keeps at most about log2(spills) runs and each pair is rewritten that many times,
+ * rather than the whole segment on every spill. Runs are mapped in windows of at most mapWindowBytes, so they may
+ * grow past 2 GB; only an int offset per spilled pair stays in heap. Run files are deleted by close().
+ *
+ * save() and load() persist the pairs as a two column CSV file (original, replacement). The file holds the original
+ * values and must be protected like the data they came from.
+ *
+ * <pre>
+ *     TokenVault vault = TokenVault.builder().spillDirectory(directory).maxResidentEntries(1_000_000).build();
+ *     String masked = vault.tokenize(firstName, substitution::substituteFirstName);
+ *     String original = vault.reveal(masked);
+ * </pre>
+ */
+@Slf4j
+public class TokenVault implements Closeable {
+
+    private static final int DEFAULT_SEGMENTS = 16;
+    private static final int DEFAULT_MAX_RESIDENT_ENTRIES = 1 << 20;
+    private static final int DEFAULT_MAP_WINDOW_BYTES = 1 << 30;
+    private static final int MAX_ATTEMPTS = 100;
+
+    // keeps the run files of vaults sharing a spill directory apart
+    private static final AtomicLong VAULTS = new AtomicLong();
+
+    private final Index forward;
+    private final Index inverse;
+
+    /**
+     * @param segments number of lock stripes per index, rounded up to a power of two; defaults to 16
+     * @param maxResidentEntries pairs held in heap across all segments before a segment spills; defaults to 1M.
+     *                           Ignored without a spill directory.
+     * @param spillDirectory directory for run files; without one the vault is held entirely in heap
+     * @param mapWindowBytes largest part of a run file mapped at once; defaults to 1 GB. A single pair must fit in a
+     *                       window.
+     * @throws IllegalArgumentException if segments, maxResidentEntries or mapWindowBytes is negative, or the spill
+     * directory cannot be created
+     */
+    @Builder
+    private TokenVault(final int segments, final int maxResidentEntries, final Path spillDirectory, final int mapWindowBytes)
+            throws IllegalArgumentException {
+        if (segments < 0 || maxResidentEntries < 0 || mapWindowBytes < 0) {
+            String message = String.format("Segments (%d), maxResidentEntries (%d) and mapWindowBytes (%d) must not be negative",
+                    segments, maxResidentEntries, mapWindowBytes);
+            throw new IllegalArgumentException(message);
+        }
+        if (spillDirectory != null) {
+            try {
+                Files.createDirectories(spillDirectory);
+            } catch (IOException e) {
+                String message = String.format("Unable to create the spill directory [%s]", spillDirectory);
+                throw new IllegalArgumentException(message, e);
+            }
+        }
+
+        final int stripes = Integer.highestOneBit(Math.max(1, (segments > 0 ? segments : DEFAULT_SEGMENTS) * 2 - 1));
+        final int resident = Math.max(1, (maxResidentEntries > 0 ? maxResidentEntries : DEFAULT_MAX_RESIDENT_ENTRIES) / stripes);
+        final String prefix = String.format("vault-%d-%d", ProcessHandle.current().pid(), VAULTS.incrementAndGet());
+        final int window = mapWindowBytes > 0 ? mapWindowBytes : DEFAULT_MAP_WINDOW_BYTES;
+        this.forward = new Index(prefix + "-forward", stripes, resident, spillDirectory, window);
+        this.inverse = new Index(prefix + "-inverse", stripes, resident, spillDirectory, window);
+    }
+
+    /**
+     * Return the replacement of a value, creating one with the generator the first time the value is seen
+     *
+     * The generator is called under the value's segment lock, so each value is generated once. If it returns a
+     * replacement already given to another value it is called again, up to 100 times.
+     *
+     * @return the replacement, or null if the value is null
+     * @throws IllegalArgumentException if the generator returns null or keeps returning replacements that are taken
+     */
+    public String tokenize(final String original, final UnaryOperator<String> generator) throws IllegalArgumentException {
+        if (original == null) {
+            return null;
+        }
+        final Segment from = forward.segment(original);
+        final String existing = from.get(original);
+        if (existing != null) {
+            return existing;
+        }
+
+        from.lock.writeLock().lock();
+        try {
+            final String raced = from.getLocked(original);
+            if (raced != null) {
+                return raced;
+            }
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                final String replacement = generator.apply(original);
+                if (replacement == null) {
+                    throw new IllegalArgumentException("The replacement generator returned null");
+                }
+                if (bind(from, original, replacement)) {
+                    return replacement;
+                }
+            }
+        } finally {
+            from.lock.writeLock().unlock();
+        }
+        String message = String.format("Unable to find an unused replacement after %d attempts", MAX_ATTEMPTS);
+        throw new IllegalArgumentException(message);
+    }
+
+    /**
+     * Tokenize a column; null entries stay null
+     */
+    public String[] tokenize(final String[] originals, final UnaryOperator<String> generator) throws IllegalArgumentException {
+        final String[] replacements = new String[originals.length];
+        for (int i = 0; i < originals.length; i++) {
+            replacements[i] = tokenize(originals[i], generator);
+        }
+        return replacements;
+    }
+
+    /**
+     * Record a pair made elsewhere. Adding a pair that is already present does nothing.
+     *
+     * @throws IllegalArgumentException if either value is null or already paired with a different value
+     */
+    public void put(final String original, final String replacement) throws IllegalArgumentException {
+        if (original == null || replacement == null) {
+            throw new IllegalArgumentException("Neither the original nor the replacement may be null");
+        }
+        final Segment from = forward.segment(original);
+        from.lock.writeLock().lock();
+        try {
+            final String existing = from.getLocked(original);
+            if (replacement.equals(existing)) {
+                return;
+            }
+            if (existing != null || !bind(from, original, replacement)) {
+                String message = String.format("[%s] or its replacement is already paired with a different value", original);
+                throw new IllegalArgumentException(message);
+            }
+        } finally {
+            from.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the replacement of the original, or null if it has none
+     */
+    public String replacement(final String original) {
+        return original == null ? null : forward.segment(original).get(original);
+    }
+
+    /**
+     * @return the original of the replacement, or null if it was not made by this vault
+     */
+    public String reveal(final String replacement) {
+        return replacement == null ? null : inverse.segment(replacement).get(replacement);
+    }
+
+    /**
+     * Reveal a column. Rows are grouped by segment so each segment is locked once, however long the column.
+     *
+     * @return the originals; null for null entries and for replacements this vault did not make
+     */
+    public String[] reveal(final String[] replacements) {
+        final String[] originals = new String[replacements.length];
+        final Segment[] segments = inverse.segments;
+
+        // counting sort of the row numbers by segment
+        final int[] starts = new int[segments.length + 1];
+        final int[] bySegment = new int[replacements.length];
+        for (String replacement : replacements) {
+            if (replacement != null) {
+                starts[inverse.stripe(replacement) + 1]++;
+            }
+        }
+        for (int i = 0; i < segments.length; i++) {
+            starts[i + 1] += starts[i];
+        }
+        final int[] next = Arrays.copyOf(starts, segments.length);
+        for (int row = 0; row < replacements.length; row++) {
+            if (replacements[row] != null) {
+                bySegment[next[inverse.stripe(replacements[row])]++] = row;
+            }
+        }
+
+        for (int i = 0; i < segments.length; i++) {
+            if (starts[i] == starts[i + 1]) {
+                continue;
+            }
+            final Segment segment = segments[i];
+            segment.lock.readLock().lock();
+            try {
+                for (int j = starts[i]; j < starts[i + 1]; j++) {
+                    final int row = bySegment[j];
+                    originals[row] = segment.getLocked(replacements[row]);
+                }
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+        }
+        return originals;
+    }
+
+    /**
+     * @return number of pairs
+     */
+    public long size() {
+        return forward.size.get();
+    }
+
+    /**
+     * Write every pair to a UTF-8 CSV file, replacing it if it exists. The file is written next to its destination and
+     * moved into place. Each segment is copied under its read lock, so pairs added while saving may be left out.
+     *
+     * @return number of pairs written
+     * @throws IOException if the file cannot be written
+     */
+    public long save(final Path file) throws IOException {
+        final Path parent = file.toAbsolutePath().getParent();
+        final Path temporary = parent.resolve(String.format("%s.%d.%d.tmp", file.getFileName(),
+                ProcessHandle.current().pid(), Thread.currentThread().getId()));
+        long pairs = 0;
+        try {
+            try (Writer target = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                final DelimitedWriter writer = new DelimitedWriter(target, ',');
+                for (Segment segment : forward.segments) {
+                    segment.lock.readLock().lock();
+                    try {
+                        pairs += segment.write(writer);
+                    } finally {
+                        segment.lock.readLock().unlock();
+                    }
+                }
+                writer.flush();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        log.info("Saved {} pairs to {}", pairs, file);
+        return pairs;
+    }
+
+    /**
+     * Add the pairs of a file written by save()
+     *
+     * @return number of pairs read
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a record does not hold two fields or conflicts with a pair in the vault
+     */
+    public long load(final Path file) throws IOException, IllegalArgumentException {
+        long pairs = 0;
+        try (Reader source = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             DelimitedReader reader = new DelimitedReader(source, ',')) {
+            String original = null;
+            while (reader.next()) {
+                if (reader.column() == 0 && !reader.endOfRecord()) {
+                    original = reader.field().toString();
+                } else if (reader.column() == 1 && reader.endOfRecord()) {
+                    put(original, reader.field().toString());
+                    pairs++;
+                } else {
+                    String message = String.format("Record %d of [%s] is not an original and a replacement", reader.record(), file);
+                    throw new IllegalArgumentException(message);
+                }
+            }
+        }
+        log.info("Loaded {} pairs from {}", pairs, file);
+        return pairs;
+    }
+
+    /**
+     * Delete the run files. The vault must not be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        forward.close();
+        inverse.close();
+    }
+
+    /**
+     * Add the pair to both indexes, the original's segment being write locked by the caller
+     *
+     * @return false, leaving the indexes unchanged, if the replacement already belongs to another value
+     * @throws IllegalArgumentException if the pair could not be spilled because it is larger than a run window
+     */
+    private boolean bind(final Segment from, final String original, final String replacement) throws IllegalArgumentException {
+        from.checkSpillable(original, replacement);
+        final Segment to = inverse.segment(replacement);
+        to.lock.writeLock().lock();
+        try {
+            if (to.getLocked(replacement) != null) {
+                return false;
+            }
+            from.put(original, replacement);
+            to.put(replacement, original);
+            forward.size.incrementAndGet();
+            inverse.size.incrementAndGet();
+            // both sides hold the pair before either spills, so a failed spill leaves the indexes consistent
+            from.spillIfFull();
+            to.spillIfFull();
+            return true;
+        } finally {
+            to.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * One direction of the vault, split into lock stripes by key hash
+     */
+    private static final class Index implements Closeable {
+        private final Segment[] segments;
+        private final AtomicLong size = new AtomicLong();
+
+        private Index(final String name, final int stripes, final int maxResident, final Path spillDirectory, final int windowBytes) {
+            segments = new Segment[stripes];
+            for (int i = 0; i < stripes; i++) {
+                final Path runPrefix = spillDirectory == null ? null
+                        : spillDirectory.resolve(String.format("%s-%d", name, i));
+                segments[i] = new Segment(maxResident, runPrefix, windowBytes);
+            }
+        }
+
+        private int stripe(final String key) {
+            final int h = key.hashCode() * 0x9e3779b9;
+            return (h ^ (h >>> 16)) & (segments.length - 1);
+        }
+
+        private Segment segment(final String key) {
+            return segments[stripe(key)];
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Segment segment : segments) {
+                segment.close();
+            }
+        }
+    }
+
+    /**
+     * Pairs of one stripe: recent ones in a HashMap, older ones in sorted run files once the map has spilled
+     *
+     * Runs are kept oldest first, and each is at least as large as the one after it. A key is in at most one run,
+     * since a pair is only ever added once.
+     */
+    private static final class Segment implements Closeable {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final int maxResident;
+        private final Path runPrefix;
+        private final int windowBytes;
+        private final List<Run> runs = new ArrayList<>();
+        private Map<String, String> resident = new HashMap<>();
+        private int generation;
+
+        private Segment(final int maxResident, final Path runPrefix, final int windowBytes) {
+            this.maxResident = maxResident;
+            this.runPrefix = runPrefix;
+            this.windowBytes = windowBytes;
+        }
+
+        private String get(final String key) {
+            lock.readLock().lock();
+            try {
+                return getLocked(key);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private String getLocked(final String key) {
+            final String value = resident.get(key);
+            if (value != null) {
+                return value;
+            }
+            for (int i = runs.size() - 1; i >= 0; i--) {
+                final String spilled = runs.get(i).get(key);
+                if (spilled != null) {
+                    return spilled;
+                }
+            }
+            return null;
+        }
+
+        private void put(final String key, final String value) {
+            resident.put(key, value);
+        }
+
+        /**
+         * @throws IllegalArgumentException if the segment spills and the pair would not fit in a run window
+         */
+        private void checkSpillable(final String key, final String value) throws IllegalArgumentException {
+            if (runPrefix == null) {
+                return;
+            }
+            final long length = RunWriter.length(key, value);
+            if (length > windowBytes) {
+                String message = String.format("A pair of up to %d bytes does not fit in a run window of %d bytes", length, windowBytes);
+                throw new IllegalArgumentException(message);
+            }
+        }
+
+        /**
+         * @throws IllegalArgumentException if the segment cannot spill to a run file
+         */
+        private void spillIfFull() throws IllegalArgumentException {
+            if (runPrefix != null && resident.size() >= maxResident) {
+                try {
+                    spill();
+                } catch (IOException e) {
+                    String message = String.format("Unable to spill the vault segment to [%s-*.run]", runPrefix);
+                    throw new IllegalArgumentException(message, e);
+                }
+            }
+        }
+
+        /**
+         * Write the resident pairs to a new run and empty the map, then merge the last two runs for as long as the
+         * older one is no larger than the newer one
+         */
+        private void spill() throws IOException {
+            final String[] keys = resident.keySet().toArray(new String[0]);
+            Arrays.sort(keys);
+            final RunWriter writer = new RunWriter(nextRunFile(), windowBytes, keys.length);
+            try {
+                for (String key : keys) {
+                    writer.write(key, resident.get(key));
+                }
+                runs.add(writer.open());
+            } catch (IOException e) {
+                writer.delete();
+                throw e;
+            }
+            resident = new HashMap<>();
+
+            while (runs.size() >= 2 && runs.get(runs.size() - 2).size() <= runs.get(runs.size() - 1).size()) {
+                final Run newer = runs.get(runs.size() - 1);
+                final Run older = runs.get(runs.size() - 2);
+                final Run merged = merge(older, newer);
+                runs.remove(runs.size() - 1);
+                runs.set(runs.size() - 1, merged);
+                older.delete();
+                newer.delete();
+            }
+        }
+
+        private Run merge(final Run older, final Run newer) throws IOException {
+            final RunWriter writer = new RunWriter(nextRunFile(), windowBytes, older.size() + newer.size());
+            try {
+                int o = 0;
+                int n = 0;
+                while (o < older.size() || n < newer.size()) {
+                    if (n == newer.size() || (o < older.size() && older.key(o).compareTo(newer.key(n)) < 0)) {
+                        writer.copy(older, o++);
+                    } else {
+                        writer.copy(newer, n++);
+                    }
+                }
+                return writer.open();
+            } catch (IOException e) {
+                writer.delete();
+                throw e;
+            }
+        }
+
+        private Path nextRunFile() {
+            return runPrefix.resolveSibling(String.format("%s-%d.run", runPrefix.getFileName(), generation++));
+        }
+
+        private long write(final DelimitedWriter writer) throws IOException {
+            long pairs = resident.size();
+            for (Run run : runs) {
+                for (int i = 0; i < run.size(); i++) {
+                    writer.field(run.key(i));
+                    writer.field(run.value(i));
+                    writer.endRecord();
+                }
+                pairs += run.size();
+            }
+            for (Map.Entry<String, String> entry : resident.entrySet()) {
+                writer.field(entry.getKey());
+                writer.field(entry.getValue());
+                writer.endRecord();
+            }
+            return pairs;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Run run : runs) {
+                run.delete();
+            }
+        }
+    }
+
+    /**
+     * Writes a run file: its entries in key order, each the key and then the value, both as a length and UTF-8 bytes
+     *
+     * The file is split into windows that each start at an entry and are at most windowBytes long, so every entry
+     * can be read from a single mapped buffer. Positions in the file are longs; offsets within a window fit an int.
+     */
+    private static final class RunWriter {
+        private final Path file;
+        private final int windowBytes;
+        private final DataOutputStream out;
+        private final IntList offsets;
+        private final IntList windowStarts = new IntList(4);
+        private final List<Long> windowPositions = new ArrayList<>();
+        private long position;
+        private long windowPosition;
+        private byte[] scratch = new byte[256];
+
+        private RunWriter(final Path file, final int windowBytes, final int entries) throws IOException {
+            this.file = file;
+            this.windowBytes = windowBytes;
+            this.offsets = new IntList(entries);
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        }
+
+        private void write(final String key, final String value) throws IOException {
+            final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            final byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+            startEntry(8L + keyBytes.length + valueBytes.length);
+            out.writeInt(keyBytes.length);
+            out.write(keyBytes);
+            out.writeInt(valueBytes.length);
+            out.write(valueBytes);
+        }
+
+        /**
+         * Copy an entry of another run as it is
+         */
+        private void copy(final Run run, final int entry) throws IOException {
+            final ByteBuffer window = run.window(entry);
+            final int from = run.offsets[entry];
+            final int length = run.end(entry) - from;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            window.duplicate().position(from).get(scratch, 0, length);
+            startEntry(length);
+            out.write(scratch, 0, length);
+        }
+
+        private void startEntry(final long length) throws IOException {
+            if (length > windowBytes) {
+                String message = String.format("A pair of %d bytes does not fit in a run window of %d bytes", length, windowBytes);
+                throw new IOException(message);
+            }
+            if (windowPositions.isEmpty() || position + length - windowPosition > windowBytes) {
+                windowPosition = position;
+                windowPositions.add(position);
+                windowStarts.add(offsets.size);
+            }
+            offsets.add((int) (position - windowPosition));
+            position += length;
+        }
+
+        /**
+         * @return an upper bound of the size of the entry: a character outside the BMP counts 6 bytes instead of 4
+         */
+        private static long length(final String key, final String value) {
+            return 8L + utf8Length(key) + utf8Length(value);
+        }
+
+        private static long utf8Length(final String value) {
+            long length = value.length();
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c >= 0x800) {
+                    length += 2;
+                } else if (c >= 0x80) {
+                    length++;
+                }
+            }
+            return length;
+        }
+
+        /**
+         * Close the file and map it
+         */
+        private Run open() throws IOException {
+            out.close();
+            final ByteBuffer[] windows = new ByteBuffer[windowPositions.size()];
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                for (int i = 0; i < windows.length; i++) {
+                    final long start = windowPositions.get(i);
+                    final long end = i + 1 < windows.length ? windowPositions.get(i + 1) : position;
+                    windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                }
+            }
+            windowStarts.add(offsets.size);
+            return new Run(file, windows, windowStarts.toArray(), offsets.toArray());
+        }
+
+        private void delete() throws IOException {
+            out.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Memory mapped pairs sorted by key, as written by a RunWriter
+     */
+    private static final class Run {
+        private final Path file;
+        private final ByteBuffer[] windows;
+        // first entry of each window, followed by the number of entries
+        private final int[] windowStarts;
+        // offset of each entry within its window
+        private final int[] offsets;
+
+        private Run(final Path file, final ByteBuffer[] windows, final int[] windowStarts, final int[] offsets) {
+            this.file = file;
+            this.windows = windows;
+            this.windowStarts = windowStarts;
+            this.offsets = offsets;
+        }
+
+        private int size() {
+            return offsets.length;
+        }
+
+        private int windowIndex(final int entry) {
+            final int index = Arrays.binarySearch(windowStarts, 0, windows.length, entry);
+            return index >= 0 ? index : -index - 2;
+        }
+
+        private ByteBuffer window(final int entry) {
+            return windows[windowIndex(entry)];
+        }
+
+        /**
+         * @return the offset just past the entry in its window
+         */
+        private int end(final int entry) {
+            final int window = windowIndex(entry);
+            return entry + 1 < windowStarts[window + 1] ? offsets[entry + 1] : windows[window].capacity();
+        }
+
+        private String key(final int entry) {
+            return string(window(entry), offsets[entry]);
+        }
+
+        private String value(final int entry) {
+            final ByteBuffer window = window(entry);
+            final int keyOffset = offsets[entry];
+            return string(window, keyOffset + 4 + window.getInt(keyOffset));
+        }
+
+        private String get(final String key) {
+            int low = 0;
+            int high = offsets.length - 1;
+            while (low <= high) {
+                final int middle = (low + high) >>> 1;
+                final int comparison = key(middle).compareTo(key);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return value(middle);
+                }
+            }
+            return null;
+        }
+
+        private void delete() throws IOException {
+            Files.deleteIfExists(file);
+        }
+
+        private static String string(final ByteBuffer window, final int offset) {
+            final byte[] bytes = new byte[window.getInt(offset)];
+            window.duplicate().position(offset + 4).get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Growable int array for the offsets of a run being written
+     */
+    private static final class IntList {
+        private int[] values;
+        private int size;
+
+        private IntList(final int capacity) {
+            values = new int[Math.max(capacity, 16)];
+        }
+
+        private void add(final int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only index of the zip codes in zipcode.csv (zip, primary_city, state, county, area code), grouped by region
+ *
+ * Rows are ordered by state, then county, then zip, so every county and every state is a contiguous range of rows
+ * given by an offset array; the zips of a region are zips()[start, end). A second, ascending int[] of the zips with
+ * their row numbers finds a zip by binary search. Looking up a zip, its county or state, or a random zip of the same
+ * county is a binary search plus a few array reads: no map lookups and no Strings are created.
+ *
+ * The table never changes and can be shared by any number of threads.
+ */
+public final class ZipCodeIndex {
+
+    static final String RESOURCE = "zipcode.csv";
+
+    private static final int ZIP_COLUMN = 0;
+    private static final int STATE_COLUMN = 2;
+    private static final int COUNTY_COLUMN = 3;
+    private static final int ZIP_LENGTH = 5;
+
+    private final int[] zips;
+    private final String[] zipStrings;
+    private final int[] rowCounty;
+    private final String[] counties;
+    private final int[] countyStart;
+    private final int[] countyState;
+    private final String[] states;
+    private final int[] stateStart;
+    private final int[] sortedZips;
+    private final int[] sortedRows;
+
+    private ZipCodeIndex(final List<int[]> rows, final List<String> counties, final List<String> states) {
+        final int size = rows.size();
+        // order by state, county and zip; each row is {zip, county, state}
+        rows.sort((a, b) -> a[2] != b[2] ? states.get(a[2]).compareTo(states.get(b[2]))
+                : a[1] != b[1] ? counties.get(a[1]).compareTo(counties.get(b[1]))
+                : Integer.compare(a[0], b[0]));
+
+        this.zips = new int[size];
+        this.zipStrings = new String[size];
+        this.rowCounty = new int[size];
+        final List<String> countyNames = new ArrayList<>();
+        final List<Integer> countyStarts = new ArrayList<>();
+        final List<Integer> countyStates = new ArrayList<>();
+        final List<String> stateNames = new ArrayList<>();
+        final List<Integer> stateStarts = new ArrayList<>();
+
+        for (int row = 0; row < size; row++) {
+            final int[] entry = rows.get(row);
+            final boolean newState = row == 0 || entry[2] != rows.get(row - 1)[2];
+            if (newState) {
+                stateNames.add(states.get(entry[2]));
+                stateStarts.add(row);
+            }
+            if (newState || entry[1] != rows.get(row - 1)[1]) {
+                countyNames.add(counties.get(entry[1]));
+                countyStarts.add(row);
+                countyStates.add(stateNames.size() - 1);
+            }
+            zips[row] = entry[0];
+            zipStrings[row] = format(entry[0]);
+            rowCounty[row] = countyNames.size() - 1;
+        }
+        countyStarts.add(size);
+        stateStarts.add(size);
+
+        this.counties = countyNames.toArray(new String[0]);
+        this.countyStart = countyStarts.stream().mapToInt(Integer::intValue).toArray();
+        this.countyState = countyStates.stream().mapToInt(Integer::intValue).toArray();
+        this.states = stateNames.toArray(new String[0]);
+        this.stateStart = stateStarts.stream().mapToInt(Integer::intValue).toArray();
+
+        final long[] byZip = new long[size];
+        for (int row = 0; row < size; row++) {
+            byZip[row] = (long) zips[row] << 32 | row;
+        }
+        Arrays.sort(byZip);
+        this.sortedZips = new int[size];
+        this.sortedRows = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedZips[i] = (int) (byZip[i] >>> 32);
+            sortedRows[i] = (int) byZip[i];
+        }
+    }
+
+    /**
+     * The zipcode.csv bundled on the classpath
+     *
+     * @throws IllegalArgumentException if it is missing, cannot be read or is not in the expected format
+     */
+    public static ZipCodeIndex load() throws IllegalArgumentException {
+        final InputStream resource = ZipCodeIndex.class.getClassLoader().getResourceAsStream(RESOURCE);
+        if (resource == null) {
+            String message = String.format("%s was not found on the classpath", RESOURCE);
+            throw new IllegalArgumentException(message);
+        }
+        try (Reader reader = new InputStreamReader(resource, StandardCharsets.UTF_8)) {
+            return read(reader);
+        } catch (IOException e) {
+            String message = String.format("Unable to read %s", RESOURCE);
+            throw new IllegalArgumentException(message, e);
+        }
+    }
+
+    /**
+     * @param source comma separated zip, primary_city, state, county and area code, after a header row
+     * @throws IOException if the source cannot be read
+     * @throws IllegalArgumentException if a zip is not five digits, a zip appears twice or there are no zips
+     */
+    public static ZipCodeIndex read(final Reader source) throws IOException, IllegalArgumentException {
+        final List<int[]> rows = new ArrayList<>();
+        final Map<String, Integer> counties = new HashMap<>();
+        final Map<String, Integer> states = new HashMap<>();
+        final List<String> countyNames = new ArrayList<>();
+        final List<String> stateNames = new ArrayList<>();
+
+        try (DelimitedReader reader = new DelimitedReader(source, ',')) {
+            int[] row = null;
+            while (reader.next()) {
+                if (reader.record() == 1) {
+                    continue; // header
+                }
+                switch (reader.column()) {
+                    case ZIP_COLUMN:
+                        row = new int[]{parse(reader.field()), -1, -1};
+                        if (row[0] < 0) {
+                            String message = String.format("Record %d: [%s] is not a five digit zip code", reader.record(), reader.field());
+                            throw new IllegalArgumentException(message);
+                        }
+                        rows.add(row);
+                        break;
+                    case STATE_COLUMN:
+                        row[2] = id(reader.field().toString(), states, stateNames);
+                        break;
+                    case COUNTY_COLUMN:
+                        row[1] = id(reader.field().toString(), counties, countyNames);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("There are no zip codes");
+        }
+        for (int[] row : rows) {
+            if (row[1] < 0 || row[2] < 0) {
+                String message = String.format("Zip code %s has no state or county", format(row[0]));
+                throw new IllegalArgumentException(message);
+            }
+        }
+
+        final ZipCodeIndex index = new ZipCodeIndex(rows, countyNames, stateNames);
+        for (int i = 1; i < index.sortedZips.length; i++) {
+            if (index.sortedZips[i] == index.sortedZips[i - 1]) {
+                String message = String.format("Zip code %s appears more than once", format(index.sortedZips[i]));
+                throw new IllegalArgumentException(message);
+            }
+        }
+        return index;
+    }
+
+    public int size() {
+        return zips.length;
+    }
+
+    /**
+     * @param zip five digits, optionally followed by a dash and four more (ZIP+4)
+     * @return its row, or -1 if it is not a zip code of the index
+     */
+    public int find(final CharSequence zip) {
+        final int value = parse(zip);
+        if (value < 0) {
+            return -1;
+        }
+        final int i = Arrays.binarySearch(sortedZips, value);
+        return i < 0 ? -1 : sortedRows[i];
+    }
+
+    /**
+     * @return the zip code of the row as five digits
+     */
+    public String zip(final int row) {
+        return zipStrings[row];
+    }
+
+    public int county(final int row) {
+        return rowCounty[row];
+    }
+
+    public int state(final int row) {
+        return countyState[rowCounty[row]];
+    }
+
+    public String countyName(final int county) {
+        return counties[county];
+    }
+
+    public String stateName(final int state) {
+        return states[state];
+    }
+
+    /**
+     * @return the first row of the county; its rows run up to countyEnd
+     */
+    public int countyStart(final int county) {
+        return countyStart[county];
+    }
+
+    public int countyEnd(final int county) {
+        return countyStart[county + 1];
+    }
+
+    public int stateStart(final int state) {
+        return stateStart[state];
+    }
+
+    public int stateEnd(final int state) {
+        return stateStart[state + 1];
+    }
+
+    /**
+     * @return the zips of every row in region order; a copy
+     */
+    public int[] zips() {
+        return zips.clone();
+    }
+
+    /**
+     * @return whether the value is five digits, optionally followed by a dash and four more (ZIP+4), whether or not
+     * it is in an index
+     */
+    public static boolean isZip(final CharSequence value) {
+        return parse(value) >= 0;
+    }
+
+    /**
+     * @return the zip as a number, or -1 if it is not five digits with an optional dash and four digits
+     */
+    private static int parse(final CharSequence zip) {
+        final int length = zip.length();
+        if (length != ZIP_LENGTH && !(length == ZIP_LENGTH + 5 && zip.charAt(ZIP_LENGTH) == '-' && digits(zip, ZIP_LENGTH + 1, length) >= 0)) {
+            return -1;
+        }
+        return digits(zip, 0, ZIP_LENGTH);
+    }
+
+    private static int digits(final CharSequence value, final int from, final int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static String format(final int zip) {
+        final char[] digits = new char[ZIP_LENGTH];
+        int value = zip;
+        for (int i = ZIP_LENGTH - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(digits);
+    }
+
+    private static int id(final String name, final Map<String, Integer> ids, final List<String> names) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,63 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.temporal.WeekFields;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EpochDaysTest {
+
+    @Test
+    public void civilMatchesLocalDate() {
+        // given every day from 1599 to 2401, which covers the century and 400 year leap rules
+        for (long epochDay = LocalDate.of(1599, 1, 1).toEpochDay(); epochDay <= LocalDate.of(2401, 12, 31).toEpochDay(); epochDay++) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+
+            // when it is split and rebuilt without LocalDate
+            int civil = EpochDays.civil((int) epochDay);
+
+            // then the fields, the week and the month length agree with LocalDate
+            assertEquals(date.getYear(), EpochDays.year(civil));
+            assertEquals(date.getMonthValue(), EpochDays.month(civil));
+            assertEquals(date.getDayOfMonth(), EpochDays.day(civil));
+            assertEquals(epochDay, EpochDays.of(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+            assertEquals(date.lengthOfMonth(), EpochDays.lengthOfMonth(date.getYear(), date.getMonthValue()));
+            assertEquals(date.get(WeekFields.of(Locale.US).weekOfYear()), EpochDays.weekOfYear((int) epochDay, date.getYear()));
+        }
+    }
+
+    @Test
+    public void plusMonthsAndYearsClampTheDay() {
+        // given the last day of January and a leap day
+        int january = EpochDays.civil((int) LocalDate.of(2020, 1, 31).toEpochDay());
+        int leapDay = EpochDays.civil((int) LocalDate.of(2020, 2, 29).toEpochDay());
+
+        // when months and years are added, then the day is clamped like LocalDate does
+        assertEquals(LocalDate.of(2020, 2, 29).toEpochDay(), EpochDays.plusMonths(january, 1));
+        assertEquals(LocalDate.of(2019, 11, 30).toEpochDay(), EpochDays.plusMonths(january, -2));
+        assertEquals(LocalDate.of(2021, 2, 28).toEpochDay(), EpochDays.plusYears(leapDay, 1));
+        assertEquals(LocalDate.of(2016, 2, 29).toEpochDay(), EpochDays.plusYears(leapDay, -4));
+    }
+
+    @Test
+    public void parseAndFormatIsoDates() {
+        // given ISO dates
+        StringBuilder out = new StringBuilder();
+
+        // when they are parsed and formatted, then they match LocalDate
+        assertEquals(LocalDate.of(1976, 7, 4).toEpochDay(), EpochDays.parse("1976-07-04"));
+        EpochDays.format(EpochDays.parse("0099-12-31"), out);
+        assertEquals("0099-12-31", out.toString());
+        out.setLength(0);
+        EpochDays.format((int) LocalDate.of(12345, 1, 2).toEpochDay(), out);
+        assertEquals(LocalDate.of(12345, 1, 2).toString(), out.toString());
+
+        // and anything else is rejected
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EpochDays.parse("1976-7-4"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EpochDays.parse("2021-02-29"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EpochDays.parse("2021-13-01"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EpochDays.parse("2021/01/01"));
+    }
+}
@@ -0,0 +1,48 @@
+import org.junit.jupiter.api.Test;
+import utils.MaskingPipeline;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FieldMaskersTest {
+
+    @Test
+    public void redactColumnInPipeline() throws IOException {
+        // given a file with a header and an SSN column
+        String test = "name,ssn\nJane,123-45-7890\n";
+
+        // when the ssn column is redacted
+        StringWriter output = new StringWriter();
+        MaskingPipeline.builder()
+                .header(true)
+                .column("ssn", FieldMaskers.redact())
+                .build()
+                .mask(new StringReader(test), output);
+
+        // then only the ssn is masked
+        assertEquals("name,ssn\nJane,999-99-9999\n", output.toString());
+    }
+
+    @Test
+    public void perturbColumnInPipeline() throws IOException {
+        // given a file with an ISO date and a blank date
+        String test = "2001-03-15\n\n";
+
+        // when the dates are perturbed by month
+        StringWriter output = new StringWriter();
+        MaskingPipeline.builder()
+                .column(0, FieldMaskers.perturb(Perturb.TEMPORAL_COMPONENT.month))
+                .build()
+                .mask(new StringReader(test), output);
+
+        // then the first date moves to another month and the blank date stays blank
+        String[] lines = output.toString().split("\n", -1);
+        LocalDate result = LocalDate.parse(lines[0]);
+        assertNotEquals(LocalDate.of(2001, 3, 15), result);
+        assertEquals("", lines[1]);
+    }
+}
@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import utils.MaskedColumn;
+import utils.ZipCodeIndex;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeographyTest {
+
+    @Test
+    public void generalizeZip() {
+        // given a Nebraska zip code
+        String test = "68002";
+
+        // when it is generalized to each level
+        Geography geography = new Geography();
+
+        // then it becomes its prefix, county or state
+        assertEquals("680", geography.generalize(test, Geography.GENERALIZATION.prefix));
+        assertEquals("680", geography.generalize("68002-1234", Geography.GENERALIZATION.prefix));
+        assertEquals("Washington County", geography.generalize(test, Geography.GENERALIZATION.county));
+        assertEquals("NE", geography.generalize(test, Geography.GENERALIZATION.state));
+        assertNull(geography.generalize((String) null, Geography.GENERALIZATION.state));
+    }
+
+    @Test
+    public void swapZipWithinCounty() {
+        // given a zip of a county with several zips and the only zip of another county
+        ZipCodeIndex index = ZipCodeIndex.load();
+        Geography geography = new Geography(index);
+        int washington = index.county(index.find("68002"));
+
+        Set<String> swapped = new HashSet<>();
+        for (int i = 0; i < 500; i++) {
+            // when they are swapped
+            String zip = geography.generalize("68002", Geography.GENERALIZATION.swap);
+            String arthur = geography.generalize("69121", Geography.GENERALIZATION.swap);
+
+            // then the first becomes another zip of its county and the second another zip of its state
+            assertNotEquals("68002", zip);
+            assertEquals(washington, index.county(index.find(zip)));
+            assertNotEquals("69121", arthur);
+            assertEquals("NE", geography.generalize(arthur, Geography.GENERALIZATION.state));
+            swapped.add(zip);
+        }
+        assertEquals(index.countyEnd(washington) - index.countyStart(washington) - 1, swapped.size());
+    }
+
+    @Test
+    public void generalizeZipColumn() {
+        // given a column of zips with a null and a blank value
+        String[] test = {"68002", null, " ", "68134"};
+
+        // when it is generalized in one call
+        MaskedColumn masked = new MaskedColumn();
+        Geography geography = new Geography();
+        geography.column(Geography.GENERALIZATION.county).mask(test, masked);
+
+        // then each row matches the single value API
+        assertArrayEquals(new String[]{"Washington County", null, "", "Douglas County"}, masked.toArray());
+        assertArrayEquals(new String[]{"Washington County", null, "", "Douglas County"}, geography.generalize(test, Geography.GENERALIZATION.county));
+        assertArrayEquals(new String[]{"680", null, "", "681"}, geography.generalize(test, Geography.GENERALIZATION.prefix));
+        assertEquals("", geography.generalize(" ", Geography.GENERALIZATION.swap));
+        assertEquals("", geography.generalize("", Geography.GENERALIZATION.state));
+    }
+
+    @Test
+    public void generalizeUnknownZip() {
+        // given zips that are not in zipcode.csv or not zips at all
+        Geography geography = new Geography();
+
+        // then only a well formed zip can be truncated and nothing else is generalized
+        assertEquals("100", geography.generalize("10001", Geography.GENERALIZATION.prefix));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> geography.generalize("10001", Geography.GENERALIZATION.county));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> geography.generalize("10001", Geography.GENERALIZATION.swap));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> geography.generalize("1000", Geography.GENERALIZATION.prefix));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> geography.generalize("68002-ABCD", Geography.GENERALIZATION.prefix));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> geography.generalize("68002-ABCD", Geography.GENERALIZATION.county));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> geography.column(null));
+    }
+}
@@ -0,0 +1,128 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import utils.DictionaryMasker;
+import utils.MaskedColumn;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashTest {
+
+    @Test
+    public void encryptThenDecrypt() {
+        // given an ASCII string
+        String test = "123-45-7890";
+
+        // when it is encrypted with the configured key
+        Hash hash = new Hash();
+        String result = hash.encrypt(test);
+
+        // then the cipher text hides the value and decrypts back to it
+        assertNotNull(result);
+        assertNotEquals(test, result);
+        assertEquals(test, hash.decrypt(result));
+    }
+
+    @Test
+    public void encryptIsRepeatable() {
+        // given the same value encrypted twice, by two instances sharing the configured key
+        String test = "Mockingbird Ln.";
+
+        // when each is encrypted
+        String first = new Hash().encrypt(test);
+        String second = new Hash().encrypt(test);
+
+        // then the cipher texts match, so the reused cipher was reset between values
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void encryptBatch() {
+        // given a column with a null, an empty and a non-ASCII value
+        String[] test = {"6011000990139424", null, "", "Jos\u00e9"};
+
+        // when the column is encrypted in one call
+        Hash hash = new Hash();
+        String[] result = hash.encrypt(test);
+
+        // then every value matches the single value API and the batch decrypts back to the column
+        assertEquals(test.length, result.length);
+        assertEquals(hash.encrypt(test[0]), result[0]);
+        assertNull(result[1]);
+        assertArrayEquals(test, hash.decrypt(result));
+    }
+
+    @Test
+    public void encryptFromManyThreads() throws InterruptedException, ExecutionException {
+        // given one instance shared by several threads
+        Hash hash = new Hash();
+        String expected = hash.encrypt("(555) 867-5309");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // when each thread encrypts the same value repeatedly
+        try {
+            Future<?>[] futures = new Future<?>[4];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        assertEquals(expected, hash.encrypt("(555) 867-5309"));
+                    }
+                });
+            }
+
+            // then every thread gets the same cipher text
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void decryptValueNotEncryptedWithKey() {
+        // given a Base64 value that is not a cipher text
+        String test = "QUJDMTIz";
+
+        // when it is decrypted, then an IllegalArgumentException is thrown and the instance keeps working
+        Hash hash = new Hash();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> hash.decrypt(test));
+        assertEquals("ABC123", hash.decrypt(hash.encrypt("ABC123")));
+    }
+
+    @Test
+    public void encryptColumn() {
+        // given a column with a null value
+        String[] test = {"ABC123", null, "(555) 867-5309"};
+
+        // when the column is encrypted into a buffer in one call
+        Hash hash = new Hash();
+        MaskedColumn masked = new MaskedColumn();
+        hash.mask(test, masked);
+
+        // then each row matches the single value API and nulls stay null
+        assertEquals(hash.encrypt(test[0]), masked.get(0));
+        assertNull(masked.get(1));
+        assertEquals(test[2], hash.decrypt(masked.get(2)));
+    }
+
+    @Test
+    public void encryptColumnByDictionary() {
+        // given a low cardinality column
+        String[] test = {"NE", "IA", null, "NE", "NE", "KS", "IA"};
+
+        // when it is encrypted through its dictionary
+        Hash hash = new Hash();
+        MaskedColumn masked = new MaskedColumn();
+        new DictionaryMasker(hash).mask(test, masked);
+
+        // then it matches encrypting every row
+        MaskedColumn expected = new MaskedColumn();
+        hash.mask(test, expected);
+        assertArrayEquals(expected.toArray(), masked.toArray());
+    }
+}
@@ -0,0 +1,123 @@
+import org.apache.commons.configuration2.YAMLConfiguration;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import utils.MaskingMetrics;
+import utils.MaskingPipeline;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MaskingPolicyTest {
+
+    private static MaskingPolicy policy(final String yaml) throws ConfigurationException {
+        YAMLConfiguration configuration = new YAMLConfiguration();
+        configuration.read(new StringReader(yaml));
+        return MaskingPolicy.of(configuration);
+    }
+
+    @Test
+    public void policyFileCompilesIntoPipeline() throws IOException {
+        // given a policy file that redacts, partially redacts and perturbs three named fields
+        MaskingPolicy policy = MaskingPolicy.load(Paths.get("src/test/resources/policy.yaml"));
+
+        // when it is compiled and applied to a pipe separated file
+        StringWriter output = new StringWriter();
+        policy.compile().mask(new StringReader("name|ssn|account|birth_date\nJane|123-45-7890|12345678|2001-03-15\n"), output);
+
+        // then the rules were parsed and only the configured fields changed
+        assertEquals(3, policy.getRules().size());
+        assertEquals(Redact.DIRECTION.back, policy.getRules().get(1).getDirection());
+        String[] fields = output.toString().split("\n")[1].split("\\|");
+        assertEquals("Jane", fields[0]);
+        assertEquals("999-99-9999", fields[1]);
+        assertEquals("1234", fields[2].substring(0, 4));
+        assertNotEquals("12345678", fields[2]);
+        assertNotEquals("2001", fields[3].substring(0, 4));
+        assertEquals("-03-15", fields[3].substring(4));
+    }
+
+    @Test
+    public void policyWithoutHeaderUsesColumnNumbers() throws ConfigurationException, IOException {
+        // given a policy for input without a header
+        MaskingPolicy policy = policy("masking:\n  header: false\n  fields:\n    \"1\":\n      operation: redact\n");
+
+        // when it is applied
+        StringWriter output = new StringWriter();
+        policy.compile().mask(new StringReader("Jane,Doe\n"), output);
+
+        // then the second column is redacted
+        assertEquals("Jane,XXX\n", output.toString());
+    }
+
+    @Test
+    public void invalidPoliciesAreRejectedWhenLoaded() {
+        // given policies with an unknown operation, an unknown parameter, a bad value and a lone offset
+        String[] invalid = {
+                "masking:\n  fields:\n    ssn:\n      operation: shred\n",
+                "masking:\n  fields:\n    ssn:\n      operation: redact\n      seed: 4\n",
+                "masking:\n  fields:\n    dob:\n      operation: perturb\n      component: fortnight\n",
+                "masking:\n  fields:\n    last_name:\n      operation: substituteLastName\n      sampling: zipf\n",
+                "masking:\n  fields:\n    zip:\n      operation: generalizeZip\n",
+                "masking:\n  fields:\n    dob:\n      operation: perturb\n      cache: 100\n",
+                "masking:\n  fields:\n    zip:\n      operation: generalizeZip\n      generalization: swap\n      cache: 100\n",
+                "masking:\n  fields:\n    ssn:\n      operation: encrypt\n      eviction: lru\n",
+                "masking:\n  fields:\n    ssn:\n      operation: encrypt\n      cache: 0\n",
+                "masking:\n  fields:\n    ssn:\n      operation: encrypt\n      cache: 10\n      eviction: fifo\n",
+                "masking:\n  fields:\n    ssn:\n      operation: redact\n      offset: 4\n",
+                "masking:\n  header: false\n  fields:\n    ssn:\n      operation: redact\n"
+        };
+
+        // then each is rejected with the field in the message
+        for (String yaml : invalid) {
+            IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> policy(yaml));
+            assertTrue(thrown.getMessage().contains("Field ["), thrown.getMessage());
+        }
+    }
+
+    @Test
+    public void applicationYamlWithoutPolicyIsEmpty() {
+        // given application.yaml, which has no masking section
+        // when the policy is loaded
+        MaskingPolicy policy = MaskingPolicy.load();
+
+        // then there are no rules
+        assertTrue(policy.getRules().isEmpty());
+    }
+
+    @Test
+    public void instrumentedPolicyRecordsEveryRule() throws IOException {
+        // given the policy file compiled with metrics
+        MaskingMetrics metrics = new MaskingMetrics();
+        MaskingPipeline pipeline = MaskingPolicy.load(Paths.get("src/test/resources/policy.yaml")).compile(metrics);
+
+        // when two records are masked
+        pipeline.mask(new StringReader("ssn|account|birth_date\n123-45-7890|12345678|2001-03-15\n1|87654321|2002-01-01\n"), new StringWriter());
+
+        // then each rule has its own counts under field:operation
+        assertEquals(3, metrics.snapshot().size());
+        assertEquals(2, metrics.operation("ssn:redact").snapshot().getCalls());
+        assertEquals(20, metrics.operation("birth_date:perturb").snapshot().getCharacters());
+    }
+
+    @Test
+    public void cachedRuleMasksRepeatedValuesOnce() throws ConfigurationException, IOException {
+        // given a policy that caches a zip generalization
+        MaskingPolicy policy = policy("masking:\n  fields:\n    zip:\n      operation: generalizeZip\n      generalization: county\n      cache: 10\n      eviction: lru\n");
+        MaskingMetrics metrics = new MaskingMetrics();
+
+        // when a column repeating two zips is masked
+        StringWriter output = new StringWriter();
+        policy.compile(metrics).mask(new StringReader("zip\n68002\n68134\n68002\n68002\n"), output);
+
+        // then the output is the same as without the cache and the repeats were hits
+        assertEquals("zip\nWashington County\nDouglas County\nWashington County\nWashington County\n", output.toString());
+        assertEquals(Integer.valueOf(10), policy.getRules().get(0).getCache());
+        assertEquals(2, metrics.cache("zip:generalizeZip").hits());
+        assertEquals(2, metrics.cache("zip:generalizeZip").misses());
+    }
+}
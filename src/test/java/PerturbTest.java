@@ -1,8 +1,12 @@
 import org.junit.jupiter.api.Test;
+import utils.MaskedColumn;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 public class PerturbTest {
 
     @Test
@@ -45,4 +49,150 @@ public class PerturbTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void perturbYearMovesTheYear() {
+        // given a date in the past
+        LocalDate date = LocalDate.of(1976, 7, 4);
+
+        // when its year is perturbed
+        for (int i = 0; i < 100; i++) {
+            LocalDate result = new Perturb().perturb(date, Perturb.TEMPORAL_COMPONENT.year);
+
+            // then it moves one to ten years further into the past and keeps its month and day
+            assertTrue(result.getYear() >= 1966 && result.getYear() <= 1975, result.toString());
+            assertEquals(date.getMonth(), result.getMonth());
+            assertEquals(date.getDayOfMonth(), result.getDayOfMonth());
+        }
+    }
+
+    @Test
+    public void perturbMonthAndDayPickAnotherValue() {
+        // given a seeded instance
+        Perturb perturb = new Perturb(42);
+        LocalDate date = LocalDate.of(2001, 2, 14);
+
+        for (int i = 0; i < 1000; i++) {
+            // when the month and the day are perturbed
+            LocalDate month = perturb.perturb(date, Perturb.TEMPORAL_COMPONENT.month);
+            LocalDate day = perturb.perturb(date, Perturb.TEMPORAL_COMPONENT.day);
+
+            // then a different month of the same year and a different day of the same month are picked
+            assertEquals(2001, month.getYear());
+            assertNotEquals(2, month.getMonthValue());
+            assertEquals(2, day.getMonthValue());
+            assertNotEquals(14, day.getDayOfMonth());
+        }
+    }
+
+    @Test
+    public void perturbWithTheSameSeedIsRepeatable() {
+        // given two instances with the same seed and a column with a null
+        LocalDate[] dates = {LocalDate.of(1980, 1, 31), null, LocalDate.of(2020, 12, 31), LocalDate.of(1999, 6, 15)};
+
+        // when each perturbs the column
+        LocalDate[] first = new Perturb(7).perturb(dates, Perturb.TEMPORAL_COMPONENT.week);
+        LocalDate[] second = new Perturb(7).perturb(dates, Perturb.TEMPORAL_COMPONENT.week);
+
+        // then the results match and the null stays null
+        assertArrayEquals(first, second);
+        assertNull(first[1]);
+
+        // and the epoch day column gives the same dates
+        int[] epochDays = {(int) dates[0].toEpochDay(), (int) dates[2].toEpochDay()};
+        int[] days = new Perturb(7).perturb(epochDays, Perturb.TEMPORAL_COMPONENT.week);
+        assertEquals(first[0].toEpochDay(), days[0]);
+    }
+
+    @Test
+    public void perturbByKeyKeepsIntervals() {
+        // given an admission and a discharge date of the same patient
+        Perturb perturb = new Perturb(11);
+        LocalDate admitted = LocalDate.of(2019, 3, 2);
+        LocalDate discharged = LocalDate.of(2019, 3, 9);
+        CharSequence[] keys = {"patient-1", "patient-1"};
+
+        // when both are perturbed with the patient id as key
+        LocalDate[] result = perturb.perturb(new LocalDate[]{admitted, discharged}, Perturb.TEMPORAL_COMPONENT.day, keys);
+
+        // then both move by the same non-zero number of days, in this and any later run with the same seed
+        assertNotEquals(admitted, result[0]);
+        assertEquals(7, ChronoUnit.DAYS.between(result[0], result[1]));
+        assertEquals(result[0], new Perturb(11).perturb(admitted, Perturb.TEMPORAL_COMPONENT.day, "patient-1"));
+        assertThrows(IllegalArgumentException.class, () -> perturb.perturb(new int[2], Perturb.TEMPORAL_COMPONENT.day, new CharSequence[1]));
+    }
+
+    @Test
+    public void perturbByNullKeyIsRejected() {
+        // given a date without a key
+        Perturb perturb = new Perturb(11);
+        LocalDate date = LocalDate.of(2019, 3, 2);
+
+        // then every keyed form rejects it instead of moving it at random
+        assertThrows(IllegalArgumentException.class, () -> perturb.perturb(date, Perturb.TEMPORAL_COMPONENT.day, (CharSequence) null));
+        assertThrows(IllegalArgumentException.class, () -> perturb.perturbEpochDay(0, Perturb.TEMPORAL_COMPONENT.day, null));
+        assertThrows(IllegalArgumentException.class, () -> perturb.perturb(new LocalDate[]{date}, Perturb.TEMPORAL_COMPONENT.day, new CharSequence[1]));
+        assertThrows(IllegalArgumentException.class, () -> perturb.perturb(new int[1], Perturb.TEMPORAL_COMPONENT.day, new CharSequence[1]));
+
+        // and a null date needs no key
+        assertArrayEquals(new LocalDate[1], perturb.perturb(new LocalDate[1], Perturb.TEMPORAL_COMPONENT.day, new CharSequence[1]));
+    }
+
+    @Test
+    public void perturbEpochDaysMatchesLocalDate() {
+        // given ten thousand dates between 1900 and 2100
+        Random random = new Random(3);
+        LocalDate[] dates = new LocalDate[10_000];
+        int[] epochDays = new int[dates.length];
+        for (int i = 0; i < dates.length; i++) {
+            epochDays[i] = (int) LocalDate.of(1900, 1, 1).toEpochDay() + random.nextInt(73_000);
+            dates[i] = LocalDate.ofEpochDay(epochDays[i]);
+        }
+
+        for (Perturb.TEMPORAL_COMPONENT component : Perturb.TEMPORAL_COMPONENT.values()) {
+            // when both forms are perturbed by instances with the same seed
+            LocalDate[] expected = new Perturb(5).perturb(dates, component);
+            int[] result = new Perturb(5).perturb(epochDays, component);
+
+            // then they give the same dates
+            for (int i = 0; i < dates.length; i++) {
+                assertEquals(expected[i].toEpochDay(), result[i], component + " " + dates[i]);
+            }
+            assertEquals(new Perturb(5).perturb(dates[0], component, "key").toEpochDay(),
+                    new Perturb(5).perturbEpochDay(epochDays[0], component, "key"));
+        }
+    }
+
+    @Test
+    public void perturbIsoDate() {
+        // given an ISO date
+        StringBuilder result = new StringBuilder();
+
+        // when it is perturbed by day
+        new Perturb().perturb("2001-03-15", Perturb.TEMPORAL_COMPONENT.day, result);
+
+        // then another day of the same month is appended
+        LocalDate date = LocalDate.parse(result);
+        assertEquals(2001, date.getYear());
+        assertEquals(3, date.getMonthValue());
+        assertNotEquals(15, date.getDayOfMonth());
+        assertThrows(IllegalArgumentException.class, () -> new Perturb().perturb("15/03/2001", new StringBuilder()));
+    }
+
+    @Test
+    public void perturbColumn() {
+        // given a column of ISO dates with a null and a blank value
+        String[] test = {"2001-03-15", null, "", "1999-12-31"};
+
+        // when the column is perturbed by month in one call
+        MaskedColumn masked = new MaskedColumn();
+        new Perturb(3).column(Perturb.TEMPORAL_COMPONENT.month).mask(test, masked);
+
+        // then the same dates come out as from the per-value API with the same seed
+        Perturb expected = new Perturb(3);
+        assertEquals(expected.perturb(LocalDate.parse(test[0]), Perturb.TEMPORAL_COMPONENT.month).toString(), masked.get(0));
+        assertNull(masked.get(1));
+        assertEquals("", masked.get(2));
+        assertEquals(expected.perturb(LocalDate.parse(test[3]), Perturb.TEMPORAL_COMPONENT.month).toString(), masked.get(3));
+        assertThrows(IllegalArgumentException.class, () -> new Perturb().mask(new String[]{"15/03/2001"}, masked));
+    }
+}
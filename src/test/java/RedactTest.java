@@ -1,9 +1,13 @@
 import org.apache.commons.text.similarity.LevenshteinDistance;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import utils.MaskedColumn;
 
 import org.apache.commons.lang3.StringUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class RedactTest {
@@ -156,4 +160,143 @@ public class RedactTest {
         assertTrue(LevenshteinDistance.getDefaultInstance().apply(test, result) > 5);
     }
 
+    @Test
+    public void redactIntoBufferMatchesStringRedaction() {
+        // given a mix of ASCII, punctuation and non-ASCII letters and digits
+        String test = "Jos\u00e9 (555) 867-5309 \u0661\u0662";
+
+        // when the value is redacted into a caller-supplied buffer
+        Redact redact = new Redact();
+        char[] buffer = new char[test.length() + 2];
+        int end = redact.redact(test, 0, test.length(), buffer, 2);
+
+        // then the buffer holds the same characters as the String API, starting at the requested offset
+        assertEquals(test.length() + 2, end);
+        assertEquals(redact.redact(test), new String(buffer, 2, test.length()));
+        assertEquals("XXXX (999) 999-9999 99", new String(buffer, 2, test.length()));
+    }
+
+    @Test
+    public void redactCharArrayInPlace() {
+        // given a char array holding an SSN
+        char[] test = "123-45-7890".toCharArray();
+
+        // when only the first six characters are redacted in place
+        Redact redact = new Redact();
+        redact.redact(test, 0, 6, test, 0);
+
+        // then the rest of the array is untouched
+        assertEquals("999-99-7890", new String(test));
+    }
+
+    @Test
+    public void redactIntoBufferThatIsTooSmall() {
+        // given a destination buffer shorter than the value
+        String test = "ABC123";
+        char[] buffer = new char[test.length() - 1];
+
+        // when a redaction into the buffer is requested, then nothing is written past its end
+        Redact redact = new Redact();
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> redact.redact(test, 0, test.length(), buffer, 0));
+    }
+
+    @Test
+    public void redactPartialKeepsLeadingWhitespace() {
+        // given a value whose first characters are blank
+        String test = "   ABC123";
+
+        // when the front of the value is redacted
+        Redact redact = new Redact();
+        String result = redact.redact(test, 3, Redact.DIRECTION.front);
+
+        // then the blank prefix is kept so the result has the same length
+        assertEquals(test.length(), result.length());
+        assertEquals(test, result);
+    }
+
+    @Test
+    public void redactLongValue() {
+        // given a value larger than the retained per-thread buffer
+        String test = "A1-".repeat(5000);
+
+        // when a redaction operation is called
+        Redact redact = new Redact();
+        String result = redact.redact(test);
+
+        // then the whole value is redacted
+        assertEquals("X9-".repeat(5000), result);
+        assertEquals("XXX999", redact.redact("ABC123"));
+    }
+
+    @Test
+    public void redactColumn() {
+        // given a column with null, blank, ASCII and non-ASCII values
+        CharSequence[] test = {"ABC123", null, "  ", new StringBuilder("ab-12"), "\u00e9t\u00e9 9"};
+
+        // when the column is redacted in one call
+        MaskedColumn masked = new MaskedColumn(1, 4);
+        new Redact().mask(test, masked);
+
+        // then each row matches the single value API and nulls stay null
+        assertEquals(test.length, masked.size());
+        assertEquals("XXX999", masked.get(0));
+        assertNull(masked.get(1));
+        assertEquals("", masked.get(2));
+        assertEquals("XX-99", masked.get(3));
+        assertEquals(new Redact().redact("\u00e9t\u00e9 9"), masked.get(4));
+    }
+
+    @Test
+    public void redactColumnPartial() {
+        // given a column of account numbers
+        String[] test = {"1234-5678", "9876-5432", null};
+
+        // when part of every value is redacted in one call
+        Redact redact = new Redact();
+        MaskedColumn front = new MaskedColumn();
+        MaskedColumn back = new MaskedColumn();
+        redact.column(4, Redact.DIRECTION.front).mask(test, front);
+        redact.column(4, Redact.DIRECTION.back).mask(test, 1, 3, back);
+
+        // then each row matches the single value API
+        assertEquals(redact.redact(test[0], 4, Redact.DIRECTION.front), front.get(0));
+        assertEquals(redact.redact(test[1], 4, Redact.DIRECTION.front), front.get(1));
+        assertNull(front.get(2));
+        assertEquals(2, back.size());
+        assertEquals(redact.redact(test[1], 4, Redact.DIRECTION.back), back.get(0));
+
+        // and the parameters are checked once, before any value
+        Assertions.assertThrows(IllegalArgumentException.class, () -> redact.column(0, Redact.DIRECTION.front));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> redact.column(4, null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> redact.column(4, Redact.DIRECTION.back).mask(new String[]{"123"}, back));
+    }
+
+    @Test
+    public void redactLatin1Bytes() {
+        // given Latin-1 values of every length up to 40: ASCII at odd lengths, with some accented letters and symbols at even ones
+        String alphabet = "AZaz09@[`{/: -.\u00e9\u00c5\u00df\u00d7\u00b2\u00ff";
+        Random random = new Random(7);
+        Redact redact = new Redact();
+
+        for (int length = 0; length <= 40; length++) {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = length % 2 == 0 && random.nextInt(4) == 0 ? alphabet.charAt(random.nextInt(alphabet.length())) : (char) (32 + random.nextInt(95));
+            }
+            String test = new String(chars);
+            byte[] bytes = test.getBytes(StandardCharsets.ISO_8859_1);
+
+            // when the bytes are redacted into a buffer and in place
+            byte[] buffer = new byte[length + 3];
+            int end = redact.redact(bytes, 0, length, buffer, 3);
+            redact.redact(bytes, 0, length, bytes, 0);
+
+            // then both give the same characters as the char path
+            char[] expected = new char[length];
+            redact.redact(test, 0, length, expected, 0);
+            assertEquals(length + 3, end);
+            assertEquals(new String(expected), new String(buffer, 3, length, StandardCharsets.ISO_8859_1), test);
+            assertEquals(new String(expected), new String(bytes, StandardCharsets.ISO_8859_1), test);
+        }
+    }
 }
@@ -0,0 +1,215 @@
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import utils.DictionaryMasker;
+import utils.MaskedColumn;
+import utils.NameDictionary;
+import utils.NameFrequencyTable;
+import utils.ProcessFirstNames;
+import utils.SurnameTable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SubstitutionTest {
+
+    private static ProcessFirstNames processFirstNames;
+    private static Substitution substitution;
+
+    @BeforeAll
+    public static void setUp() {
+        processFirstNames = new ProcessFirstNames();
+        substitution = new Substitution(processFirstNames);
+    }
+
+    @Test
+    public void substituteFirstNameKeepsGender() {
+        // given a name that is almost only given to girls
+        NameFrequencyTable names = processFirstNames.getNames();
+
+        // when it is substituted many times
+        for (int i = 0; i < 1000; i++) {
+            String result = substitution.substituteFirstName("Mary");
+
+            // then every replacement is a female name
+            assertTrue(names.find(result, true) >= 0, result);
+        }
+        assertNull(substitution.substituteFirstName(null));
+    }
+
+    @Test
+    public void substituteFirstNameByRankSwapsNeighbours() {
+        // given the two most popular female names of 1920
+        String first = "Mary";
+        String second = "Dorothy";
+
+        // when they are substituted by rank, then they swap and substituting twice gives back the original
+        assertEquals(second, substitution.substituteFirstName(first, 1920));
+        assertEquals(first, substitution.substituteFirstName(second, 1920));
+        assertEquals(first, substitution.substituteFirstName(substitution.substituteFirstName(first, 1920), 1920));
+
+        // and a birth year is ranked in the closest compiled year
+        assertEquals(second, substitution.substituteFirstName(first, 1923));
+    }
+
+    @Test
+    public void substituteFirstNameMatchesCase() {
+        // given a first name in upper case, lower case and as in the SSA files
+        NameFrequencyTable names = processFirstNames.getNames();
+        String upper = substitution.substituteFirstName("MARY");
+        String lower = substitution.substituteFirstName("mary");
+
+        // then it is found whatever its case and the replacement follows the case of the original
+        assertEquals(upper.toUpperCase(), upper);
+        assertTrue(names.find(upper, true) >= 0, upper);
+        assertTrue(names.find(lower, true) >= 0, lower);
+        assertEquals("DOROTHY", substitution.substituteFirstName("MARY", 1920));
+        assertEquals("Dorothy", substitution.substituteFirstName("mary", 1920));
+    }
+
+    @Test
+    public void substituteFirstNameByRankWithoutCompiledYears(@TempDir final Path directory) throws IOException {
+        // given a dictionary compiled from the surname file alone
+        String surnames = "most-common-name_surnames.csv";
+        Files.copy(Paths.get("src/main/resources").resolve(surnames), directory.resolve(surnames));
+        NameDictionary.compile(directory, directory.resolve("names.dict"));
+        NameDictionary dictionary = NameDictionary.open(directory.resolve("names.dict"));
+        assertEquals(0, dictionary.yearCount());
+        Substitution noYears = new Substitution(processFirstNames.getNames(), dictionary);
+        NameFrequencyTable names = processFirstNames.getNames();
+
+        // when first names are substituted by year, then they are drawn at random with the same gender
+        assertTrue(names.find(noYears.substituteFirstName("Mary", 1920), true) >= 0);
+        assertTrue(names.find(noYears.substituteFirstNames(new String[]{"Mary"}, 1920)[0], true) >= 0);
+        MaskedColumn masked = new MaskedColumn();
+        noYears.firstNameColumn(1920).mask(new String[]{"Mary", null}, 0, 2, masked);
+        assertTrue(names.find(masked.get(0), true) >= 0);
+        assertTrue(masked.isNull(1));
+    }
+
+    @Test
+    public void substituteLastNameMatchesCase() {
+        // given last names in upper case and capitalized
+        String upper = substitution.substituteLastName("CALLAGHAN");
+        String capitalized = substitution.substituteLastName("Callaghan");
+
+        // then the replacements follow the same case
+        assertEquals(upper.toUpperCase(), upper);
+        assertTrue(Character.isUpperCase(capitalized.charAt(0)));
+        assertEquals(capitalized.substring(1).toLowerCase(), capitalized.substring(1));
+    }
+
+    @Test
+    public void substituteColumns() {
+        // given columns long enough to be split across threads, with a null entry
+        String[] firstNames = new String[10_000];
+        String[] lastNames = new String[10_000];
+        int[] years = new int[10_000];
+        for (int i = 0; i < firstNames.length; i++) {
+            firstNames[i] = i % 2 == 0 ? "Mary" : "James";
+            lastNames[i] = "Smith";
+            years[i] = 1920 + i % 100;
+        }
+        firstNames[5] = null;
+
+        // when the columns are substituted in one call
+        String[] first = substitution.substituteFirstNames(firstNames);
+        String[] ranked = substitution.substituteFirstNames(firstNames, years);
+        String[] last = substitution.substituteLastNames(lastNames);
+
+        // then every row is substituted, nulls stay null and ranked rows match the single value API
+        assertEquals(firstNames.length, first.length);
+        assertNull(first[5]);
+        assertNull(ranked[5]);
+        assertEquals(substitution.substituteFirstName(firstNames[0], years[0]), ranked[0]);
+        assertEquals(substitution.substituteFirstName(firstNames[1001], years[1001]), ranked[1001]);
+        Set<String> distinct = new HashSet<>();
+        for (String name : last) {
+            assertNotNull(name);
+            distinct.add(name);
+        }
+        assertTrue(distinct.size() > 100);
+        assertThrows(IllegalArgumentException.class, () -> substitution.substituteFirstNames(firstNames, new int[1]));
+    }
+
+    @Test
+    public void substituteColumn() {
+        // given a column of first names and one of last names
+        String[] firstNames = {"Mary", null, "James"};
+        String[] lastNames = {"SMITH", "Jones", null};
+
+        // when they are substituted into buffers
+        MaskedColumn first = new MaskedColumn();
+        MaskedColumn ranked = new MaskedColumn();
+        MaskedColumn last = new MaskedColumn();
+        substitution.mask(firstNames, first);
+        substitution.firstNameColumn(1980).mask(firstNames, ranked);
+        substitution.lastNameColumn().mask(lastNames, last);
+
+        // then every row is substituted, ranked rows match the single value API and nulls stay null
+        assertNotNull(first.get(0));
+        assertNull(first.get(1));
+        assertEquals(substitution.substituteFirstName("Mary", 1980), ranked.get(0));
+        assertEquals(substitution.substituteFirstName("James", 1980), ranked.get(2));
+        assertEquals(last.get(0).toUpperCase(), last.get(0));
+        assertNotEquals(last.get(1).toUpperCase(), last.get(1));
+        assertNull(last.get(2));
+    }
+
+    @Test
+    public void substituteLastNameBySampling() {
+        // given a common, a rare and an unknown last name
+        SurnameTable table = SurnameTable.of(processFirstNames.getNameDictionary());
+        int johnson = table.find("JOHNSON");
+        int rare = table.size() - 1;
+
+        for (int i = 0; i < 200; i++) {
+            // when they are substituted by similar rank
+            String common = substitution.substituteLastName("Johnson", Substitution.SURNAME_SAMPLING.similarRank);
+            String alsoRare = substitution.substituteLastName(table.name(rare), Substitution.SURNAME_SAMPLING.similarRank);
+            String unknown = substitution.substituteLastName("Callaghan-Alderson", Substitution.SURNAME_SAMPLING.similarRank);
+
+            // then the replacements are ranked close to the originals and keep their case
+            int row = table.find(common);
+            assertNotEquals(johnson, row);
+            assertTrue(Math.abs(row - johnson) <= Substitution.RANK_BAND, common);
+            assertEquals(common.charAt(0) + common.substring(1).toLowerCase(), common);
+            assertTrue(table.find(alsoRare) >= rare - Substitution.RANK_BAND, alsoRare);
+            assertTrue(table.find(unknown) >= table.size() - Substitution.RANK_BAND, unknown);
+        }
+
+        // and every sampling has a batch form that keeps nulls
+        String[] column = {"SMITH", null, "Garcia"};
+        for (Substitution.SURNAME_SAMPLING sampling : Substitution.SURNAME_SAMPLING.values()) {
+            String[] substituted = substitution.substituteLastNames(column, sampling);
+            MaskedColumn masked = new MaskedColumn();
+            substitution.lastNameColumn(sampling).mask(column, masked);
+            assertTrue(table.find(substituted[0]) >= 0);
+            assertNull(substituted[1]);
+            assertTrue(masked.isNull(1));
+            assertEquals(masked.get(0).toUpperCase(), masked.get(0));
+        }
+    }
+
+    @Test
+    public void substituteColumnByDictionary() {
+        // given a column repeating a few last names
+        String[] test = {"SMITH", "Jones", "SMITH", null, "Jones", "SMITH"};
+
+        // when it is substituted through its dictionary
+        MaskedColumn masked = new MaskedColumn();
+        new DictionaryMasker(substitution.lastNameColumn()).mask(test, masked);
+
+        // then every occurrence of a name gets the same substitute within the batch
+        assertEquals(masked.get(0), masked.get(2));
+        assertEquals(masked.get(0), masked.get(5));
+        assertEquals(masked.get(1), masked.get(4));
+        assertNull(masked.get(3));
+    }
+}
@@ -0,0 +1,150 @@
+import org.junit.jupiter.api.Test;
+import utils.MaskedColumn;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenizeTest {
+
+    @Test
+    public void tokenizeIsDeterministic() {
+        // given the same value tokenized by two instances sharing the configured key
+        String test = "jane.doe@example.com";
+
+        // when each tokenizes it
+        String first = new Tokenize().tokenize(test);
+        String second = new Tokenize().tokenize(test);
+
+        // then the tokens match and do not reveal the value
+        assertEquals(first, second);
+        assertEquals(43, first.length());
+        assertFalse(first.contains("jane"));
+        assertNotEquals(first, new Tokenize().tokenize("john.doe@example.com"));
+    }
+
+    @Test
+    public void tokenizeDependsOnTweak() {
+        // given two instances with the same key but different tweaks
+        EncryptionConfig config = new EncryptionConfig();
+        Tokenize patients = new Tokenize(config, "patients");
+        Tokenize claims = new Tokenize(config, "claims");
+
+        // when the same value is tokenized by each, then the tokens differ
+        assertNotEquals(patients.tokenize("123-45-7890"), claims.tokenize("123-45-7890"));
+        assertNotEquals(patients.tokenizePreservingFormat("123-45-7890"), claims.tokenizePreservingFormat("123-45-7890"));
+    }
+
+    @Test
+    public void tokenizePreservingFormatSSN() {
+        // given an SSN
+        String test = "123-45-7890";
+
+        // when it is tokenized preserving its format
+        Tokenize tokenize = new Tokenize();
+        String result = tokenize.tokenizePreservingFormat(test);
+
+        // then the token is a different SSN shaped value that is stable and reversible
+        assertNotEquals(test, result);
+        assertTrue(result.matches("\\d{3}-\\d{2}-\\d{4}"));
+        assertEquals(result, tokenize.tokenizePreservingFormat(test));
+        assertEquals(test, tokenize.detokenize(result));
+    }
+
+    @Test
+    public void tokenizePreservingFormatKeepsCharacterClasses() {
+        // given an address mixing upper case, lower case, digits and punctuation
+        String test = "1313 Mockingbird Ln.";
+
+        // when it is tokenized preserving its format
+        Tokenize tokenize = new Tokenize();
+        String result = tokenize.tokenizePreservingFormat(test);
+
+        // then each position keeps its character class
+        assertEquals(test.length(), result.length());
+        for (int i = 0; i < test.length(); i++) {
+            char original = test.charAt(i);
+            char token = result.charAt(i);
+            assertEquals(Character.isDigit(original), Character.isDigit(token));
+            assertEquals(Character.isUpperCase(original), Character.isUpperCase(token));
+            assertEquals(Character.isLowerCase(original), Character.isLowerCase(token));
+            if (!Character.isLetterOrDigit(original)) {
+                assertEquals(original, token);
+            }
+        }
+    }
+
+    @Test
+    public void tokenizePreservingFormatRoundTripsAnyLength() {
+        // given random alphanumeric values from 0 to 40 characters
+        Tokenize tokenize = new Tokenize();
+        Random random = new Random(42);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789 -.";
+
+        for (int length = 0; length <= 40; length++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String test = sb.toString();
+
+            // when each is tokenized, then the token detokenizes to the original
+            String result = tokenize.tokenizePreservingFormat(test);
+            assertEquals(test.length(), result.length());
+            assertEquals(test, tokenize.detokenize(result));
+        }
+    }
+
+    @Test
+    public void tokenizePreservingFormatIsAPermutation() {
+        // given every three digit value
+        Tokenize tokenize = new Tokenize();
+        Set<String> tokens = new HashSet<>();
+
+        // when each is tokenized
+        for (int i = 0; i < 1000; i++) {
+            tokens.add(tokenize.tokenizePreservingFormat(String.format("%03d", i)));
+        }
+
+        // then no two values share a token, so joins on the token cannot merge different values
+        assertEquals(1000, tokens.size());
+    }
+
+    @Test
+    public void tokenizeBatch() {
+        // given a column with a null value
+        String[] test = {"6011000990139424", null, "ABC123"};
+
+        // when the column is tokenized in one call
+        Tokenize tokenize = new Tokenize();
+        String[] hmac = tokenize.tokenize(test);
+        String[] formatted = tokenize.tokenizePreservingFormat(test);
+
+        // then each entry matches the single value API and nulls stay null
+        assertEquals(tokenize.tokenize(test[0]), hmac[0]);
+        assertEquals(tokenize.tokenizePreservingFormat(test[2]), formatted[2]);
+        assertNull(hmac[1]);
+        assertNull(formatted[1]);
+    }
+
+    @Test
+    public void tokenizeColumn() {
+        // given a column with a null value
+        String[] test = {"6011000990139424", null, "ABC123"};
+
+        // when the column is tokenized into buffers
+        Tokenize tokenize = new Tokenize();
+        MaskedColumn hmac = new MaskedColumn();
+        MaskedColumn formatted = new MaskedColumn();
+        tokenize.mask(test, hmac);
+        tokenize.preservingFormatColumn().mask(test, formatted);
+
+        // then each row matches the single value API and nulls stay null
+        assertEquals(tokenize.tokenize(test[0]), hmac.get(0));
+        assertEquals(tokenize.tokenizePreservingFormat(test[2]), formatted.get(2));
+        assertNull(hmac.get(1));
+        assertTrue(formatted.isNull(1));
+    }
+}
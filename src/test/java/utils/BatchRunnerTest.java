@@ -0,0 +1,121 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchRunnerTest {
+
+    private static final FieldMasker STARS = (value, masked) -> {
+        for (int i = 0; i < value.length(); i++) {
+            masked.append('*');
+        }
+    };
+
+    @TempDir
+    Path directory;
+
+    private Path source() throws IOException {
+        Path source = Files.createDirectories(directory.resolve("source"));
+        for (int file = 0; file < 20; file++) {
+            StringBuilder records = new StringBuilder();
+            for (int record = 0; record < 10 * file; record++) {
+                records.append(record).append(",Name").append(record).append('\n');
+            }
+            Files.writeString(source.resolve(String.format("extract-%02d.csv", file)), records);
+        }
+        Files.writeString(source.resolve("notes.txt"), "not selected");
+        return source;
+    }
+
+    private BatchRunner.BatchRunnerBuilder runner(final Path source, final MaskingPipeline pipeline) {
+        return BatchRunner.builder()
+                .directory(source.toString())
+                .extension("csv")
+                .targetDirectory(directory.resolve("target"))
+                .pipeline(pipeline)
+                .threads(3)
+                .packSize(200)
+                .largeFileSize(1500);
+    }
+
+    @Test
+    public void givenSmallAndLargeFiles_whenRun_thenEverySelectedFileIsMasked() throws IOException {
+        Path source = source();
+        MaskingPipeline pipeline = MaskingPipeline.builder().column(1, STARS).chunkSize(300).build();
+
+        long records = runner(source, pipeline).build().run();
+
+        assertEquals(1900, records);
+        Path target = directory.resolve("target");
+        assertFalse(Files.exists(target.resolve("notes.txt")));
+        List<String> lines = Files.readAllLines(target.resolve("extract-19.csv"));
+        assertEquals(190, lines.size());
+        assertEquals("189,*******", lines.get(189));
+    }
+
+    @Test
+    public void givenCheckpoint_whenRunAgain_thenOnlyChangedOrMissingFilesAreMasked() throws IOException {
+        Path source = source();
+        MaskingPipeline pipeline = MaskingPipeline.builder().column(1, STARS).build();
+        runner(source, pipeline).build().run();
+
+        Files.writeString(source.resolve("extract-01.csv"), "1,Jane\n2,Bob\n");
+        Files.delete(directory.resolve("target").resolve("extract-02.csv"));
+        long records = runner(source, pipeline).build().run();
+
+        assertEquals(2 + 20, records);
+        assertEquals(List.of("1,****", "2,***"), Files.readAllLines(directory.resolve("target").resolve("extract-01.csv")));
+        assertEquals(0, runner(source, pipeline).build().run());
+    }
+
+    @Test
+    public void givenCheckpointCutShortByACrash_whenRun_thenTheCutRecordIsIgnored() throws IOException {
+        Path source = source();
+        MaskingPipeline pipeline = MaskingPipeline.builder().column(1, STARS).build();
+        runner(source, pipeline).build().run();
+
+        Path checkpoint = directory.resolve("target").resolve(BatchRunner.DEFAULT_CHECKPOINT);
+        String kept = Files.readAllLines(checkpoint).stream()
+                .filter(line -> line.matches("extract-0[0-4].*"))
+                .collect(Collectors.joining("\n", "", "\n"));
+        Files.writeString(checkpoint, kept + "extract-05.csv,12");
+
+        assertEquals(1900 - 10 * (0 + 1 + 2 + 3 + 4), runner(source, pipeline).build().run());
+        assertEquals(0, runner(source, pipeline).build().run());
+    }
+
+    @Test
+    public void givenFailingFile_whenRun_thenOtherFilesAreMaskedAndFailureIsReported() throws IOException {
+        Path source = source();
+        Files.writeString(source.resolve("extract-03.csv"), "1,x\n");
+        MaskingPipeline pipeline = MaskingPipeline.builder()
+                .column(1, FieldMasker.of(value -> value.equals("x") ? value.substring(2) : value))
+                .build();
+
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> runner(source, pipeline).build().run());
+
+        assertTrue(thrown.getMessage().contains("extract-03.csv"));
+        assertTrue(Files.exists(directory.resolve("target").resolve("extract-19.csv")));
+    }
+
+    @Test
+    public void givenTargetIsTheSourceDirectory_whenBuilt_thenIllegalArgumentExceptionIsThrown() throws IOException {
+        Path source = source();
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BatchRunner.builder()
+                .directory(source.toString())
+                .targetDirectory(source)
+                .pipeline(MaskingPipeline.builder().build())
+                .build());
+    }
+}
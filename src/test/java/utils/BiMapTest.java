@@ -3,6 +3,8 @@ package utils;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class BiMapTest {
@@ -21,6 +23,20 @@ public class BiMapTest {
         //additional bi-map behavior
         assertEquals(map.getKey(1), "a");
         assertEquals(map.getKey(2), "b");
+        assertEquals(2, map.size());
+        assertFalse(map.isEmpty());
+        assertTrue(new BiMap<String, Integer>().isEmpty());
+    }
+
+    @Test
+    public void givenABiMap_WhenAKeyIsGivenANewValue_TheOldValueNoLongerLeadsToIt(){
+        BiMap<String, Integer> map = new BiMap<>();
+        map.put("a", 1);
+        map.put("a", 2);
+
+        assertEquals(1, map.size());
+        assertEquals("a", map.getKey(2));
+        assertNull(map.getKey(1));
     }
 
     @Test
@@ -0,0 +1,53 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ColumnDictionaryTest {
+
+    @Test
+    public void givenAColumnWithRepeats_whenEncoded_thenEachDistinctValueHasOneCodeInOrderOfAppearance() {
+        CharSequence[] column = {"NE", "IA", null, new StringBuilder("NE"), "KS", "IA", ""};
+        ColumnDictionary dictionary = new ColumnDictionary();
+
+        int size = dictionary.encode(column, 0, column.length);
+
+        assertEquals(4, size);
+        assertEquals(column.length, dictionary.rows());
+        int[] codes = new int[column.length];
+        for (int row = 0; row < codes.length; row++) {
+            codes[row] = dictionary.code(row);
+        }
+        assertEquals("[0, 1, -1, 0, 2, 1, 3]", Arrays.toString(codes));
+        assertSame(column[0], dictionary.distinct()[0]);
+        assertEquals("", dictionary.distinct()[3]);
+    }
+
+    @Test
+    public void givenAReusedDictionary_whenARangeOfAnotherChunkIsEncoded_thenOnlyThatRangeIsKept() {
+        ColumnDictionary dictionary = new ColumnDictionary();
+        String[] large = new String[1000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = "value" + (i % 300);
+        }
+        assertEquals(300, dictionary.encode(large, 0, large.length));
+
+        assertEquals(2, dictionary.encode(new String[]{"a", "b", "a", "c"}, 1, 3));
+
+        assertEquals(2, dictionary.rows());
+        assertEquals("b", dictionary.distinct()[dictionary.code(0)]);
+        assertEquals("a", dictionary.distinct()[dictionary.code(1)]);
+        // the values of the larger chunk are no longer referenced
+        for (int i = 2; i < dictionary.distinct().length; i++) {
+            assertNull(dictionary.distinct()[i]);
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> dictionary.code(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> dictionary.encode(new String[2], 1, 3));
+    }
+}
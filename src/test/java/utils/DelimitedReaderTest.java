@@ -0,0 +1,75 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DelimitedReaderTest {
+
+    /**
+     * Read everything into records of fields, using a tiny buffer so fields straddle buffer refills
+     */
+    private List<List<String>> readAll(final String input, final char separator) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        try (DelimitedReader reader = new DelimitedReader(new StringReader(input), separator, 3)) {
+            while (reader.next()) {
+                assertEquals(fields.size(), reader.column());
+                assertEquals(records.size() + 1, reader.record());
+                fields.add(reader.field().toString());
+                if (reader.endOfRecord()) {
+                    records.add(fields);
+                    fields = new ArrayList<>();
+                }
+            }
+        }
+        return records;
+    }
+
+    @Test
+    public void givenSimpleRecords_whenRead_thenEachFieldIsReturnedInOrder() throws IOException {
+        List<List<String>> records = readAll("A,10\nB,11\r\nC,12", ',');
+
+        assertEquals(List.of(List.of("A", "10"), List.of("B", "11"), List.of("C", "12")), records);
+    }
+
+    @Test
+    public void givenQuotedFields_whenRead_thenQuotesAreRemovedAndEmbeddedSeparatorsAndLineBreaksAreKept() throws IOException {
+        List<List<String>> records = readAll("\"Doe, Jane\",\"say \"\"hi\"\"\",\"two\nlines\"\n", ',');
+
+        assertEquals(List.of(List.of("Doe, Jane", "say \"hi\"", "two\nlines")), records);
+    }
+
+    @Test
+    public void givenEmptyFields_whenRead_thenEmptyStringsAreReturned() throws IOException {
+        List<List<String>> records = readAll(",x,\n\n", ',');
+
+        assertEquals(List.of(List.of("", "x", ""), List.of("")), records);
+    }
+
+    @Test
+    public void givenEmptyInput_whenRead_thenNoFieldsAreReturned() throws IOException {
+        assertTrue(readAll("", ',').isEmpty());
+    }
+
+    @Test
+    public void givenPipeSeparator_whenRead_thenCommasAreData() throws IOException {
+        List<List<String>> records = readAll("a,b|c\n", '|');
+
+        assertEquals(List.of(List.of("a,b", "c")), records);
+    }
+
+    @Test
+    public void givenMultiCharacterSeparator_whenConverted_thenIllegalArgumentExceptionIsThrownWithSeparatorInMessage() {
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> DelimitedReader.separator("||"));
+
+        assertTrue(thrown.getMessage().contains("||"));
+        assertEquals(',', DelimitedReader.separator(null));
+    }
+}
@@ -0,0 +1,34 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DictionaryMaskerTest {
+
+    @Test
+    public void givenAColumnWithRepeats_whenMaskedByDictionary_thenEachDistinctValueIsMaskedOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        // a masker that numbers the values it is given, so a value masked twice would get two numbers
+        ColumnMasker numbering = ColumnMasker.of((value, masked) -> masked.append(value).append('#').append(calls.incrementAndGet()));
+        String[] column = {"F", "M", null, "F", "F", "U", "M"};
+
+        MaskedColumn masked = new MaskedColumn();
+        masked.append("earlier");
+        new DictionaryMasker(numbering).mask(column, masked);
+
+        assertEquals(3, calls.get());
+        assertArrayEquals(new String[]{"earlier", "F#1", "M#2", null, "F#1", "F#1", "U#3", "M#2"}, masked.toArray());
+    }
+
+    @Test
+    public void givenAMaskerThatDropsRows_whenMaskedByDictionary_thenItIsRejected() {
+        ColumnMasker dropping = (values, from, to, masked) -> masked.append("only one");
+
+        assertThrows(IllegalStateException.class, () -> new DictionaryMasker(dropping).mask(new String[]{"a", "b"}, new MaskedColumn()));
+    }
+}
@@ -0,0 +1,144 @@
+package utils;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IntRingTest {
+
+    private static IntRing ring = new IntRing();
+
+    @BeforeAll
+    public static void init() {
+        ring.add(13);
+        ring.add(7);
+        ring.add(24);
+        ring.add(1);
+        ring.add(8);
+        ring.add(37);
+        ring.add(46);
+    }
+
+    @Test
+    public void givenARing_whenLookingForExistingElements_ThenRingReturnsTrue() {
+        assertTrue(ring.contains(8));
+        assertTrue(ring.contains(37));
+    }
+
+    @Test
+    public void givenARing_whenLookingForNonExistingElements_ThenRingReturnsFalse() {
+        assertFalse(ring.contains(100));
+    }
+
+    @Test
+    public void givenARing_whenDeletingElement_ThenRingDoesNotContainElement() {
+        assertTrue(ring.contains(46));
+        ring.delete(46);
+        assertFalse(ring.contains(46));
+
+        assertTrue(ring.contains(1));
+        ring.delete(1);
+        assertFalse(ring.contains(1));
+
+        assertTrue(ring.contains(13));
+        ring.delete(13);
+        assertFalse(ring.contains(13));
+    }
+
+    @Test
+    public void givenARing_whenCallingNext_thenValuesComeRoundRobinAndWrap() {
+        IntRing numbers = new IntRing(2, false);
+        assertThrows(IllegalStateException.class, numbers::next);
+        for (int i = 1; i <= 3; i++) {
+            numbers.add(i);
+        }
+
+        int[] drawn = new int[7];
+        for (int i = 0; i < drawn.length; i++) {
+            drawn[i] = numbers.next();
+        }
+
+        assertArrayEquals(new int[]{1, 2, 3, 1, 2, 3, 1}, drawn);
+        // deleting the last value moves nothing and the cursor carries on
+        numbers.delete(3);
+        assertArrayEquals(new int[]{2, 1, 2}, new int[]{numbers.next(), numbers.next(), numbers.next()});
+    }
+
+    @Test
+    public void givenAnIndexedRing_whenAddingAndDeletingAtRandom_thenItAgreesWithAScan() {
+        IntRing indexed = new IntRing(4, true);
+        IntRing scanned = new IntRing(4, false);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            // a small range so that values collide, come back and are deleted often
+            int value = random.nextInt(500) - 250;
+            if (random.nextBoolean()) {
+                boolean added = indexed.add(value);
+                assertEquals(!scanned.contains(value), added);
+                if (added) {
+                    scanned.add(value);
+                }
+            } else {
+                assertEquals(scanned.delete(value), indexed.delete(value));
+            }
+            assertEquals(scanned.size(), indexed.size());
+        }
+
+        assertArrayEquals(scanned.toArray(), indexed.toArray());
+        for (int value = -260; value < 260; value++) {
+            assertEquals(scanned.contains(value), indexed.contains(value));
+        }
+    }
+
+    @Test
+    public void givenAConcurrentRing_whenThreadsCallNext_thenEveryValueIsHandedOutEqually() throws Exception {
+        IntRing numbers = new IntRing(8, true);
+        for (int i = 0; i < 8; i++) {
+            numbers.add(i * 10);
+        }
+        ConcurrentIntRing shared = ConcurrentIntRing.of(numbers);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<int[]>> counts = new ArrayList<>();
+
+        for (int t = 0; t < 4; t++) {
+            counts.add(executor.submit(() -> {
+                int[] count = new int[8];
+                for (int i = 0; i < 10_000; i++) {
+                    count[shared.next() / 10]++;
+                }
+                return count;
+            }));
+        }
+        int[] total = new int[8];
+        for (Future<int[]> count : counts) {
+            int[] c = count.get();
+            for (int i = 0; i < total.length; i++) {
+                total[i] += c[i];
+            }
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        int[] expected = new int[8];
+        Arrays.fill(expected, 4 * 10_000 / 8);
+        assertArrayEquals(expected, total);
+        assertTrue(shared.contains(70));
+        assertFalse(shared.contains(75));
+        assertThrows(IllegalArgumentException.class, () -> ConcurrentIntRing.of(new IntRing()));
+    }
+}
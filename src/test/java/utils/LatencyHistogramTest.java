@@ -0,0 +1,60 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void givenSmallValues_whenRecorded_thenPercentilesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 20; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(20, histogram.count());
+        assertEquals(10, histogram.percentile(50));
+        assertEquals(20, histogram.percentile(100));
+        assertEquals(1, histogram.percentile(0));
+    }
+
+    @Test
+    public void givenValuesOfAnyMagnitude_whenRecorded_thenPercentilesAreWithinOneSixteenth() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        SplittableRandom random = new SplittableRandom(7);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextLong(1, 10_000_000_000L);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long reported = histogram.percentile(percentile);
+            assertTrue(reported >= exact && reported <= exact + exact / 16 + 1, percentile + ": " + reported + " vs " + exact);
+        }
+        assertEquals(values[values.length - 1], histogram.max());
+    }
+
+    @Test
+    public void givenHugeValue_whenRecorded_thenMaxIsExactAndPercentileIsCappedByIt() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(-5);
+
+        assertEquals(Long.MAX_VALUE, histogram.max());
+        assertEquals(0, histogram.percentile(50));
+        assertTrue(histogram.percentile(100) > 1L << 36);
+    }
+
+    @Test
+    public void givenPercentileOutOfRange_whenRequested_thenIllegalArgumentExceptionIsThrown() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram().percentile(101));
+    }
+}
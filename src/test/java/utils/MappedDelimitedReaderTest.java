@@ -0,0 +1,103 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedDelimitedReaderTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Read everything into records of fields through the given reader
+     */
+    private List<List<String>> readAll(final FieldReader reader) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        try (reader) {
+            while (reader.next()) {
+                assertEquals(fields.size(), reader.column());
+                assertEquals(records.size() + 1, reader.record());
+                fields.add(reader.field().toString());
+                if (reader.endOfRecord()) {
+                    records.add(fields);
+                    fields = new ArrayList<>();
+                }
+            }
+        }
+        return records;
+    }
+
+    private Path write(final String input) throws IOException {
+        return Files.write(directory.resolve("input.csv"), input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void givenSimpleRecords_whenRead_thenEachFieldIsReturnedInOrder() throws IOException {
+        List<List<String>> records = readAll(new MappedDelimitedReader(write("A,10\nB,11\r\nC,12"), ','));
+
+        assertEquals(List.of(List.of("A", "10"), List.of("B", "11"), List.of("C", "12")), records);
+    }
+
+    @Test
+    public void givenAnyInput_whenReadWithTinyWindows_thenFieldsMatchDelimitedReader() throws IOException {
+        String input = "\"Doe, Jane\",\"say \"\"hi\"\"\",\"two\nlines\"\r\n,x,\n\nJos\u00e9,\u00c5se,\"a\"b\r\n\u65e5\u672c,last,";
+        Path file = write(input);
+        List<List<String>> expected = readAll(new DelimitedReader(new StringReader(input), ','));
+
+        for (long windowSize = 1; windowSize <= 16; windowSize++) {
+            assertEquals(expected, readAll(new MappedDelimitedReader(file, ',', windowSize)), "window " + windowSize);
+        }
+    }
+
+    @Test
+    public void givenAsciiField_whenRead_thenByteRangeCoversTheFieldInTheFile() throws IOException {
+        try (MappedDelimitedReader reader = new MappedDelimitedReader(write("id,\"name\"\n"), ',')) {
+            assertTrue(reader.next());
+            assertEquals(0, reader.fieldOffset());
+            assertEquals(2, reader.fieldEnd());
+            assertEquals('d', reader.field().charAt(1));
+            assertEquals("id", reader.field().subSequence(0, 2).toString());
+
+            assertTrue(reader.next());
+            assertEquals(3, reader.fieldOffset());
+            assertEquals(9, reader.fieldEnd());
+            assertEquals("name", reader.field().toString());
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void givenEmptyFile_whenRead_thenNoFieldsAreReturned() throws IOException {
+        assertTrue(readAll(new MappedDelimitedReader(write(""), ',')).isEmpty());
+    }
+
+    @Test
+    public void givenQuoteSeparator_whenCreated_thenIllegalArgumentExceptionIsThrown() throws IOException {
+        Path file = write("A");
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new MappedDelimitedReader(file, '"'));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new MappedDelimitedReader(file, ',', 0));
+    }
+
+    @Test
+    public void givenListedFile_whenMappedByFileUtils_thenItIsReadWithTheConfiguredSeparator() throws IOException {
+        FileUtils fileUtils = new FileUtils(FileUtils.FileParameters.builder().directory("src/test/resources").build());
+
+        List<List<String>> records = readAll(fileUtils.map("fileA.csv"));
+
+        assertEquals(6, records.size());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> fileUtils.map("missing.csv"));
+    }
+}
@@ -0,0 +1,80 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MaskedColumnTest {
+
+    @Test
+    public void givenAppendedRows_whenRead_thenEveryRowAndNullIsKept() {
+        MaskedColumn column = new MaskedColumn(1, 1);
+
+        column.append("Jane").appendNull().append(new StringBuilder("Doe")).append("");
+
+        assertEquals(4, column.size());
+        assertArrayEquals(new String[]{"Jane", null, "Doe", ""}, column.toArray());
+        assertEquals(4, column.start(2));
+        assertEquals(7, column.end(2));
+        assertTrue(column.isNull(1));
+        assertFalse(column.isNull(3));
+        StringBuilder builder = new StringBuilder();
+        column.appendTo(2, builder);
+        assertEquals("Doe", builder.toString());
+    }
+
+    @Test
+    public void givenReservedCharacters_whenRowIsEnded_thenTheWrittenCharactersFormTheRow() {
+        MaskedColumn column = new MaskedColumn();
+        column.append("a");
+
+        char[] characters = column.reserve(3);
+        int start = column.position();
+        characters[start] = 'x';
+        characters[start + 1] = 'y';
+        column.endRow(start + 2);
+
+        assertEquals("xy", column.get(1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> column.endRow(0));
+    }
+
+    @Test
+    public void givenClearedColumn_whenRefilled_thenOldRowsAreGone() {
+        MaskedColumn column = new MaskedColumn();
+        column.append("first").append("second");
+
+        column.clear();
+        column.append("third");
+
+        assertEquals(1, column.size());
+        assertEquals("third", column.get(0));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> column.get(1));
+    }
+
+    @Test
+    public void givenFieldMasker_whenAdaptedToAColumn_thenEveryNonNullValueIsMasked() {
+        ColumnMasker stars = ColumnMasker.of((value, masked) -> {
+            for (int i = 0; i < value.length(); i++) {
+                masked.append('*');
+            }
+        });
+        MaskedColumn masked = new MaskedColumn();
+
+        stars.mask(new String[]{"skip", "Jane", null, "Al"}, 1, 4, masked);
+
+        assertArrayEquals(new String[]{"****", null, "**"}, masked.toArray());
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> stars.mask(new String[1], 0, 2, masked));
+    }
+
+    @Test
+    public void givenARowOfAnotherColumn_whenAppended_thenItsCharactersAreCopied() {
+        MaskedColumn source = new MaskedColumn();
+        source.append("Jane").appendNull().append("Doe");
+        MaskedColumn column = new MaskedColumn(1, 1);
+
+        column.append(source, 2).append(source, 1).append(source, 0);
+
+        assertArrayEquals(new String[]{"Doe", null, "Jane"}, column.toArray());
+    }
+}
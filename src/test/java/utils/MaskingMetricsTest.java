@@ -0,0 +1,118 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MaskingMetricsTest {
+
+    private static final FieldMasker STARS = (value, masked) -> {
+        for (int i = 0; i < value.length(); i++) {
+            masked.append('*');
+        }
+    };
+
+    @Test
+    public void givenInstrumentedColumns_whenMasked_thenCallsAndCharactersArePerOperation() throws IOException {
+        MaskingMetrics metrics = new MaskingMetrics();
+        MaskingPipeline pipeline = MaskingPipeline.builder()
+                .header(true)
+                .column("name", metrics.instrument("name:stars", STARS))
+                .column("ssn", metrics.instrument("ssn:stars", STARS))
+                .build();
+
+        pipeline.mask(new StringReader("name,ssn\nJane,123-45-7890\nBob,987-65-4321\n"), new StringWriter());
+
+        List<OperationMetrics.Snapshot> snapshots = metrics.snapshot();
+        assertEquals(2, snapshots.size());
+        OperationMetrics.Snapshot name = metrics.operation("name:stars").snapshot();
+        assertEquals(2, name.getCalls());
+        assertEquals(7, name.getCharacters());
+        assertEquals(22, metrics.operation("ssn:stars").snapshot().getCharacters());
+        assertTrue(name.getMaxNanos() >= name.getP50Nanos());
+    }
+
+    @Test
+    public void givenFailingOperation_whenMasked_thenFailureIsCounted() {
+        MaskingMetrics metrics = new MaskingMetrics();
+        FieldMasker failing = metrics.instrument("broken", FieldMasker.of(value -> value.substring(10)));
+
+        Assertions.assertThrows(StringIndexOutOfBoundsException.class, () -> failing.mask("short", new StringBuilder()));
+
+        assertEquals(1, metrics.operation("broken").snapshot().getFailures());
+    }
+
+    @Test
+    public void givenMetrics_whenExported_thenFileHasHeaderAndOneRecordPerOperation(@TempDir final Path directory) throws IOException {
+        MaskingMetrics metrics = new MaskingMetrics();
+        metrics.operation("a").record(100, 4);
+        metrics.operation("b, quoted").record(5000, 10);
+        Path file = directory.resolve("metrics.csv");
+
+        metrics.export(file);
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("operation,calls,failures,characters,total_nanos"));
+        assertTrue(lines.get(1).startsWith("\"b, quoted\",1,0,10,5000,"));
+        assertTrue(lines.get(2).startsWith("a,1,0,4,100,"));
+    }
+
+    @Test
+    public void givenRegisteredMBeans_whenOperationIsAdded_thenItIsPublishedUntilUnregistered() throws Exception {
+        MaskingMetrics metrics = new MaskingMetrics();
+        metrics.operation("first").record(10, 1);
+        metrics.registerMBeans("safedata.test");
+        metrics.operation("second").record(20, 2);
+
+        ObjectName second = new ObjectName("safedata.test:type=MaskingOperation,name=" + ObjectName.quote("second"));
+        assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(second, "Calls"));
+        assertEquals(20L, ManagementFactory.getPlatformMBeanServer().getAttribute(second, "P90Nanos"));
+        assertEquals(2L, ManagementFactory.getPlatformMBeanServer().queryNames(new ObjectName("safedata.test:*"), null).size());
+
+        metrics.unregisterMBeans();
+        assertTrue(ManagementFactory.getPlatformMBeanServer().queryNames(new ObjectName("safedata.test:*"), null).isEmpty());
+    }
+
+    @Test
+    public void givenOperationsCreatedWhileRegistering_whenRegistered_thenEachIsPublishedOnce() throws Exception {
+        MaskingMetrics metrics = new MaskingMetrics();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                final int first = thread * 500;
+                futures.add(executor.submit(() -> {
+                    for (int i = first; i < first + 500; i++) {
+                        metrics.operation("operation" + i);
+                    }
+                }));
+            }
+            metrics.registerMBeans("safedata.race");
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(2000, ManagementFactory.getPlatformMBeanServer().queryNames(new ObjectName("safedata.race:*"), null).size());
+        metrics.unregisterMBeans();
+        assertTrue(ManagementFactory.getPlatformMBeanServer().queryNames(new ObjectName("safedata.race:*"), null).isEmpty());
+    }
+}
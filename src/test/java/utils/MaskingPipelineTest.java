@@ -0,0 +1,159 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MaskingPipelineTest {
+
+    private static final FieldMasker STARS = (value, masked) -> {
+        for (int i = 0; i < value.length(); i++) {
+            masked.append('*');
+        }
+    };
+
+    private String mask(final MaskingPipeline pipeline, final String input) throws IOException {
+        StringWriter output = new StringWriter();
+        pipeline.mask(new StringReader(input), output);
+        return output.toString();
+    }
+
+    @Test
+    public void givenColumnsConfiguredByIndex_whenMasked_thenOnlyThoseColumnsChange() throws IOException {
+        MaskingPipeline pipeline = MaskingPipeline.builder().column(1, STARS).build();
+
+        assertEquals("A,**\nB,**\n", mask(pipeline, "A,10\nB,11"));
+    }
+
+    @Test
+    public void givenColumnsConfiguredByName_whenMasked_thenHeaderIsCopiedAndNamedColumnChanges() throws IOException {
+        MaskingPipeline pipeline = MaskingPipeline.builder().header(true).column("name", STARS).build();
+
+        assertEquals("id,name\n1,****\n2,***\n", mask(pipeline, "id,name\n1,Jane\n2,Bob\n"));
+    }
+
+    @Test
+    public void givenMaskedValueWithSeparator_whenMasked_thenOutputFieldIsQuoted() throws IOException {
+        MaskingPipeline pipeline = MaskingPipeline.builder()
+                .column(0, FieldMasker.of(value -> value + ", Jr"))
+                .build();
+
+        assertEquals("\"Doe, Jr\",\"a\"\"b\"\n", mask(pipeline, "Doe,\"a\"\"b\"\n"));
+    }
+
+    @Test
+    public void givenPipeSeparator_whenMasked_thenSeparatorIsUsedForInputAndOutput() throws IOException {
+        MaskingPipeline pipeline = MaskingPipeline.builder().fieldSeparator("|").column(0, STARS).build();
+
+        assertEquals("***|a,b\n", mask(pipeline, "abc|a,b\n"));
+    }
+
+    @Test
+    public void givenNamedColumnMissingFromHeader_whenMasked_thenIllegalArgumentExceptionIsThrownWithColumnInMessage() {
+        MaskingPipeline pipeline = MaskingPipeline.builder().header(true).column("ssn", STARS).build();
+
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> mask(pipeline, "id,name\n1,Jane\n"));
+
+        assertTrue(thrown.getMessage().contains("ssn"));
+    }
+
+    @Test
+    public void givenNamedColumnWithoutHeader_whenBuilt_thenIllegalArgumentExceptionIsThrown() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MaskingPipeline.builder().column("ssn", STARS).build());
+    }
+
+    @Test
+    public void givenFailingOperation_whenMasked_thenIllegalArgumentExceptionIsThrownWithRecordInMessage() {
+        MaskingPipeline pipeline = MaskingPipeline.builder()
+                .column(1, FieldMasker.of(value -> Integer.toString(Integer.parseInt(value))))
+                .build();
+
+        IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class, () -> mask(pipeline, "A,1\nB,x\n"));
+
+        assertTrue(thrown.getMessage().contains("record 2"));
+    }
+
+    @Test
+    public void givenFiles_whenMasked_thenTargetFileHasOneOutputRecordPerInputRecord(@TempDir final Path directory) throws IOException {
+        Path target = directory.resolve("fileA.csv");
+        MaskingPipeline pipeline = MaskingPipeline.builder().column(1, STARS).build();
+
+        long records = pipeline.mask(Paths.get("src/test/resources/fileA.csv"), target);
+
+        assertEquals(6, records);
+        assertEquals("A,**", Files.readAllLines(target).get(0));
+    }
+
+    @Test
+    public void givenExecutor_whenMaskedInChunks_thenTargetMatchesSingleThreadedOutput(@TempDir final Path directory) throws Exception {
+        StringBuilder input = new StringBuilder("id,name,note\n");
+        for (int i = 0; i < 500; i++) {
+            input.append(i).append(",Name").append(i).append(i % 7 == 0 ? ",\"multi\nline, \"\"quoted\"\"\"\r\n" : ",plain\n");
+        }
+        Path source = Files.writeString(directory.resolve("source.csv"), input);
+        MaskingPipeline pipeline = MaskingPipeline.builder().header(true).column("name", STARS).chunkSize(256).build();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            long records = pipeline.mask(source, directory.resolve("parallel.csv"), executor);
+            pipeline.mask(source, directory.resolve("sequential.csv"));
+
+            assertEquals(500, records);
+            assertEquals(Files.readString(directory.resolve("sequential.csv")), Files.readString(directory.resolve("parallel.csv")));
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(3, files.count());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void givenExecutor_whenMaskedIntoParts_thenEveryPartHasTheHeaderAndPartsHoldAllRecordsInOrder(@TempDir final Path directory) throws Exception {
+        Path source = Files.writeString(directory.resolve("source.csv"), "id,name\n1,Jane\n2,Bob\n3,Al\n");
+        MaskingPipeline pipeline = MaskingPipeline.builder().header(true).column("name", STARS).chunkSize(1).build();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Path> parts = pipeline.maskParts(source, directory.resolve("target.csv"), executor);
+
+            assertEquals(3, parts.size());
+            assertEquals("id,name\n1,****\n", Files.readString(parts.get(0)));
+            assertEquals("id,name\n3,**\n", Files.readString(parts.get(2)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void givenFailingOperation_whenMaskedInChunks_thenRecordIsInMessageAndNoPartsAreLeft(@TempDir final Path directory) throws Exception {
+        Path source = Files.writeString(directory.resolve("source.csv"), "A,1\nB,2\nC,x\nD,4\n");
+        MaskingPipeline pipeline = MaskingPipeline.builder()
+                .column(1, FieldMasker.of(value -> Integer.toString(Integer.parseInt(value))))
+                .chunkSize(1)
+                .build();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            IllegalArgumentException thrown = Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> pipeline.mask(source, directory.resolve("target.csv"), executor));
+
+            assertTrue(thrown.getMessage().contains("record 3"));
+            try (Stream<Path> files = Files.list(directory)) {
+                assertTrue(files.noneMatch(file -> file.getFileName().toString().contains(".part-")));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
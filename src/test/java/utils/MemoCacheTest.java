@@ -0,0 +1,134 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MemoCacheTest {
+
+    @Test
+    public void givenAFullLruCache_whenAddingAValue_thenTheLeastRecentlyUsedIsEvicted() {
+        MemoCache cache = new MemoCache(3, MemoCache.EVICTION.lru);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        assertEquals("A", cache.get("a"));
+
+        cache.put("d", "D");
+
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.get("c"));
+        assertEquals("D", cache.get("d"));
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.evictions());
+        assertEquals(4, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(0.8, cache.hitRate(), 1e-9);
+    }
+
+    @Test
+    public void givenRepeatedValues_whenAScanOfNewValuesFollows_thenTinyLfuKeepsTheRepeatedOnes() {
+        MemoCache lru = new MemoCache(100, MemoCache.EVICTION.lru);
+        MemoCache tinyLfu = new MemoCache(100, MemoCache.EVICTION.tinyLfu);
+
+        for (MemoCache cache : new MemoCache[]{lru, tinyLfu}) {
+            // fifty values asked for ten times each, then three hundred values asked for once
+            for (int round = 0; round < 10; round++) {
+                for (int i = 0; i < 50; i++) {
+                    cache.get("hot" + i, String::toUpperCase);
+                }
+            }
+            for (int i = 0; i < 300; i++) {
+                cache.get("once" + i, String::toUpperCase);
+            }
+        }
+
+        int lruKept = 0;
+        int tinyLfuKept = 0;
+        for (int i = 0; i < 50; i++) {
+            lruKept += lru.get("hot" + i) == null ? 0 : 1;
+            tinyLfuKept += tinyLfu.get("hot" + i) == null ? 0 : 1;
+        }
+        assertEquals(0, lruKept);
+        // the sketch is approximate: a value seen once can share all its counters with repeated ones and be admitted
+        assertTrue(tinyLfuKept >= 45, Integer.toString(tinyLfuKept));
+        assertTrue(tinyLfu.size() <= 100);
+    }
+
+    @Test
+    public void givenAMemoizedMasker_whenValuesRepeat_thenEachIsMaskedOnce() {
+        MemoCache cache = new MemoCache(10, MemoCache.EVICTION.tinyLfu);
+        AtomicInteger calls = new AtomicInteger();
+        FieldMasker masker = cache.memoize((value, masked) -> {
+            calls.incrementAndGet();
+            if (value.length() == 0) {
+                throw new IllegalArgumentException("empty");
+            }
+            masked.append(value.toString().toUpperCase());
+        });
+
+        StringBuilder masked = new StringBuilder("prefix|");
+        StringBuilder field = new StringBuilder();
+        for (String value : new String[]{"omaha", "lincoln", "omaha", "omaha"}) {
+            // a reused buffer, as the pipeline passes
+            field.setLength(0);
+            field.append(value);
+            masker.mask(field, masked);
+            masked.append('|');
+        }
+
+        assertEquals("prefix|OMAHA|LINCOLN|OMAHA|OMAHA|", masked.toString());
+        assertEquals(2, calls.get());
+        assertEquals(2, cache.hits());
+        assertThrows(IllegalArgumentException.class, () -> masker.mask("", new StringBuilder()));
+        assertThrows(IllegalArgumentException.class, () -> masker.mask("", new StringBuilder()));
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    public void givenASharedCache_whenThreadsLookUpTheSameValues_thenEveryResultIsCorrect() throws Exception {
+        MemoCache cache = new MemoCache(1000, MemoCache.EVICTION.tinyLfu);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> wrong = new ArrayList<>();
+
+        for (int t = 0; t < 4; t++) {
+            wrong.add(executor.submit(() -> {
+                int count = 0;
+                for (int i = 0; i < 20_000; i++) {
+                    String key = "value" + (i % 200);
+                    count += cache.get(key, k -> k + "!").equals(key + "!") ? 0 : 1;
+                }
+                return count;
+            }));
+        }
+        for (Future<Integer> count : wrong) {
+            assertEquals(0, count.get());
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(80_000, cache.hits() + cache.misses());
+        assertEquals(200, cache.size());
+        assertTrue(cache.hitRate() > 0.99, cache.toString());
+        assertNotNull(cache.get("value7"));
+    }
+
+    @Test
+    public void givenAnInvalidSizeOrEviction_whenCreatingACache_thenItIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new MemoCache(0, MemoCache.EVICTION.lru));
+        assertThrows(IllegalArgumentException.class, () -> new MemoCache(10, null));
+    }
+}
@@ -0,0 +1,93 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NameDictionaryTest {
+
+    private static final Path RESOURCES = Paths.get("src/main/resources");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void givenTheResourceFiles_whenCompiled_thenEveryRowCanBeReadBack() throws IOException {
+        Path file = directory.resolve("names.dict");
+        NameDictionary.compile(RESOURCES, file);
+
+        NameDictionary dictionary = NameDictionary.open(file);
+
+        assertEquals(11, dictionary.yearCount());
+        assertEquals(1920, dictionary.year(0));
+        assertEquals(10, dictionary.yearIndex(2020));
+        assertEquals(-1, dictionary.yearIndex(1925));
+
+        // yob1920.txt starts with Mary,F,70982 and holds one row per line
+        int row = dictionary.yearRowStart(0);
+        assertEquals("Mary", dictionary.string(dictionary.firstName(row)));
+        assertEquals(70982, dictionary.firstNameCount(row));
+        assertTrue(dictionary.isFemale(row));
+        List<String> lines = Files.readAllLines(RESOURCES.resolve("yob1920.txt"));
+        assertEquals(lines.size(), dictionary.yearRowStart(1) - dictionary.yearRowStart(0));
+        String[] last = lines.get(lines.size() - 1).split(",");
+        int lastRow = dictionary.yearRowStart(1) - 1;
+        assertEquals(last[0], dictionary.string(dictionary.firstName(lastRow)));
+        assertEquals(last[1].equals("F"), dictionary.isFemale(lastRow));
+        assertEquals(Integer.parseInt(last[2]), dictionary.firstNameCount(lastRow));
+
+        assertEquals(1000, dictionary.surnameRows());
+        assertEquals("SMITH", dictionary.string(dictionary.surname(0)));
+        assertEquals(1, dictionary.surnameRank(0));
+        assertEquals(2376206, dictionary.surnameCount(0));
+    }
+
+    @Test
+    public void givenANameUsedEveryYear_whenCompiled_thenItIsStoredOnce() throws IOException {
+        Path file = directory.resolve("names.dict");
+        NameDictionary.compile(RESOURCES, file);
+
+        NameDictionary dictionary = NameDictionary.open(file);
+
+        int first = dictionary.firstName(dictionary.yearRowStart(0));
+        int second = dictionary.firstName(dictionary.yearRowStart(1));
+        assertEquals(dictionary.string(first), dictionary.string(second));
+        assertEquals(first, second);
+        assertSame(dictionary.string(first), dictionary.string(first));
+        assertTrue(dictionary.stringCount() < dictionary.firstNameRows());
+    }
+
+    @Test
+    public void givenTheBuild_whenTheResourceIsOpened_thenItHoldsEveryYear() throws IOException {
+        NameDictionary dictionary = NameDictionary.openResource();
+
+        assertNotNull(dictionary);
+        assertEquals(11, dictionary.yearCount());
+        assertEquals(1920, dictionary.year(0));
+        assertEquals(1000, dictionary.surnameRows());
+    }
+
+    @Test
+    public void givenAStaleOrCorruptDictionary_whenOpened_thenItIsCompiledAgain() throws IOException {
+        Path file = directory.resolve("names.dict");
+        Files.write(file, new byte[]{1, 2, 3});
+        Assertions.assertThrows(IllegalArgumentException.class, () -> NameDictionary.open(file));
+
+        NameDictionary dictionary = NameDictionary.openOrCompile(RESOURCES, file);
+        assertEquals(11, dictionary.yearCount());
+
+        // an up to date dictionary is opened as it is
+        FileTime compiled = Files.getLastModifiedTime(file);
+        NameDictionary.openOrCompile(RESOURCES, file);
+        assertEquals(compiled, Files.getLastModifiedTime(file));
+    }
+}
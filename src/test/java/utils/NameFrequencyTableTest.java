@@ -0,0 +1,88 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NameFrequencyTableTest {
+
+    @Test
+    public void givenTheSameNameForEachGender_whenBuilt_thenEachGenderHasItsOwnEntry() {
+        NameFrequencyTable table = NameFrequencyTable.builder()
+                .add("Jordan", true, 10, 1)
+                .add("Jordan", false, 30, 1)
+                .add("Mary", true, 100, 1)
+                .build();
+
+        int female = table.find("Jordan", true);
+        int male = table.find("Jordan", false);
+
+        assertEquals(3, table.size());
+        assertNotEquals(female, male);
+        assertEquals(10, table.count(female));
+        assertEquals(30, table.count(male));
+        assertTrue(table.isFemale(female));
+        assertFalse(table.isFemale(male));
+        assertEquals(-1, table.find("Mary", false));
+        assertEquals(110, table.getFemaleWeight());
+        assertEquals(30, table.getMaleWeight());
+    }
+
+    @Test
+    public void givenANameAddedAgain_whenBuilt_thenItsTotalsAreAdded() {
+        NameFrequencyTable table = NameFrequencyTable.builder()
+                .add("Mary", true, 70, 1)
+                .add("Mary", true, 50, 1)
+                .build();
+
+        int mary = table.find(new StringBuilder("Mary"), true);
+
+        assertEquals(1, table.size());
+        assertEquals("Mary", table.name(mary));
+        assertEquals(120, table.count(mary));
+        assertEquals(2, table.frequency(mary));
+    }
+
+    @Test
+    public void givenANameInAnotherCase_whenFound_thenItMatchesTheEntry() {
+        NameFrequencyTable table = NameFrequencyTable.builder()
+                .add("Mary", true, 70, 1)
+                .add("MARY", true, 50, 1)
+                .build();
+
+        int mary = table.find("mary", true);
+
+        assertEquals(1, table.size());
+        assertEquals(mary, table.find(new StringBuilder("MARY"), true));
+        assertEquals("Mary", table.name(mary));
+        assertEquals(120, table.count(mary));
+        assertEquals(-1, table.find("MARY", false));
+    }
+
+    @Test
+    public void givenManyNames_whenBuilt_thenEveryNameIsFoundAfterTheIndexGrows() {
+        NameFrequencyTable.Builder builder = NameFrequencyTable.builder();
+        for (int i = 0; i < 100_000; i++) {
+            builder.add("name" + i, i % 3 == 0, i, 1);
+        }
+
+        NameFrequencyTable table = builder.build();
+
+        assertEquals(100_000, table.size());
+        for (int i = 0; i < 100_000; i++) {
+            int entry = table.find("name" + i, i % 3 == 0);
+            assertEquals(i, entry);
+            assertEquals(i, table.count(entry));
+        }
+        assertEquals(-1, table.find("name1", true));
+    }
+
+    @Test
+    public void givenANegativeCount_whenAdded_thenIllegalArgumentExceptionIsThrown() {
+        NameFrequencyTable.Builder builder = NameFrequencyTable.builder();
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> builder.add("Mary", true, -1, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> builder.add(null, true, 1, 1));
+    }
+}
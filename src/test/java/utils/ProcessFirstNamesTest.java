@@ -16,6 +16,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 public class ProcessFirstNamesTest {
 
     @Test
@@ -54,6 +56,36 @@ public class ProcessFirstNamesTest {
 
     }
 
+    @Test
+    public void testReadMergesRequestedYears() throws IOException {
+        ProcessFirstNames processFirstNames = new ProcessFirstNames(ProcessFirstNames.RequestParameters.builder()
+                .startYear(1920)
+                .endYear(1930)
+                .increment(10)
+                .build());
+
+        // totals read the slow way, one split line at a time
+        Map<String, Integer> counts = new HashMap<>();
+        int female = 0;
+        for (String file : new String[]{"yob1920.txt", "yob1930.txt"}) {
+            for (String line : Files.readAllLines(Paths.get("src/main/resources", file))) {
+                String[] columns = line.split(",");
+                int count = Integer.parseInt(columns[2]);
+                counts.merge(columns[0] + "," + columns[1], count, Integer::sum);
+                if (columns[1].equals("F")) {
+                    female += count;
+                }
+            }
+        }
+
+        NameFrequencyTable names = processFirstNames.getNames();
+        int mary = names.find("Mary", true);
+        assertEquals(counts.size(), names.size());
+        assertEquals(counts.get("Mary,F"), names.count(mary));
+        assertEquals(2, names.frequency(mary));
+        assertEquals(female, processFirstNames.getFemaleWeight());
+    }
+
     //@Test
     public void testRead() throws URISyntaxException {
         //URL url = ClassLoader.getResource("src/main/resources/yob1960.txt");
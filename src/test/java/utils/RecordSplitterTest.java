@@ -0,0 +1,64 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecordSplitterTest {
+
+    @TempDir
+    Path directory;
+
+    private Path write(final String input) throws IOException {
+        return Files.write(directory.resolve("input.csv"), input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void givenSmallChunkSize_whenSplit_thenEveryChunkEndsAfterALineBreak() throws IOException {
+        Path file = write("A,1\nB,2\r\nC,3\rD,4");
+
+        List<RecordSplitter.Chunk> chunks = RecordSplitter.split(file, ',', 0, 1, 1);
+
+        assertEquals(List.of(
+                new RecordSplitter.Chunk(0, 4, 1),
+                new RecordSplitter.Chunk(4, 9, 2),
+                new RecordSplitter.Chunk(9, 13, 3),
+                new RecordSplitter.Chunk(13, 16, 4)), chunks);
+    }
+
+    @Test
+    public void givenLineBreaksInsideQuotes_whenSplit_thenRecordsAreNotBroken() throws IOException {
+        String input = "\"a\nb\",\"say \"\"x\ny\"\"\"\nc,5\" ruler\nd,\"e\"\"\nf\"\n";
+        Path file = write(input);
+
+        List<RecordSplitter.Chunk> chunks = RecordSplitter.split(file, ',', 0, 1, 1);
+
+        assertEquals(3, chunks.size());
+        assertEquals(new RecordSplitter.Chunk(0, input.indexOf("c,"), 1), chunks.get(0));
+        assertEquals(new RecordSplitter.Chunk(input.indexOf("c,"), input.indexOf("d,"), 2), chunks.get(1));
+        assertEquals(new RecordSplitter.Chunk(input.indexOf("d,"), input.length(), 3), chunks.get(2));
+    }
+
+    @Test
+    public void givenLargeChunkSize_whenSplit_thenOneChunkCoversTheRange() throws IOException {
+        Path file = write("id\nA\nB\n");
+
+        assertEquals(List.of(new RecordSplitter.Chunk(3, 7, 2)), RecordSplitter.split(file, ',', 3, 2, 1024));
+        assertTrue(RecordSplitter.split(file, ',', 7, 4, 1024).isEmpty());
+    }
+
+    @Test
+    public void givenNonPositiveChunkSize_whenSplit_thenIllegalArgumentExceptionIsThrown() throws IOException {
+        Path file = write("A");
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RecordSplitter.split(file, ',', 0, 1, 0));
+    }
+}
@@ -0,0 +1,85 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SurnameTableTest {
+
+    private static SurnameTable table() {
+        return new SurnameTable(
+                new String[]{"SMITH", "JOHNSON", "WILLIAMS", "BROWN", "JONES", "GARCIA"},
+                new int[]{1, 2, 3, 4, 4, 6},
+                new int[]{9000, 600, 200, 100, 100, 0});
+    }
+
+    @Test
+    public void givenSurnamesInAnyCase_whenFound_thenTheirRowIsReturned() {
+        SurnameTable table = table();
+
+        assertEquals(0, table.find("Smith"));
+        assertEquals(3, table.find(new StringBuilder("brown")));
+        assertEquals(-1, table.find("Callaghan"));
+        assertEquals("JONES", table.name(4));
+        assertEquals(4, table.rank(4));
+        assertEquals(600, table.count(1));
+    }
+
+    @Test
+    public void givenCounts_whenDrawnWeighted_thenRowsComeInProportion() {
+        SurnameTable table = table();
+        int[] draws = new int[table.size()];
+
+        for (int i = 0; i < 100_000; i++) {
+            draws[table.weighted()]++;
+        }
+
+        assertEquals(90_000, draws[0], 1_000);
+        assertEquals(6_000, draws[1], 600);
+        assertEquals(0, draws[5]);
+    }
+
+    @Test
+    public void givenAnyRow_whenDrawnUniformly_thenEveryRowComesUp() {
+        SurnameTable table = table();
+        Set<Integer> rows = new HashSet<>();
+
+        for (int i = 0; i < 1_000; i++) {
+            rows.add(table.uniform());
+        }
+
+        assertEquals(table.size(), rows.size());
+    }
+
+    @Test
+    public void givenARow_whenDrawnBySimilarRank_thenAnotherRowWithinTheBandIsReturned() {
+        SurnameTable table = table();
+        Set<Integer> nearJohnson = new HashSet<>();
+        Set<Integer> nearUnknown = new HashSet<>();
+
+        for (int i = 0; i < 1_000; i++) {
+            nearJohnson.add(table.similarRank(1, 2));
+            nearUnknown.add(table.similarRank(-1, 2));
+        }
+
+        assertEquals(Set.of(0, 2, 3), nearJohnson);
+        assertEquals(Set.of(4, 5), nearUnknown);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> table.similarRank(1, 0));
+    }
+
+    @Test
+    public void givenInconsistentColumns_whenBuilt_thenIllegalArgumentExceptionIsThrown() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new SurnameTable(new String[]{"SMITH"}, new int[]{1, 2}, new int[]{1}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new SurnameTable(new String[]{"SMITH", "JOHNSON"}, new int[]{2, 1}, new int[]{5, 4}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new SurnameTable(new String[]{"SMITH"}, new int[]{1}, new int[]{-1}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new SurnameTable(new String[0], new int[0], new int[0]));
+    }
+}
@@ -0,0 +1,171 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenVaultTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void givenATokenizedValue_whenRevealed_thenTheOriginalIsReturned() {
+        TokenVault vault = TokenVault.builder().build();
+        AtomicInteger generated = new AtomicInteger();
+
+        String token = vault.tokenize("Callaghan", value -> "token" + generated.incrementAndGet());
+
+        assertEquals("token1", token);
+        assertEquals(token, vault.tokenize("Callaghan", value -> "never used"));
+        assertEquals(1, generated.get());
+        assertEquals("Callaghan", vault.reveal(token));
+        assertEquals(token, vault.replacement("Callaghan"));
+        assertNull(vault.reveal("unknown"));
+        assertNull(vault.tokenize((String) null, value -> "x"));
+        assertEquals(1, vault.size());
+    }
+
+    @Test
+    public void givenAReplacementThatIsTaken_whenTokenizing_thenTheGeneratorIsCalledAgain() {
+        TokenVault vault = TokenVault.builder().build();
+        vault.put("Mary", "Dorothy");
+        String[] candidates = {"Dorothy", "Helen"};
+        AtomicInteger attempt = new AtomicInteger();
+
+        String token = vault.tokenize("Margaret", value -> candidates[attempt.getAndIncrement()]);
+
+        assertEquals("Helen", token);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> vault.tokenize("Ruth", value -> "Dorothy"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> vault.put("Mary", "Helen"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> vault.put("Anna", "Dorothy"));
+        vault.put("Mary", "Dorothy");
+        assertEquals(2, vault.size());
+    }
+
+    @Test
+    public void givenMoreValuesThanFitInHeap_whenTokenized_thenSpilledPairsAreStillFound() throws IOException {
+        TokenVault vault = TokenVault.builder().segments(2).maxResidentEntries(8).spillDirectory(directory).build();
+
+        for (int i = 0; i < 1000; i++) {
+            vault.tokenize("value" + i, value -> "token-" + value);
+        }
+
+        assertEquals(1000, vault.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("token-value" + i, vault.replacement("value" + i));
+            assertEquals("value" + i, vault.reveal("token-value" + i));
+        }
+        assertTrue(countFiles() > 0);
+
+        vault.close();
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    public void givenManySpills_whenTokenized_thenRunsAreMergedInTiersAndMappedInWindows() throws IOException {
+        // 8 pairs per spill and about two pairs per mapped window
+        TokenVault vault = TokenVault.builder().segments(1).maxResidentEntries(8).mapWindowBytes(64).spillDirectory(directory).build();
+
+        for (int i = 0; i < 1000; i++) {
+            vault.tokenize("value" + i, value -> "token-" + value);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("token-value" + i, vault.replacement("value" + i));
+            assertEquals("value" + i, vault.reveal("token-value" + i));
+        }
+        // 125 spills per index leave one run per bit of 125, not one run per spill
+        assertEquals(2 * Integer.bitCount(125), countFiles());
+        Path saved = Files.createTempFile("vault", ".csv");
+        try {
+            assertEquals(1000, vault.save(saved));
+        } finally {
+            Files.delete(saved);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> vault.tokenize("x".repeat(100), value -> "too long for a window"));
+
+        vault.close();
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    public void givenAColumnOfReplacements_whenRevealed_thenEachRowGetsItsOriginal() {
+        TokenVault vault = TokenVault.builder().segments(4).build();
+        String[] originals = new String[100];
+        for (int i = 0; i < originals.length; i++) {
+            originals[i] = i % 10 == 0 ? null : "value" + (i % 30);
+        }
+
+        String[] tokens = vault.tokenize(originals, value -> "token-" + value);
+        String[] revealed = vault.reveal(tokens);
+
+        assertArrayEquals(originals, revealed);
+        assertNull(vault.reveal(new String[]{"not a token"})[0]);
+    }
+
+    @Test
+    public void givenASavedVault_whenLoaded_thenEveryPairIsRestored() throws IOException {
+        TokenVault vault = TokenVault.builder().segments(2).maxResidentEntries(4).spillDirectory(directory.resolve("spill")).build();
+        for (int i = 0; i < 50; i++) {
+            vault.tokenize("value, \"" + i + "\"", value -> "token" + value.hashCode());
+        }
+        Path file = directory.resolve("vault.csv");
+
+        assertEquals(50, vault.save(file));
+        TokenVault restored = TokenVault.builder().build();
+        assertEquals(50, restored.load(file));
+
+        assertEquals(50, restored.size());
+        for (int i = 0; i < 50; i++) {
+            String original = "value, \"" + i + "\"";
+            assertEquals(original, restored.reveal(vault.replacement(original)));
+        }
+    }
+
+    @Test
+    public void givenManyThreads_whenTokenizingTheSameValues_thenEachValueGetsOneReplacement() throws InterruptedException, ExecutionException {
+        TokenVault vault = TokenVault.builder().segments(4).maxResidentEntries(64).spillDirectory(directory).build();
+        AtomicInteger generated = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            Future<?>[] futures = new Future<?>[4];
+            for (int t = 0; t < futures.length; t++) {
+                futures[t] = executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        String token = vault.tokenize("value" + i, value -> "token" + generated.incrementAndGet());
+                        assertEquals("value" + i, vault.reveal(token));
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(2000, vault.size());
+        assertEquals(2000, generated.get());
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
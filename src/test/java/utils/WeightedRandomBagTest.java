@@ -0,0 +1,76 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeightedRandomBagTest {
+
+    @Test
+    public void givenAnEmptyBag_whenDrawing_thenNullIsReturned() {
+        WeightedRandomBag<String> bag = new WeightedRandomBag<>();
+
+        assertNull(bag.getRandom());
+        assertNull(bag.getRandom(new SplittableRandom(1)));
+    }
+
+    @Test
+    public void givenWeightedEntries_whenDrawingManyTimes_thenEachEntryIsDrawnInProportionToItsWeight() {
+        WeightedRandomBag<String> bag = new WeightedRandomBag<>();
+        bag.addEntry("a", 1);
+        bag.addEntry("b", 2);
+        bag.addEntry("c", 7);
+        bag.addEntry("never", 0);
+
+        Map<String, Integer> counts = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(42);
+        int draws = 100_000;
+        for (int i = 0; i < draws; i++) {
+            counts.merge(bag.getRandom(random), 1, Integer::sum);
+        }
+
+        assertEquals(0.1, counts.get("a") / (double) draws, 0.01);
+        assertEquals(0.2, counts.get("b") / (double) draws, 0.01);
+        assertEquals(0.7, counts.get("c") / (double) draws, 0.01);
+        assertFalse(counts.containsKey("never"));
+    }
+
+    @Test
+    public void givenTheSameSeed_whenDrawing_thenTheSameSequenceIsReturned() {
+        WeightedRandomBag<Integer> bag = new WeightedRandomBag<>();
+        for (int i = 0; i < 100; i++) {
+            bag.addEntry(i, i + 1);
+        }
+
+        SplittableRandom first = new SplittableRandom(7);
+        SplittableRandom second = new SplittableRandom(7);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(bag.getRandom(first), bag.getRandom(second));
+        }
+    }
+
+    @Test
+    public void givenEntriesAddedAfterDrawing_whenDrawing_thenNewEntriesCanBeDrawn() {
+        WeightedRandomBag<String> bag = new WeightedRandomBag<>();
+        bag.addEntry("a", 1);
+        assertEquals("a", bag.getRandom());
+
+        bag.addEntry("b", 1_000_000);
+
+        assertEquals(2, bag.size());
+        assertEquals("b", bag.getRandom(new SplittableRandom(3)));
+    }
+
+    @Test
+    public void givenANegativeWeight_whenAdded_thenIllegalArgumentExceptionIsThrown() {
+        WeightedRandomBag<String> bag = new WeightedRandomBag<>();
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bag.addEntry("a", -1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bag.addEntry("a", Double.NaN));
+    }
+}
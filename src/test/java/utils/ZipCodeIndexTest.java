@@ -0,0 +1,73 @@
+package utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZipCodeIndexTest {
+
+    private static final String ZIPS = "\uFEFFzip,primary_city,state,county, \r\n"
+            + "68134,Omaha,NE,Douglas County,\"402,712\"\r\n"
+            + "68002,Arlington,NE,Washington County,402\r\n"
+            + "02108,Boston,MA,Suffolk County,617\r\n"
+            + "68102,Omaha,NE,Douglas County,402\r\n"
+            + "68008,Blair,NE,Washington County,402\r\n";
+
+    @Test
+    public void givenZipCodes_whenIndexed_thenRegionsAreContiguousRanges() throws IOException {
+        ZipCodeIndex index = ZipCodeIndex.read(new StringReader(ZIPS));
+
+        int omaha = index.find("68134");
+        int county = index.county(omaha);
+        int state = index.state(omaha);
+
+        assertEquals(5, index.size());
+        assertEquals("68134", index.zip(omaha));
+        assertEquals("Douglas County", index.countyName(county));
+        assertEquals("NE", index.stateName(state));
+        assertEquals(2, index.countyEnd(county) - index.countyStart(county));
+        assertEquals(4, index.stateEnd(state) - index.stateStart(state));
+        assertArrayEquals(new int[]{2108, 68102, 68134, 68002, 68008}, index.zips());
+    }
+
+    @Test
+    public void givenZipInAnyForm_whenFound_thenOnlyKnownZipsHaveARow() throws IOException {
+        ZipCodeIndex index = ZipCodeIndex.read(new StringReader(ZIPS));
+
+        assertEquals(index.find("02108"), index.find(new StringBuilder("02108-1234")));
+        assertEquals("02108", index.zip(index.find("02108")));
+        assertEquals(-1, index.find("2108"));
+        assertEquals(-1, index.find("99999"));
+        assertEquals(-1, index.find("68134-12"));
+        assertEquals(-1, index.find("6813A"));
+        assertTrue(ZipCodeIndex.isZip("99999-0001"));
+        assertFalse(ZipCodeIndex.isZip("68002-ABCD"));
+    }
+
+    @Test
+    public void givenBundledFile_whenLoaded_thenEveryZipIsIndexed() {
+        ZipCodeIndex index = ZipCodeIndex.load();
+
+        int arthur = index.find("69121");
+        assertEquals(563, index.size());
+        assertEquals("Arthur County", index.countyName(index.county(arthur)));
+        assertEquals(1, index.countyEnd(index.county(arthur)) - index.countyStart(index.county(arthur)));
+    }
+
+    @Test
+    public void givenBadZipCodes_whenRead_thenIllegalArgumentExceptionIsThrown() {
+        String header = "zip,primary_city,state,county,area_code\n";
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ZipCodeIndex.read(new StringReader(header + "6800,Arlington,NE,Washington County,402\n")));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ZipCodeIndex.read(new StringReader(header + "68002,A,NE,Washington County,402\n68002,B,NE,Washington County,402\n")));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ZipCodeIndex.read(new StringReader(header + "68002,Arlington\n")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ZipCodeIndex.read(new StringReader(header)));
+    }
+}